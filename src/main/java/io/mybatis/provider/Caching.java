@@ -17,10 +17,13 @@
 package io.mybatis.provider;
 
 import io.mybatis.config.ConfigHelper;
+import io.mybatis.provider.mapping.EntityParameterBinder;
 import org.apache.ibatis.annotations.Lang;
 import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
@@ -153,4 +156,14 @@ public class Caching extends XMLLanguageDriver {
     }
   }
 
+  @Override
+  public ParameterHandler createParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
+    //参数是实体的静态 SQL 直接使用预编译的参数绑定，参数映射被其他插件修改过时使用默认处理
+    if (boundSql instanceof EntityParameterBinder.CompiledBoundSql
+        && ((EntityParameterBinder.CompiledBoundSql) boundSql).isIntact()) {
+      return new EntityParameterBinder.Handler(((EntityParameterBinder.CompiledBoundSql) boundSql).getBinder(), parameterObject);
+    }
+    return super.createParameterHandler(mappedStatement, parameterObject, boundSql);
+  }
+
 }
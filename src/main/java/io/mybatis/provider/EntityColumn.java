@@ -21,12 +21,16 @@ import io.mybatis.provider.util.Utils;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
 import org.apache.ibatis.type.UnknownTypeHandler;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 
 import static io.mybatis.provider.EntityTable.DELIMITER;
@@ -38,6 +42,10 @@ import static io.mybatis.provider.EntityTable.DELIMITER;
  */
 @Accessors(fluent = true)
 public class EntityColumn extends EntityProps<EntityColumn> {
+  /**
+   * 列是否延迟加载，只能在 {@code @Entity.Column(props)} 中配置，默认 false
+   */
+  public static final String LAZY = "mybatis.provider.lazy";
   /**
    * 实体类字段
    */
@@ -133,6 +141,10 @@ public class EntityColumn extends EntityProps<EntityColumn> {
   @Getter
   @Setter
   protected       String                       numericScale;
+  /**
+   * 已经实例化的类型处理器，不同的 Configuration 分别实例化
+   */
+  protected final Map<Configuration, TypeHandler<?>> typeHandlerInstances = new ConcurrentHashMap<>(2);
 
   //<editor-fold desc="根据上面基础方法就能直接实现的默认方法">
 
@@ -218,6 +230,22 @@ public class EntityColumn extends EntityProps<EntityColumn> {
     return Optional.empty();
   }
 
+  /**
+   * 获取类型处理器实例，同一个 Configuration 中只实例化一次，保存在当前列中，不会修改 {@link TypeHandlerRegistry}
+   * <p>
+   * 自动生成的 resultMap、预编译的实体参数绑定和批量写入都使用这个实例，
+   * 其他情况下解析 {@link #typeHandlerVariables()} 时由 MyBatis 自己创建
+   *
+   * @param configuration MyBatis 配置类
+   * @return 类型处理器，没有配置时返回 null
+   */
+  public TypeHandler<?> typeHandlerInstance(Configuration configuration) {
+    if (this.typeHandler == null || this.typeHandler == UnknownTypeHandler.class) {
+      return null;
+    }
+    return typeHandlerInstances.computeIfAbsent(configuration, c -> entityTable.getTypeHandlerInstance(javaType(), typeHandler));
+  }
+
   /**
    * 小数位数 {, numericScale=2}
    */
@@ -313,6 +341,15 @@ public class EntityColumn extends EntityProps<EntityColumn> {
   public boolean hasPrimaryKeyStrategy() {
     return id && (useGeneratedKeys || (afterSql != null && !afterSql.isEmpty()) || (genId != null && genId != GenId.NULL.class));
   }
+
+  /**
+   * 当前字段是否延迟加载，主键不能延迟加载
+   * <p>
+   * 只读取字段上配置的 {@link #LAZY}，不使用全局配置，避免全局开启后所有字段都不查询
+   */
+  public boolean lazy() {
+    return !id && props != null && Boolean.parseBoolean(props.get(LAZY));
+  }
   //</editor-fold>
 
   @Override
@@ -19,6 +19,10 @@ package io.mybatis.provider;
 import io.mybatis.provider.defaults.DefaultEntityColumnFactoryChain;
 import io.mybatis.provider.defaults.DefaultEntityTableFactoryChain;
 import io.mybatis.provider.util.ServiceLoaderUtil;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.builder.annotation.ProviderSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.SystemMetaObject;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -49,6 +53,26 @@ public abstract class EntityFactory {
         mapperMethod.getName() + " method" : mapperType.getSimpleName() + " interface") + " corresponding entity class");
   }
 
+  /**
+   * 获取 MappedStatement 对应的实体信息，只支持使用了 {@link Caching} 的 Provider 方法，
+   * 可以在拦截器等只能拿到 MappedStatement 的地方使用
+   *
+   * @param ms MappedStatement
+   * @return 实体类信息，不是通用方法时返回空
+   */
+  public static Optional<EntityTable> create(MappedStatement ms) {
+    if (!(ms.getSqlSource() instanceof ProviderSqlSource) || !(ms.getLang() instanceof Caching)) {
+      return Optional.empty();
+    }
+    Object providerContext = SystemMetaObject.forObject(ms.getSqlSource()).getValue("providerContext");
+    if (!(providerContext instanceof ProviderContext)) {
+      return Optional.empty();
+    }
+    ProviderContext context = (ProviderContext) providerContext;
+    Optional<Class<?>> optionalClass = EntityClassFinder.find(context.getMapperType(), context.getMapperMethod());
+    return optionalClass.map(EntityFactory::create);
+  }
+
   /**
    * 获取类型对应的实体信息
    *
@@ -263,6 +263,8 @@ public class EntityTable extends EntityProps<EntityTable> {
   public void initRuntimeContext(Configuration configuration, ProviderContext providerContext, String cacheKey) {
     //初始化一次，后续不会重复初始化
     if (!initConfiguration.contains(configuration)) {
+      //先创建类型处理器，后续生成 resultMap 和预编译参数绑定时共用
+      columns().forEach(column -> column.typeHandlerInstance(configuration));
       initResultMap(configuration, providerContext, cacheKey);
       initConfiguration.add(configuration);
     }
@@ -316,35 +318,54 @@ public class EntityTable extends EntityProps<EntityTable> {
   protected ResultMap genResultMap(Configuration configuration, ProviderContext providerContext, String cacheKey) {
     List<ResultMapping> resultMappings = new ArrayList<>();
     for (EntityColumn entityColumn : selectColumns()) {
-      String column = entityColumn.column();
-      //去掉可能存在的分隔符，例如：`order`
-      Matcher matcher = DELIMITER.matcher(column);
-      if (matcher.find()) {
-        column = matcher.group(1);
-      }
-      ResultMapping.Builder builder = new ResultMapping.Builder(configuration, entityColumn.property(), column, entityColumn.javaType());
-      if (entityColumn.jdbcType != null && entityColumn.jdbcType != JdbcType.UNDEFINED) {
-        builder.jdbcType(entityColumn.jdbcType);
-      }
-      if (entityColumn.typeHandler != null && entityColumn.typeHandler != UnknownTypeHandler.class) {
-        try {
-          builder.typeHandler(getTypeHandlerInstance(entityColumn.javaType(), entityColumn.typeHandler));
-        } catch (Exception e) {
-          throw new RuntimeException(e);
-        }
-      }
-      List<ResultFlag> flags = new ArrayList<>();
-      if (entityColumn.id) {
-        flags.add(ResultFlag.ID);
-      }
-      builder.flags(flags);
-      resultMappings.add(builder.build());
+      resultMappings.add(genResultMapping(configuration, entityColumn));
     }
     String resultMapId = generateResultMapId(providerContext, RESULT_MAP_NAME);
     ResultMap.Builder builder = new ResultMap.Builder(configuration, resultMapId, entityClass(), resultMappings, true);
     return builder.build();
   }
 
+  /**
+   * 生成列对应的 ResultMapping
+   *
+   * @param configuration MyBatis 配置类
+   * @param entityColumn  列
+   * @return ResultMapping
+   */
+  public ResultMapping genResultMapping(Configuration configuration, EntityColumn entityColumn) {
+    ResultMapping.Builder builder = new ResultMapping.Builder(configuration, entityColumn.property(), columnName(entityColumn), entityColumn.javaType());
+    if (entityColumn.jdbcType != null && entityColumn.jdbcType != JdbcType.UNDEFINED) {
+      builder.jdbcType(entityColumn.jdbcType);
+    }
+    if (entityColumn.typeHandler != null && entityColumn.typeHandler != UnknownTypeHandler.class) {
+      try {
+        builder.typeHandler(entityColumn.typeHandlerInstance(configuration));
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }
+    List<ResultFlag> flags = new ArrayList<>();
+    if (entityColumn.id) {
+      flags.add(ResultFlag.ID);
+    }
+    builder.flags(flags);
+    return builder.build();
+  }
+
+  /**
+   * 去掉可能存在的分隔符的列名，例如：`order`
+   *
+   * @param entityColumn 列
+   * @return 列名
+   */
+  public static String columnName(EntityColumn entityColumn) {
+    String column = entityColumn.column();
+    Matcher matcher = DELIMITER.matcher(column);
+    if (matcher.find()) {
+      column = matcher.group(1);
+    }
+    return column;
+  }
 
   /**
    * 实例化TypeHandler
@@ -393,7 +414,14 @@ public class EntityTable extends EntityProps<EntityTable> {
    * 返回查询列，当获取查询列时，必须使用当前方法返回的列
    */
   public List<EntityColumn> selectColumns() {
-    return columns().stream().filter(EntityColumn::selectable).collect(Collectors.toList());
+    return columns().stream().filter(column -> column.selectable() && !column.lazy()).collect(Collectors.toList());
+  }
+
+  /**
+   * 返回延迟加载的列，这些列不在 {@link #selectColumns()} 中，参考 {@link EntityColumn#lazy()}
+   */
+  public List<EntityColumn> lazyColumns() {
+    return columns().stream().filter(column -> column.selectable() && column.lazy()).collect(Collectors.toList());
   }
 
   /**
@@ -508,6 +536,20 @@ public class EntityTable extends EntityProps<EntityTable> {
     return havingColumnList.map(s -> " HAVING " + s);
   }
 
+  /**
+   * 键集分页（seek）使用的排序字段，在 {@link #orderByColumns()} 后面追加其中没有的主键字段，保证排序结果唯一，
+   * 追加的主键字段没有配置 orderBy 时按升序处理
+   */
+  public List<EntityColumn> keysetColumns() {
+    List<EntityColumn> keysetColumns = new ArrayList<>(orderByColumns().orElse(Collections.emptyList()));
+    for (EntityColumn idColumn : idColumns()) {
+      if (!keysetColumns.contains(idColumn)) {
+        keysetColumns.add(idColumn);
+      }
+    }
+    return keysetColumns;
+  }
+
   /**
    * 所有 order by 字段，默认空，字段来源 {@link #orderByColumns()} 参考值: column1, column2, ...
    * <p>
@@ -16,9 +16,12 @@
 
 package io.mybatis.provider;
 
+import io.mybatis.config.ConfigHelper;
 import org.apache.ibatis.builder.annotation.ProviderContext;
 
+import java.util.Arrays;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * 对 xml 形式 sql 简单封装，便于使用
@@ -30,6 +33,14 @@ public interface SqlScript {
    * 换行符
    */
   String LF = "\n";
+  /**
+   * 使用 {@code column = ANY(?)} 绑定数组参数的 databaseId，逗号分隔
+   */
+  String ARRAY_ANY_DATABASE_IDS    = "mybatis.provider.array.anyDatabaseIds";
+  /**
+   * 使用 {@code column IN (UNNEST(?))} 绑定数组参数的 databaseId，逗号分隔
+   */
+  String ARRAY_UNNEST_DATABASE_IDS = "mybatis.provider.array.unnestDatabaseIds";
 
   /**
    * 创建SQL并缓存
@@ -291,6 +302,80 @@ public interface SqlScript {
         , collection, item, index, open, close, separator, content.getWithLR());
   }
 
+  /**
+   * 生成按档位补齐集合长度的 foreach 标签，用于 IN 条件时，不同长度的集合生成的 SQL 种类有限，档位参考 {@link io.mybatis.provider.util.Padding}
+   *
+   * @param collection 遍历的对象
+   * @param item       对象名
+   * @param separator  连接符
+   * @param open       开始符号
+   * @param close      结束符号
+   * @param content    标签中的内容
+   * @return bind 和 foreach 标签包装的 xml 结构
+   */
+  default String foreachPadded(String collection, String item, String separator, String open, String close, LRSupplier content) {
+    return foreachPadded(collection, item, separator, open, close, null, content);
+  }
+
+  /**
+   * 生成按档位补齐集合长度的 foreach 标签，用于 IN 条件时，不同长度的集合生成的 SQL 种类有限，档位参考 {@link io.mybatis.provider.util.Padding}
+   *
+   * @param collection 遍历的对象
+   * @param item       对象名
+   * @param separator  连接符
+   * @param open       开始符号
+   * @param close      结束符号
+   * @param ladder     逗号分隔的递增档位（如 10,50,100），为空时使用全局配置
+   * @param content    标签中的内容
+   * @return bind 和 foreach 标签包装的 xml 结构
+   */
+  default String foreachPadded(String collection, String item, String separator, String open, String close, String ladder, LRSupplier content) {
+    String padded = collection.replaceAll("\\W", "_") + "_padded";
+    String value = ladder == null || ladder.trim().isEmpty()
+        ? "@io.mybatis.provider.util.Padding@pad(" + collection + ")"
+        : "@io.mybatis.provider.util.Padding@pad(" + collection + ", '" + ladder + "')";
+    return bind(padded, value) + foreach(padded, item, separator, open, close, content);
+  }
+
+  /**
+   * 生成集合条件 {@code column IN (...)}，支持数组参数的数据库只绑定一个数组参数，其他数据库展开为 foreach
+   * <p>
+   * 根据 {@code _databaseId}（即 {@link org.apache.ibatis.session.Configuration#getDatabaseId()}）选择写法：
+   * <ul>
+   *   <li>{@link #ARRAY_ANY_DATABASE_IDS}（默认 postgresql,h2）：{@code column = ANY(?)}</li>
+   *   <li>{@link #ARRAY_UNNEST_DATABASE_IDS}（默认 hsqldb）：{@code column IN (UNNEST(?))}</li>
+   * </ul>
+   * 数组参数使用 {@link io.mybatis.provider.mapping.CollectionArrayTypeHandler} 绑定，集合为空时和 foreach 一样会生成错误的 SQL，需要调用方保证非空
+   *
+   * @param column     列
+   * @param collection 集合参数
+   * @return choose 标签包装的 xml 结构
+   */
+  default String inCollection(String column, String collection) {
+    String array = "#{" + collection + ", typeHandler=io.mybatis.provider.mapping.CollectionArrayTypeHandler}";
+    String any = databaseIdTest(ConfigHelper.getStr(ARRAY_ANY_DATABASE_IDS, "postgresql,h2"));
+    String unnest = databaseIdTest(ConfigHelper.getStr(ARRAY_UNNEST_DATABASE_IDS, "hsqldb"));
+    String item = collection.replaceAll("\\W", "_") + "_item";
+    return choose(() ->
+        (any.isEmpty() ? "" : whenTest(any, () -> column + " = ANY(" + array + ")"))
+            + (unnest.isEmpty() ? "" : whenTest(unnest, () -> column + " IN (UNNEST(" + array + "))"))
+            + otherwise(() -> column + " IN" + foreach(collection, item, ",", "(", ")", () -> "#{" + item + "}")));
+  }
+
+  /**
+   * 生成判断 {@code _databaseId} 的条件
+   *
+   * @param databaseIds 逗号分隔的 databaseId
+   * @return 条件，没有 databaseId 时返回空字符串
+   */
+  static String databaseIdTest(String databaseIds) {
+    if (databaseIds == null) {
+      return "";
+    }
+    return Arrays.stream(databaseIds.split(",")).map(String::trim).filter(id -> !id.isEmpty())
+        .map(id -> "_databaseId == '" + id + "'").collect(Collectors.joining(" or "));
+  }
+
   /**
    * 生成 bind 标签包装的 xml 结构
    *
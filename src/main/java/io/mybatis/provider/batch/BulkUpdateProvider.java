@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.batch;
+
+import io.mybatis.config.ConfigHelper;
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlScript;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 在一条 SQL 中根据主键更新多行数据，每行的值可以不同
+ * <p>
+ * 根据 {@code _databaseId}（即 {@link org.apache.ibatis.session.Configuration#getDatabaseId()}）选择写法：
+ * <ul>
+ *   <li>{@link #VALUES_JOIN_DATABASE_IDS}（默认 postgresql）：{@code UPDATE t SET c = S.c FROM (VALUES ...) AS S(...) WHERE t.id = S.id}</li>
+ *   <li>其他数据库：{@code UPDATE t SET c = CASE id WHEN ? THEN ? ... ELSE c END WHERE id IN (...)}</li>
+ * </ul>
+ * 更新 {@link EntityTable#updateColumns()} 中除主键外的所有列，同一个主键出现多次时只有第一次有效。
+ * 参数个数随行数增加，配置 {@link ChunkingInterceptor#MAX_PARAMETERS} 后会自动拆分执行。
+ * <p>
+ * CASE 写法中每行都要依次比较 WHEN 条件，单条 SQL 的行数越多越慢，节省的是网络往返，
+ * 数据库在本地或驱动支持批量重写（如 MySQL 的 rewriteBatchedStatements）时 JDBC 批量执行通常更快，
+ * 可以运行 BulkUpdateBenchmark 对比。
+ * <p>
+ * 使用方式：
+ * <pre>
+ * &#64;Lang(Caching.class)
+ * &#64;UpdateProvider(type = BulkUpdateProvider.class, method = "updateList")
+ * int updateList(&#64;Param("list") List&lt;User&gt; list);
+ * </pre>
+ *
+ * @author liuzh
+ */
+public class BulkUpdateProvider {
+  /**
+   * 使用 {@code UPDATE ... FROM (VALUES ...)} 的 databaseId，逗号分隔
+   */
+  public static final String VALUES_JOIN_DATABASE_IDS = "mybatis.provider.batch.bulkUpdate.valuesJoinDatabaseIds";
+
+  /**
+   * 根据主键批量更新
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String updateList(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) -> {
+      String valuesJoin = SqlScript.databaseIdTest(ConfigHelper.getStr(VALUES_JOIN_DATABASE_IDS, "postgresql"));
+      return util.choose(() ->
+          (valuesJoin.isEmpty() ? "" : util.whenTest(valuesJoin, () -> valuesJoin(entity, util, "list")))
+              + util.otherwise(() -> caseWhen(entity, util, "list")));
+    });
+  }
+
+  /**
+   * {@code UPDATE t SET c = CASE id WHEN ? THEN ? ... ELSE c END WHERE id IN (...)}，复合主键时使用 {@code CASE WHEN a = ? AND b = ? THEN ?}
+   * <p>
+   * {@code ELSE c} 让参数的类型和列一致，部分数据库（如 hsqldb）不能推断 THEN 后面参数的类型
+   *
+   * @param entity     实体类信息
+   * @param util       sql 辅助工具
+   * @param collection 集合参数名
+   * @return xml 结构
+   */
+  public static String caseWhen(EntityTable entity, SqlScript util, String collection) {
+    List<EntityColumn> ids = entity.idColumns();
+    String set = updateColumns(entity).stream().map(column -> column.column() + " = CASE"
+        + (ids.size() == 1 ? " " + ids.get(0).column() : "")
+        + util.foreach(collection, "entity", " ", () -> " WHEN " + (ids.size() == 1 ? ids.get(0).variables("entity.")
+        : ids.stream().map(id -> id.columnEqualsProperty("entity.")).collect(Collectors.joining(" AND ")))
+        + " THEN " + column.variables("entity."))
+        + " ELSE " + column.column() + " END").collect(Collectors.joining(","));
+    String where = ids.size() == 1
+        ? ids.get(0).column() + " IN" + util.foreach(collection, "entity", ",", "(", ")", () -> ids.get(0).variables("entity."))
+        : util.foreach(collection, "entity", " OR ", "(", ")", () ->
+        "(" + ids.stream().map(id -> id.columnEqualsProperty("entity.")).collect(Collectors.joining(" AND ")) + ")");
+    return "UPDATE " + entity.tableName() + " SET " + set + " WHERE " + where;
+  }
+
+  /**
+   * {@code UPDATE t T SET c = S.c FROM (VALUES ...) AS S(...) WHERE T.id = S.id}
+   *
+   * @param entity     实体类信息
+   * @param util       sql 辅助工具
+   * @param collection 集合参数名
+   * @return xml 结构
+   */
+  public static String valuesJoin(EntityTable entity, SqlScript util, String collection) {
+    List<EntityColumn> columns = Stream.concat(entity.idColumns().stream(), updateColumns(entity).stream()).collect(Collectors.toList());
+    return "UPDATE " + entity.tableName() + " T SET "
+        + updateColumns(entity).stream().map(column -> column.column() + " = S." + column.column()).collect(Collectors.joining(","))
+        + " FROM (VALUES " + util.foreach(collection, "entity", ",", () ->
+        "(" + columns.stream().map(column -> column.variables("entity.")).collect(Collectors.joining(",")) + ")")
+        + ") AS S(" + columns.stream().map(EntityColumn::column).collect(Collectors.joining(",")) + ") WHERE "
+        + entity.idColumns().stream().map(column -> "T." + column.column() + " = S." + column.column()).collect(Collectors.joining(" AND "));
+  }
+
+  /**
+   * 需要更新的列，排除主键
+   */
+  protected static List<EntityColumn> updateColumns(EntityTable entity) {
+    return entity.updateColumns().stream().filter(column -> !column.id()).collect(Collectors.toList());
+  }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mybatis.provider.batch;
+
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 JDBC 参数个数上限自动拆分批量操作
+ * <p>
+ * 当通用方法的参数中包含集合（如 insertList），并且实体或全局配置了 {@link #MAX_PARAMETERS} 时，
+ * 会把集合拆分成多段，在同一个会话中逐段执行，最后汇总影响行数，避免单条 SQL 超出数据库或驱动的参数个数限制。
+ * <p>
+ * 每一行占用的参数个数在第一次执行时通过一行和两行的 BoundSql 估算得到，和具体的 SQL 写法无关。
+ * 行模板中包含 {@code <if>} 等动态标签时每行的参数个数可能不同，因此每一段执行前都会用实际的 BoundSql 校验参数个数，
+ * 超出上限时按比例减少这一段的行数。
+ * <p>
+ * 使用时需要注册插件，例如：
+ * <pre>
+ * &lt;plugins&gt;
+ *   &lt;plugin interceptor="io.mybatis.provider.batch.ChunkingInterceptor"/&gt;
+ * &lt;/plugins&gt;
+ * </pre>
+ *
+ * @author liuzh
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class ChunkingInterceptor implements Interceptor {
+  public static final Log    log            = LogFactory.getLog(ChunkingInterceptor.class);
+  /**
+   * 单条 SQL 允许的最大参数个数，可以通过 {@code @Entity.Table(props)} 或全局配置，默认 0 不拆分
+   */
+  public static final String MAX_PARAMETERS = "mybatis.provider.batch.maxParameters";
+
+  /**
+   * 缓存方法对应的拆分信息，key 为 msId
+   */
+  private final Map<String, Chunk> chunks = new ConcurrentHashMap<>();
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    Object[] args = invocation.getArgs();
+    MappedStatement ms = (MappedStatement) args[0];
+    Object parameter = args[1];
+    Collection<?> collection = getCollection(parameter);
+    //只有多行时才可能需要拆分，同时也满足计算每行参数个数的需要
+    if (collection == null || collection.size() < 2) {
+      return invocation.proceed();
+    }
+    Chunk chunk = chunks.computeIfAbsent(ms.getId(), id -> Chunk.of(ms, parameter, collection));
+    if (chunk == Chunk.NONE) {
+      return invocation.proceed();
+    }
+    Executor executor = (Executor) invocation.getTarget();
+    List<?> list = collection instanceof List ? (List<?>) collection : new ArrayList<>(collection);
+    int total = 0;
+    for (int i = 0; i < list.size(); ) {
+      int rows = Math.min(chunk.rows, list.size() - i);
+      Object chunkParameter = replace(parameter, collection, list.subList(i, i + rows));
+      int parameters;
+      //按实际的参数个数校验，动态的行模板每行参数个数可能不同
+      while (rows > 1 && (parameters = ms.getBoundSql(chunkParameter).getParameterMappings().size()) > chunk.maxParameters) {
+        rows = Math.max(1, (int) ((long) rows * chunk.maxParameters / parameters));
+        chunkParameter = replace(parameter, collection, list.subList(i, i + rows));
+      }
+      if (i == 0 && rows == list.size()) {
+        return invocation.proceed();
+      }
+      i += rows;
+      int count = executor.update(ms, chunkParameter);
+      //批量执行器只有在 flushStatements 时才能拿到结果
+      if (count == BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+        total = count;
+      } else if (total != BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+        total += count;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * 获取参数中唯一的集合，多个参数同时指向一个集合时（如 collection 和 list）按一个处理
+   *
+   * @param parameter 参数
+   * @return 唯一的集合，不存在或存在多个时返回 null
+   */
+  public static Collection<?> getCollection(Object parameter) {
+    if (!(parameter instanceof Map)) {
+      return null;
+    }
+    Collection<?> collection = null;
+    for (Object value : ((Map<?, ?>) parameter).values()) {
+      if (value instanceof Collection) {
+        if (collection == null) {
+          collection = (Collection<?>) value;
+        } else if (collection != value) {
+          return null;
+        }
+      }
+    }
+    return collection;
+  }
+
+  /**
+   * 复制参数，并把其中的集合替换为指定的部分
+   *
+   * @param parameter  原参数
+   * @param collection 原集合
+   * @param chunk      拆分后的集合
+   * @return 新的参数
+   */
+  @SuppressWarnings("unchecked")
+  public static Object replace(Object parameter, Collection<?> collection, List<?> chunk) {
+    Map<String, Object> source = (Map<String, Object>) parameter;
+    Map<String, Object> target = parameter instanceof MapperMethod.ParamMap ? new MapperMethod.ParamMap<>() : new HashMap<>();
+    for (Map.Entry<String, Object> entry : source.entrySet()) {
+      target.put(entry.getKey(), entry.getValue() == collection ? chunk : entry.getValue());
+    }
+    return target;
+  }
+
+  /**
+   * 方法对应的拆分信息
+   */
+  static class Chunk {
+    static final Chunk NONE = new Chunk(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    /**
+     * 每段的行数，根据前两行估算
+     */
+    final        int   rows;
+    /**
+     * 单条 SQL 允许的最大参数个数
+     */
+    final        int   maxParameters;
+
+    Chunk(int rows, int maxParameters) {
+      this.rows = rows;
+      this.maxParameters = maxParameters;
+    }
+
+    static Chunk of(MappedStatement ms, Object parameter, Collection<?> collection) {
+      Optional<EntityTable> entity = EntityFactory.create(ms);
+      if (!entity.isPresent()) {
+        return NONE;
+      }
+      int maxParameters = entity.get().getPropInt(MAX_PARAMETERS, 0);
+      if (maxParameters <= 0) {
+        return NONE;
+      }
+      Iterator<?> iterator = collection.iterator();
+      List<?> list = Arrays.asList(iterator.next(), iterator.next());
+      int one = ms.getBoundSql(replace(parameter, collection, list.subList(0, 1))).getParameterMappings().size();
+      int two = ms.getBoundSql(replace(parameter, collection, list)).getParameterMappings().size();
+      int perRow = two - one;
+      //前两行的参数个数和行数无关，无法估算，只按实际的参数个数拆分
+      if (perRow <= 0) {
+        return new Chunk(Integer.MAX_VALUE, maxParameters);
+      }
+      int fixed = one - perRow;
+      int rows = Math.max(1, (maxParameters - fixed) / perRow);
+      if (log.isDebugEnabled()) {
+        log.debug(ms.getId() + " uses " + perRow + " parameters per row, split into chunks of " + rows + " rows");
+      }
+      return new Chunk(rows, maxParameters);
+    }
+  }
+
+}
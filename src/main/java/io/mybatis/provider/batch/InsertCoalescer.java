@@ -0,0 +1,288 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.batch;
+
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.defaults.GenericTypeResolver;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.builder.annotation.ProviderSqlSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 异步合并插入
+ * <p>
+ * 适合高频写入单行数据的追加型表（如日志、事件），调用 {@link #submit(Object)} 把实体放入有界队列后立即返回，
+ * 后台线程按 {@link #BATCH_SIZE} 行或 {@link #MAX_DELAY} 毫秒（先满足的为准）把队列中的实体合并成一批，
+ * 在一个事务中插入并提交，提交后完成对应的 {@link CompletableFuture}。
+ * <p>
+ * 插入方法的参数为 List 时（如实体对应的 insertList 方法）每批执行一次该方法，参数为实体时（如 insert 方法）
+ * 使用 {@link StreamInserter} 在 {@link ExecutorType#BATCH} 的会话中批量执行。通用 Mapper 中的方法按接口泛型解析后的参数类型判断，
+ * 例如 {@code int insertSelective(T entity)}。队列满时 {@link #submit(Object)} 会阻塞调用方，以此限制写入速度。
+ * <p>
+ * {@link #MAX_DELAY} 从每一批中第一条数据提交时开始计算，队列积压时已经等待超过该时间的数据会立即写入。
+ *
+ * @author liuzh
+ */
+public class InsertCoalescer<T> implements AutoCloseable {
+  public static final Log    log            = LogFactory.getLog(InsertCoalescer.class);
+  /**
+   * 每批最多合并的行数，可以通过 {@code @Entity.Table(props)} 或全局配置，默认 500
+   */
+  public static final String BATCH_SIZE     = "mybatis.provider.batch.coalesce.batchSize";
+  /**
+   * 第一条数据提交后最多等待的毫秒数，默认 5
+   */
+  public static final String MAX_DELAY      = "mybatis.provider.batch.coalesce.maxDelay";
+  /**
+   * 队列容量，默认 10000
+   */
+  public static final String QUEUE_CAPACITY = "mybatis.provider.batch.coalesce.queueCapacity";
+
+  private final SqlSessionFactory       sqlSessionFactory;
+  private final EntityTable             entityTable;
+  private final String                  statementId;
+  private final StreamInserter<T>       inserter;
+  private final int                     batchSize;
+  private final long                    maxDelayNanos;
+  private final BlockingQueue<Entry<T>> queue;
+  private final Thread                  flusher;
+  private final AtomicLong              flushedRows    = new AtomicLong();
+  private final AtomicLong              flushedBatches = new AtomicLong();
+  private final AtomicLong              failedBatches  = new AtomicLong();
+  private final AtomicLong              maxQueueDepth  = new AtomicLong();
+  private final ReentrantReadWriteLock  lock           = new ReentrantReadWriteLock();
+  private volatile boolean              closed;
+
+  /**
+   * @param sqlSessionFactory 会话工厂
+   * @param entityClass       实体类类型
+   * @param statementId       插入方法，参数为 List 或实体
+   */
+  public InsertCoalescer(SqlSessionFactory sqlSessionFactory, Class<T> entityClass, String statementId) {
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.entityTable = EntityFactory.create(entityClass);
+    this.statementId = statementId;
+    this.batchSize = entityTable.getPropInt(BATCH_SIZE, 500);
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(statementId);
+    this.inserter = isEntityParameter(ms, entityClass)
+        ? new StreamInserter<>(sqlSessionFactory.getConfiguration(), statementId, batchSize) : null;
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(entityTable.getPropInt(MAX_DELAY, 5));
+    this.queue = new ArrayBlockingQueue<>(entityTable.getPropInt(QUEUE_CAPACITY, 10000));
+    this.flusher = new Thread(this::run, "insert-coalescer-" + entityTable.tableName());
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  /**
+   * 插入方法的参数是否为实体，通用方法的参数类型按 Mapper 接口的泛型解析，其他方法使用 {@link MappedStatement#getParameterMap()} 的类型
+   *
+   * @param ms          插入方法
+   * @param entityClass 实体类类型
+   * @return 参数为实体时返回 true，参数为 List 时返回 false
+   */
+  protected static boolean isEntityParameter(MappedStatement ms, Class<?> entityClass) {
+    if (ms.getSqlSource() instanceof ProviderSqlSource) {
+      Object providerContext = SystemMetaObject.forObject(ms.getSqlSource()).getValue("providerContext");
+      if (providerContext instanceof ProviderContext) {
+        ProviderContext context = (ProviderContext) providerContext;
+        Type[] types = GenericTypeResolver.resolveParamTypes(context.getMapperMethod(), context.getMapperType());
+        return types.length == 1 && entityClass.isAssignableFrom(GenericTypeResolver.resolveTypeToClass(types[0]));
+      }
+    }
+    return entityClass.isAssignableFrom(ms.getParameterMap().getType());
+  }
+
+  /**
+   * 提交实体，队列满时阻塞
+   *
+   * @param entity 实体
+   * @return 所在批次提交后完成
+   */
+  public CompletableFuture<Void> submit(T entity) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    //检查和入队在读锁中进行，close 获取写锁后不会再有新的数据入队，队列满时后台线程不需要锁也能继续消费
+    lock.readLock().lock();
+    try {
+      if (closed) {
+        future.completeExceptionally(closedException());
+        return future;
+      }
+      queue.put(new Entry<>(entity, future));
+      maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.completeExceptionally(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+    return future;
+  }
+
+  private IllegalStateException closedException() {
+    return new IllegalStateException("InsertCoalescer of " + entityTable.tableName() + " is closed");
+  }
+
+  protected void run() {
+    List<Entry<T>> batch = new ArrayList<>(batchSize);
+    while (!closed || !queue.isEmpty()) {
+      try {
+        Entry<T> first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = first.submitted + maxDelayNanos;
+        while (batch.size() < batchSize) {
+          //先取走已经在队列中的，不足时再等到截止时间
+          if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+            continue;
+          }
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            break;
+          }
+          Entry<T> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+      } catch (InterruptedException e) {
+        if (!batch.isEmpty()) {
+          flush(batch);
+        }
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  protected void flush(List<Entry<T>> batch) {
+    List<T> entities = new ArrayList<>(batch.size());
+    for (Entry<T> entry : batch) {
+      entities.add(entry.entity);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(inserter != null ? ExecutorType.BATCH : ExecutorType.SIMPLE, false)) {
+      if (inserter != null) {
+        inserter.insert(sqlSession, entities.iterator());
+      } else {
+        sqlSession.insert(statementId, entities);
+      }
+      sqlSession.commit();
+      flushedRows.addAndGet(entities.size());
+      flushedBatches.incrementAndGet();
+      batch.forEach(entry -> entry.future.complete(null));
+    } catch (Throwable t) {
+      failedBatches.incrementAndGet();
+      log.warn("Failed to insert " + entities.size() + " rows into " + entityTable.tableName() + ": " + t.getMessage());
+      batch.forEach(entry -> entry.future.completeExceptionally(t));
+    }
+  }
+
+  /**
+   * 停止接收新数据，等待队列中已有的数据写入后返回
+   */
+  @Override
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      closed = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    //后台线程被中断时队列中可能还有数据
+    List<Entry<T>> rest = new ArrayList<>();
+    queue.drainTo(rest);
+    if (!rest.isEmpty()) {
+      if (flusher.isAlive()) {
+        rest.forEach(entry -> entry.future.completeExceptionally(closedException()));
+      } else {
+        flush(rest);
+      }
+    }
+  }
+
+  /**
+   * 当前队列中等待写入的行数
+   */
+  public int queueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * 队列出现过的最大深度
+   */
+  public long maxQueueDepth() {
+    return maxQueueDepth.get();
+  }
+
+  /**
+   * 已写入的行数
+   */
+  public long flushedRows() {
+    return flushedRows.get();
+  }
+
+  /**
+   * 已提交的批次数
+   */
+  public long flushedBatches() {
+    return flushedBatches.get();
+  }
+
+  /**
+   * 失败的批次数
+   */
+  public long failedBatches() {
+    return failedBatches.get();
+  }
+
+  static class Entry<T> {
+    final T                       entity;
+    final CompletableFuture<Void> future;
+    /**
+     * 提交时间，{@link System#nanoTime()}
+     */
+    final long                    submitted;
+
+    Entry(T entity, CompletableFuture<Void> future) {
+      this.entity = entity;
+      this.future = future;
+      this.submitted = System.nanoTime();
+    }
+  }
+
+}
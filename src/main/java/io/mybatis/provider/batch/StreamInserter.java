@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.batch;
+
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.util.Assert;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 流式批量插入
+ * <p>
+ * 和 {@code <foreach>} 方式的批量插入不同，这里逐个消费 {@link Iterator} 或 {@link Stream} 中的实体，
+ * 通过单行插入方法（如实体对应的 insert 方法）执行。使用 {@link ExecutorType#BATCH} 的会话时，
+ * 同一个 {@link java.sql.PreparedStatement} 会通过 JDBC 批处理执行，每 {@link #BATCH_SIZE} 行执行一次
+ * {@link SqlSession#flushStatements()}，内存占用和数据总量无关，适合导入大量数据；其他类型的会话逐行执行。
+ * <p>
+ * 插入通过 {@link SqlSession} 执行，提交和回滚由 {@link SqlSession} 控制，插入方法上的主键生成（如 genId）和插件也会生效。
+ *
+ * @author liuzh
+ */
+public class StreamInserter<T> {
+  public static final Log    log        = LogFactory.getLog(StreamInserter.class);
+  /**
+   * 每批执行的行数，可以通过 {@code @Entity.Table(props)} 或全局配置，默认 1000
+   */
+  public static final String BATCH_SIZE = "mybatis.provider.batch.streamBatchSize";
+
+  private final String statementId;
+  private final int    batchSize;
+
+  public StreamInserter(Configuration configuration, String statementId) {
+    this(configuration, statementId, 0);
+  }
+
+  /**
+   * @param configuration MyBatis 配置
+   * @param statementId   单行插入方法，参数为实体
+   * @param batchSize     每批执行的行数，小于等于 0 时使用 {@link #BATCH_SIZE} 配置
+   */
+  public StreamInserter(Configuration configuration, String statementId, int batchSize) {
+    MappedStatement ms = configuration.getMappedStatement(statementId);
+    Assert.isTrue(ms.getSqlCommandType() == SqlCommandType.INSERT, statementId + " is not an insert statement");
+    this.statementId = statementId;
+    this.batchSize = batchSize > 0 ? batchSize
+        : EntityFactory.create(ms).map(entity -> entity.getPropInt(BATCH_SIZE, 1000)).orElse(1000);
+  }
+
+  /**
+   * 流式插入
+   *
+   * @param sqlSession  会话
+   * @param statementId 单行插入方法，参数为实体
+   * @param entities    实体
+   * @return 插入的行数
+   */
+  public static <T> long insert(SqlSession sqlSession, String statementId, Iterator<? extends T> entities) {
+    return new StreamInserter<T>(sqlSession.getConfiguration(), statementId).insert(sqlSession, entities);
+  }
+
+  /**
+   * 流式插入，执行完成后会关闭 stream
+   *
+   * @param sqlSession  会话
+   * @param statementId 单行插入方法，参数为实体
+   * @param entities    实体
+   * @return 插入的行数
+   */
+  public static <T> long insert(SqlSession sqlSession, String statementId, Stream<? extends T> entities) {
+    try (Stream<? extends T> stream = entities) {
+      return insert(sqlSession, statementId, stream.iterator());
+    }
+  }
+
+  /**
+   * 流式插入
+   *
+   * @param sqlSession 会话
+   * @param entities   实体
+   * @return 插入的行数
+   */
+  public long insert(SqlSession sqlSession, Iterator<? extends T> entities) {
+    //先执行会话中尚未执行的批处理语句，保证执行顺序，并且不计入本次插入的行数
+    sqlSession.flushStatements();
+    long total = 0;
+    int rows = 0;
+    while (entities.hasNext()) {
+      int count = sqlSession.insert(statementId, entities.next());
+      if (count != BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+        total += count;
+      } else if (++rows == batchSize) {
+        total += flush(sqlSession);
+        rows = 0;
+      }
+    }
+    if (rows > 0) {
+      total += flush(sqlSession);
+    }
+    return total;
+  }
+
+  private long flush(SqlSession sqlSession) {
+    long count = 0;
+    for (BatchResult batchResult : sqlSession.flushStatements()) {
+      for (int result : batchResult.getUpdateCounts()) {
+        if (result == Statement.SUCCESS_NO_INFO) {
+          count++;
+        } else if (result > 0) {
+          count += result;
+        }
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug(statementId + " flushed " + count + " rows");
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.cache;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+import java.io.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 实体（表）级别的二级缓存，同一个表的所有查询方法共用一个缓存
+ * <p>
+ * 按 LRU 淘汰，支持限制条目数、字节数和过期时间。默认会序列化缓存的值（和 MyBatis 默认的读写缓存一致），
+ * 字节数按序列化后的大小计算；{@code readOnly=true} 时直接缓存对象，此时不限制字节数。
+ *
+ * @author liuzh
+ */
+public class EntityCache implements Cache {
+  public static final Log log = LogFactory.getLog(EntityCache.class);
+
+  private final String                       id;
+  private final int                          maxEntries;
+  private final long                         maxBytes;
+  private final long                         ttlMillis;
+  private final boolean                      readOnly;
+  private final ReentrantLock                lock     = new ReentrantLock();
+  /**
+   * 按访问顺序排列，第一个是最久未使用的
+   */
+  private final LinkedHashMap<Object, Entry> entries  = new LinkedHashMap<>(16, 0.75f, true);
+  private final LongAdder                    requests = new LongAdder();
+  private final LongAdder                    hits     = new LongAdder();
+  private       long                         bytes;
+
+  /**
+   * @param id         缓存 id，使用表名
+   * @param maxEntries 最大条目数
+   * @param maxBytes   最大字节数，小于等于 0 时不限制
+   * @param ttlMillis  过期毫秒数，小于等于 0 时不过期
+   * @param readOnly   是否直接缓存对象，不序列化
+   */
+  public EntityCache(String id, int maxEntries, long maxBytes, long ttlMillis, boolean readOnly) {
+    this.id = id;
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.ttlMillis = ttlMillis;
+    this.readOnly = readOnly;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    Object stored = value;
+    int size = 0;
+    if (!readOnly && value != null) {
+      byte[] serialized = serialize(value);
+      stored = serialized;
+      size = serialized.length;
+    }
+    if (maxBytes > 0 && size > maxBytes) {
+      return;
+    }
+    Entry entry = new Entry(stored, size, ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE);
+    lock.lock();
+    try {
+      Entry old = entries.put(key, entry);
+      if (old != null) {
+        bytes -= old.size;
+      }
+      bytes += size;
+      evict();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    requests.increment();
+    Entry entry;
+    lock.lock();
+    try {
+      entry = entries.get(key);
+      if (entry != null && entry.expireAt <= System.currentTimeMillis()) {
+        entries.remove(key);
+        bytes -= entry.size;
+        entry = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (entry == null) {
+      return null;
+    }
+    hits.increment();
+    if (log.isDebugEnabled()) {
+      log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
+    }
+    return readOnly || entry.value == null ? entry.value : deserialize((byte[]) entry.value);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    lock.lock();
+    try {
+      Entry entry = entries.remove(key);
+      if (entry != null) {
+        bytes -= entry.size;
+      }
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 清空缓存，并通过 {@link InvalidationBus} 通知其他节点
+   */
+  @Override
+  public void clear() {
+    clearLocal();
+    InvalidationBus.getDefault().invalidate(id);
+  }
+
+  /**
+   * 只清空当前节点的缓存
+   */
+  public void clearLocal() {
+    lock.lock();
+    try {
+      entries.clear();
+      bytes = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 当前缓存的字节数
+   */
+  public long getBytes() {
+    lock.lock();
+    try {
+      return bytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 命中次数
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * 命中率
+   */
+  public double getHitRatio() {
+    long total = requests.sum();
+    return total == 0 ? 0 : (double) hits.sum() / total;
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext() && (entries.size() > maxEntries || (maxBytes > 0 && bytes > maxBytes))) {
+      bytes -= iterator.next().getValue().size;
+      iterator.remove();
+    }
+  }
+
+  private byte[] serialize(Object value) {
+    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+         ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(value);
+      oos.flush();
+      return bos.toByteArray();
+    } catch (Exception e) {
+      throw new CacheException("Error serializing object in cache " + id + ", Cause: " + e, e);
+    }
+  }
+
+  private Object deserialize(byte[] value) {
+    try (ObjectInputStream ois = new ClassLoaderObjectInputStream(new ByteArrayInputStream(value))) {
+      return ois.readObject();
+    } catch (Exception e) {
+      throw new CacheException("Error deserializing object in cache " + id + ", Cause: " + e, e);
+    }
+  }
+
+  static class Entry {
+    final Object value;
+    final int    size;
+    final long   expireAt;
+
+    Entry(Object value, int size, long expireAt) {
+      this.value = value;
+      this.size = size;
+      this.expireAt = expireAt;
+    }
+  }
+
+  static class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+    ClassLoaderObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+      return Resources.classForName(desc.getName());
+    }
+  }
+
+}
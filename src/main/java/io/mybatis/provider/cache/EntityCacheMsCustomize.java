@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.cache;
+
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.MsCustomize;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 给开启了 {@link EntityCaches#ENABLED} 的实体方法配置表级别的二级缓存
+ * <p>
+ * 查询方法使用表对应的缓存，增删改方法执行时清空表对应的缓存，不同接口中操作同一个表的方法也会清空同一个缓存。
+ * 接口上已经配置了缓存（如 {@code @CacheNamespace}）时，查询方法保留原有缓存，增删改方法会同时清空两个缓存。
+ * <p>
+ * 通用方法在第一次执行时才会初始化，此时执行器已经跳过了这次执行的缓存清理，所以任意一个开启缓存的方法初始化时，
+ * 会同时配置 {@link Configuration} 中所有开启缓存的通用方法，表缓存在写入任何数据之前就已经和写方法关联，
+ * 由执行器的 TransactionalCache 在提交时清空，回滚时不清空。
+ * 之后才添加到 {@link Configuration} 中的接口方法，会在下一次有方法初始化时配置。
+ *
+ * @author liuzh
+ */
+public class EntityCacheMsCustomize implements MsCustomize {
+  public static final Log log = LogFactory.getLog(EntityCacheMsCustomize.class);
+
+  /**
+   * 上一次配置时 {@link Configuration} 中的方法个数，没有新增方法时不重复配置
+   */
+  private final Map<Configuration, Integer> configured = new ConcurrentHashMap<>(4);
+
+  @Override
+  public void customize(EntityTable entity, MappedStatement ms, ProviderContext context) {
+    if (!entity.getPropBoolean(EntityCaches.ENABLED, false)) {
+      return;
+    }
+    Configuration configuration = ms.getConfiguration();
+    synchronized (configuration) {
+      Collection<String> names = configuration.getMappedStatementNames();
+      if (!Objects.equals(configured.get(configuration), names.size())) {
+        for (String name : new ArrayList<>(names)) {
+          //同时存在不带命名空间的简写
+          if (name.indexOf('.') < 0) {
+            continue;
+          }
+          MappedStatement statement = configuration.getMappedStatement(name, false);
+          EntityFactory.create(statement).filter(e -> e.getPropBoolean(EntityCaches.ENABLED, false)).ifPresent(e ->
+              configure(e, statement, (ProviderContext) SystemMetaObject.forObject(statement.getSqlSource()).getValue("providerContext")));
+        }
+        configured.put(configuration, names.size());
+      }
+      configure(entity, ms, context);
+    }
+  }
+
+  /**
+   * 配置方法使用的缓存，已经配置过的方法不做处理
+   *
+   * @param entity  实体
+   * @param ms      方法
+   * @param context 接口和方法信息
+   */
+  protected void configure(EntityTable entity, MappedStatement ms, ProviderContext context) {
+    Cache cache = ms.getCache();
+    if (cache instanceof EntityCache || cache instanceof ClearBothCache) {
+      return;
+    }
+    EntityCache entityCache = EntityCaches.get(ms.getConfiguration(), entity);
+    MetaObject metaObject = ms.getConfiguration().newMetaObject(ms);
+    switch (ms.getSqlCommandType()) {
+      case SELECT:
+        if (cache != null) {
+          log.debug(ms.getId() + " already uses cache " + cache.getId() + ", skip entity cache");
+          return;
+        }
+        Options options = context.getMapperMethod().getAnnotation(Options.class);
+        if (options != null && !options.useCache()) {
+          return;
+        }
+        metaObject.setValue("cache", entityCache);
+        metaObject.setValue("useCache", true);
+        break;
+      case INSERT:
+      case UPDATE:
+      case DELETE:
+        metaObject.setValue("cache", cache == null ? entityCache : new ClearBothCache(cache, entityCache));
+        metaObject.setValue("flushCacheRequired", true);
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * 清空时同时清空接口缓存和表缓存，其他操作只针对接口缓存
+   */
+  static class ClearBothCache implements Cache {
+    private final Cache delegate;
+    private final Cache entityCache;
+
+    ClearBothCache(Cache delegate, Cache entityCache) {
+      this.delegate = delegate;
+      this.entityCache = entityCache;
+    }
+
+    @Override
+    public String getId() {
+      return delegate.getId();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+      delegate.putObject(key, value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+      return delegate.getObject(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+      return delegate.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+      delegate.clear();
+      entityCache.clear();
+    }
+
+    @Override
+    public int getSize() {
+      return delegate.getSize();
+    }
+  }
+
+}
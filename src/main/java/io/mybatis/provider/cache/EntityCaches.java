@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.cache;
+
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 管理实体（表）级别的二级缓存，同一个 Configuration 中同一个表只有一个缓存，不同接口中操作同一个表的方法共用这个缓存
+ *
+ * @author liuzh
+ */
+public class EntityCaches {
+  /**
+   * 是否开启，默认 false
+   */
+  public static final String ENABLED     = "mybatis.provider.cache.enabled";
+  /**
+   * 最大条目数，默认 1024
+   */
+  public static final String MAX_ENTRIES = "mybatis.provider.cache.maxEntries";
+  /**
+   * 最大字节数，默认 0 不限制
+   */
+  public static final String MAX_BYTES   = "mybatis.provider.cache.maxBytes";
+  /**
+   * 过期时间（毫秒），默认 0 不过期
+   */
+  public static final String TTL         = "mybatis.provider.cache.ttl";
+  /**
+   * 是否直接缓存对象，默认 false，缓存序列化后的值
+   */
+  public static final String READ_ONLY   = "mybatis.provider.cache.readOnly";
+
+  private static final Map<Configuration, Map<String, EntityCache>> CACHES = new ConcurrentHashMap<>(4);
+
+  /**
+   * 获取表对应的缓存，不存在时创建
+   *
+   * @param configuration 配置
+   * @param entity        实体
+   * @return 缓存
+   */
+  public static EntityCache get(Configuration configuration, EntityTable entity) {
+    //启用缓存时开始接收其他节点的消息
+    InvalidationBus.getDefault();
+    return CACHES.computeIfAbsent(configuration, k -> new ConcurrentHashMap<>()).computeIfAbsent(entity.tableName(), tableName ->
+        new EntityCache(tableName,
+            entity.getPropInt(MAX_ENTRIES, 1024),
+            Long.parseLong(entity.getProp(MAX_BYTES, "0")),
+            Long.parseLong(entity.getProp(TTL, "0")),
+            entity.getPropBoolean(READ_ONLY, false)));
+  }
+
+  /**
+   * 获取表对应的缓存
+   *
+   * @param configuration 配置
+   * @param tableName     表名
+   * @return 缓存
+   */
+  public static Optional<EntityCache> get(Configuration configuration, String tableName) {
+    Map<String, EntityCache> caches = CACHES.get(configuration);
+    return caches != null ? Optional.ofNullable(caches.get(tableName)) : Optional.empty();
+  }
+
+  /**
+   * 清空当前节点所有 Configuration 中表对应的缓存，不会通知其他节点
+   *
+   * @param tableName 表名
+   */
+  public static void clearLocal(String tableName) {
+    CACHES.values().forEach(caches -> {
+      EntityCache cache = caches.get(tableName);
+      if (cache != null) {
+        cache.clearLocal();
+      }
+    });
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 缓存失效消息，包含发出消息的节点和需要清空缓存的表名
+ *
+ * @author liuzh
+ */
+public class Invalidation {
+  private final String      nodeId;
+  private final Set<String> tableNames;
+
+  public Invalidation(String nodeId, Collection<String> tableNames) {
+    this.nodeId = nodeId;
+    this.tableNames = Collections.unmodifiableSet(new LinkedHashSet<>(tableNames));
+  }
+
+  /**
+   * 从 {@link #toBytes()} 的结果还原消息
+   *
+   * @param bytes 字节
+   * @return 消息
+   */
+  public static Invalidation fromBytes(byte[] bytes) {
+    String[] lines = new String(bytes, StandardCharsets.UTF_8).split("\n");
+    return new Invalidation(lines[0], Arrays.asList(lines).subList(1, lines.length));
+  }
+
+  /**
+   * 转换为字节，第一行为节点，之后每行一个表名
+   *
+   * @return 字节
+   */
+  public byte[] toBytes() {
+    StringBuilder builder = new StringBuilder(nodeId);
+    for (String tableName : tableNames) {
+      builder.append('\n').append(tableName);
+    }
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public Set<String> getTableNames() {
+    return tableNames;
+  }
+
+  @Override
+  public String toString() {
+    return "Invalidation{nodeId='" + nodeId + "', tableNames=" + tableNames + "}";
+  }
+
+}
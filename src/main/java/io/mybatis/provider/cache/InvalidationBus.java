@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.cache;
+
+import io.mybatis.config.ConfigHelper;
+import io.mybatis.provider.util.ServiceLoaderUtil;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在多个节点之间同步表级别的缓存清空
+ * <p>
+ * 本地 {@link EntityCache} 清空时（写操作提交后）记录表名，在 {@link #INTERVAL} 毫秒后把这段时间内的表名合并成一条消息，
+ * 通过 SPI 配置的 {@link InvalidationTransport} 发送；收到其他节点的消息后清空本地对应表的缓存，忽略自己发出的消息。
+ *
+ * @author liuzh
+ */
+public class InvalidationBus {
+  public static final Log    log      = LogFactory.getLog(InvalidationBus.class);
+  /**
+   * 当前节点 id，默认随机生成
+   */
+  public static final String NODE_ID  = "mybatis.provider.cache.nodeId";
+  /**
+   * 合并消息的时间间隔（毫秒），默认 10
+   */
+  public static final String INTERVAL = "mybatis.provider.cache.invalidation.interval";
+
+  private static volatile InvalidationBus DEFAULT;
+
+  private final String                      nodeId;
+  private final List<InvalidationTransport> transports;
+  private final long                        interval;
+  private final Set<String>                 pending   = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean               scheduled = new AtomicBoolean();
+  private final ScheduledExecutorService    scheduler;
+  private final LongAdder                   published = new LongAdder();
+  private final LongAdder                   received  = new LongAdder();
+
+  public InvalidationBus(String nodeId, List<InvalidationTransport> transports, long interval) {
+    this.nodeId = nodeId;
+    this.transports = transports;
+    this.interval = interval;
+    if (transports.isEmpty()) {
+      this.scheduler = null;
+      return;
+    }
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "cache-invalidation-" + nodeId);
+      thread.setDaemon(true);
+      return thread;
+    });
+    transports.forEach(transport -> transport.subscribe(this::receive));
+  }
+
+  /**
+   * 获取默认的实例，使用 SPI 配置的传输方式
+   */
+  public static InvalidationBus getDefault() {
+    if (DEFAULT == null) {
+      synchronized (InvalidationBus.class) {
+        if (DEFAULT == null) {
+          DEFAULT = new InvalidationBus(
+              ConfigHelper.getStr(NODE_ID, UUID.randomUUID().toString()),
+              ServiceLoaderUtil.getInstances(InvalidationTransport.class),
+              ConfigHelper.getInt(INTERVAL, 10));
+        }
+      }
+    }
+    return DEFAULT;
+  }
+
+  /**
+   * 通知其他节点清空表对应的缓存，短时间内的多次通知会合并发送
+   *
+   * @param tableName 表名
+   */
+  public void invalidate(String tableName) {
+    if (scheduler == null) {
+      return;
+    }
+    pending.add(tableName);
+    if (scheduled.compareAndSet(false, true)) {
+      scheduler.schedule(this::flush, interval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  protected void flush() {
+    //先重置标记，后续的通知会安排下一次发送
+    scheduled.set(false);
+    List<String> tableNames = new ArrayList<>();
+    for (Iterator<String> iterator = pending.iterator(); iterator.hasNext(); ) {
+      tableNames.add(iterator.next());
+      iterator.remove();
+    }
+    if (tableNames.isEmpty()) {
+      return;
+    }
+    Invalidation invalidation = new Invalidation(nodeId, tableNames);
+    for (InvalidationTransport transport : transports) {
+      try {
+        transport.publish(invalidation);
+      } catch (RuntimeException e) {
+        log.warn("Failed to publish " + invalidation + " by " + transport.getClass().getName() + ": " + e.getMessage());
+      }
+    }
+    published.increment();
+  }
+
+  protected void receive(Invalidation invalidation) {
+    if (nodeId.equals(invalidation.getNodeId())) {
+      return;
+    }
+    received.increment();
+    if (log.isDebugEnabled()) {
+      log.debug("Received " + invalidation);
+    }
+    invalidation.getTableNames().forEach(EntityCaches::clearLocal);
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  /**
+   * 已发送的消息数
+   */
+  public long getPublished() {
+    return published.sum();
+  }
+
+  /**
+   * 收到的其他节点的消息数
+   */
+  public long getReceived() {
+    return received.sum();
+  }
+
+}
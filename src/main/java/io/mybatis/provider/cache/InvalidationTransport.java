@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效消息的传输方式，用于在多个节点之间同步 {@link EntityCache} 的清空操作，
+ * 通过 SPI 配置（META-INF/services/io.mybatis.provider.cache.InvalidationTransport），没有配置时只清空本地缓存
+ *
+ * @author liuzh
+ */
+public interface InvalidationTransport {
+
+  /**
+   * 发送消息
+   *
+   * @param invalidation 消息
+   */
+  void publish(Invalidation invalidation);
+
+  /**
+   * 订阅消息，收到的消息包含当前节点自己发出的，由调用方过滤
+   *
+   * @param consumer 消息处理
+   */
+  void subscribe(Consumer<Invalidation> consumer);
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的传输方式，发送的消息同步发给当前 JVM 中的所有订阅者，适合测试
+ *
+ * @author liuzh
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+  private static final List<Consumer<Invalidation>> SUBSCRIBERS = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(Invalidation invalidation) {
+    for (Consumer<Invalidation> subscriber : SUBSCRIBERS) {
+      subscriber.accept(invalidation);
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<Invalidation> consumer) {
+    SUBSCRIBERS.add(consumer);
+  }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.cache;
+
+import io.mybatis.config.ConfigHelper;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 基于 UDP 的传输方式，适合本机多进程或局域网内的测试环境
+ * <p>
+ * 通过 {@link #PORT} 配置监听端口，通过 {@link #PEERS} 配置其他节点（如 {@code 127.0.0.1:9301,127.0.0.1:9302}），
+ * 没有配置端口时不生效。默认只监听 {@code 127.0.0.1}，跨机器使用时通过 {@link #BIND} 指定内网网卡地址。
+ * <p>
+ * 收到的消息没有任何认证，能访问监听端口的任何主机都可以让缓存失效。配置了 {@link #PEERS} 时只接收来自这些地址的消息，
+ * 但 UDP 的源地址可以伪造，只能在可信网络中使用。UDP 也不保证送达，生产环境建议基于消息队列等实现 {@link InvalidationTransport}。
+ *
+ * @author liuzh
+ */
+public class UdpInvalidationTransport implements InvalidationTransport, AutoCloseable {
+  public static final Log    log   = LogFactory.getLog(UdpInvalidationTransport.class);
+  /**
+   * 监听端口
+   */
+  public static final String PORT  = "mybatis.provider.cache.udp.port";
+  /**
+   * 其他节点地址，多个用逗号隔开
+   */
+  public static final String PEERS = "mybatis.provider.cache.udp.peers";
+  /**
+   * 监听地址，默认 127.0.0.1
+   */
+  public static final String BIND  = "mybatis.provider.cache.udp.bind";
+
+  private final DatagramSocket               socket;
+  private final List<InetSocketAddress>      peers;
+  private final Set<InetAddress>             peerAddresses;
+  private final List<Consumer<Invalidation>> subscribers = new ArrayList<>();
+
+  public UdpInvalidationTransport() {
+    this(ConfigHelper.getStr(BIND, "127.0.0.1"), ConfigHelper.getInt(PORT, -1), parsePeers(ConfigHelper.getStr(PEERS)));
+  }
+
+  /**
+   * 监听 127.0.0.1
+   *
+   * @param port  监听端口，0 表示随机端口，小于 0 时不生效
+   * @param peers 其他节点地址
+   */
+  public UdpInvalidationTransport(int port, List<InetSocketAddress> peers) {
+    this("127.0.0.1", port, peers);
+  }
+
+  /**
+   * @param bind  监听地址
+   * @param port  监听端口，0 表示随机端口，小于 0 时不生效
+   * @param peers 其他节点地址，不为空时只接收来自这些地址的消息
+   */
+  public UdpInvalidationTransport(String bind, int port, List<InetSocketAddress> peers) {
+    this.peers = peers;
+    this.peerAddresses = peers.stream().map(InetSocketAddress::getAddress).filter(Objects::nonNull).collect(Collectors.toSet());
+    if (port < 0) {
+      this.socket = null;
+      return;
+    }
+    try {
+      this.socket = new DatagramSocket(new InetSocketAddress(bind, port));
+    } catch (SocketException e) {
+      throw new RuntimeException("Unable to bind udp address " + bind + ":" + port, e);
+    }
+    Thread receiver = new Thread(this::receive, "udp-invalidation-" + socket.getLocalPort());
+    receiver.setDaemon(true);
+    receiver.start();
+  }
+
+  protected static List<InetSocketAddress> parsePeers(String peers) {
+    if (peers == null || peers.trim().isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<InetSocketAddress> addresses = new ArrayList<>();
+    for (String peer : peers.split(",")) {
+      String[] hostPort = peer.trim().split(":");
+      addresses.add(new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1])));
+    }
+    return addresses;
+  }
+
+  /**
+   * 实际监听的端口，不生效时返回 -1
+   */
+  public int getLocalPort() {
+    return socket != null ? socket.getLocalPort() : -1;
+  }
+
+  @Override
+  public void publish(Invalidation invalidation) {
+    if (socket == null) {
+      return;
+    }
+    byte[] bytes = invalidation.toBytes();
+    for (InetSocketAddress peer : peers) {
+      try {
+        socket.send(new DatagramPacket(bytes, bytes.length, peer));
+      } catch (IOException e) {
+        log.warn("Failed to send " + invalidation + " to " + peer + ": " + e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public synchronized void subscribe(Consumer<Invalidation> consumer) {
+    subscribers.add(consumer);
+  }
+
+  protected void receive() {
+    byte[] buffer = new byte[65507];
+    while (!socket.isClosed()) {
+      DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+      try {
+        socket.receive(packet);
+        if (!peerAddresses.isEmpty() && !peerAddresses.contains(packet.getAddress())) {
+          log.warn("Ignore invalidation from unknown address " + packet.getAddress());
+          continue;
+        }
+        byte[] bytes = new byte[packet.getLength()];
+        System.arraycopy(packet.getData(), packet.getOffset(), bytes, 0, packet.getLength());
+        Invalidation invalidation = Invalidation.fromBytes(bytes);
+        List<Consumer<Invalidation>> consumers;
+        synchronized (this) {
+          consumers = new ArrayList<>(subscribers);
+        }
+        consumers.forEach(consumer -> consumer.accept(invalidation));
+      } catch (IOException e) {
+        if (!socket.isClosed()) {
+          log.warn("Failed to receive invalidation: " + e.getMessage());
+        }
+      } catch (RuntimeException e) {
+        log.warn("Failed to handle invalidation: " + e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (socket != null) {
+      socket.close();
+    }
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.dirty;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录实体的快照，用于判断哪些列被修改过
+ * <p>
+ * 开启了 {@link #ENABLED} 的实体通过通用查询方法查询后由 {@link DirtyTrackingInterceptor} 记录快照，
+ * 快照按 {@link EntityTable#columns()} 的位置保存每一列的值，修改过的列用 {@link BitSet} 表示。
+ * 实体按对象引用弱引用保存，实体被回收后快照也会清除。
+ * <p>
+ * 只能发现字段被重新赋值的情况，直接修改集合等可变对象内部的值不会被当作修改。
+ *
+ * @author liuzh
+ */
+public class DirtyTracker {
+  /**
+   * 是否记录实体快照，可以通过 {@code @Entity.Table(props)} 或全局配置，默认 false
+   */
+  public static final String ENABLED = "mybatis.provider.dirty.tracking";
+
+  private static final ReferenceQueue<Object> QUEUE     = new ReferenceQueue<>();
+  private static final Map<Key, Object[]>     SNAPSHOTS = new ConcurrentHashMap<>();
+
+  /**
+   * 记录实体当前的值，已经存在时覆盖
+   *
+   * @param entity 实体类信息
+   * @param obj    实体
+   */
+  public static void track(EntityTable entity, Object obj) {
+    track(obj, snapshot(entity, obj));
+  }
+
+  /**
+   * 记录实体的指定快照，已经存在时覆盖
+   *
+   * @param obj      实体
+   * @param snapshot 通过 {@link #snapshot(EntityTable, Object)} 获取的快照
+   */
+  public static void track(Object obj, Object[] snapshot) {
+    expunge();
+    SNAPSHOTS.put(new Key(obj, QUEUE), snapshot);
+  }
+
+  /**
+   * 实体没有快照时记录当前的值，一级缓存返回同一个实体时不会覆盖修改前的快照
+   *
+   * @param entity 实体类信息
+   * @param obj    实体
+   */
+  public static void trackIfAbsent(EntityTable entity, Object obj) {
+    if (!isTracked(obj)) {
+      track(entity, obj);
+    }
+  }
+
+  /**
+   * 实体是否有快照
+   *
+   * @param obj 实体
+   */
+  public static boolean isTracked(Object obj) {
+    return SNAPSHOTS.containsKey(new Key(obj, null));
+  }
+
+  /**
+   * 清除实体的快照
+   *
+   * @param obj 实体
+   */
+  public static void untrack(Object obj) {
+    SNAPSHOTS.remove(new Key(obj, null));
+  }
+
+  /**
+   * 和快照相比修改过的列，位置和 {@link EntityTable#columns()} 对应
+   *
+   * @param entity 实体类信息
+   * @param obj    实体
+   * @return 修改过的列，没有快照时返回 null
+   */
+  public static BitSet dirtyColumns(EntityTable entity, Object obj) {
+    return dirtyColumns(entity, obj, SNAPSHOTS.get(new Key(obj, null)));
+  }
+
+  /**
+   * 和指定快照相比修改过的列，位置和 {@link EntityTable#columns()} 对应
+   *
+   * @param entity   实体类信息
+   * @param obj      实体
+   * @param snapshot 快照
+   * @return 修改过的列，快照为 null 时返回 null
+   */
+  public static BitSet dirtyColumns(EntityTable entity, Object obj, Object[] snapshot) {
+    if (snapshot == null) {
+      return null;
+    }
+    List<EntityColumn> columns = entity.columns();
+    BitSet dirty = new BitSet(columns.size());
+    for (int i = 0; i < columns.size(); i++) {
+      if (!Objects.deepEquals(snapshot[i], columns.get(i).field().get(obj))) {
+        dirty.set(i);
+      }
+    }
+    return dirty;
+  }
+
+  /**
+   * 实体当前的值
+   *
+   * @param entity 实体类信息
+   * @param obj    实体
+   * @return 快照
+   */
+  public static Object[] snapshot(EntityTable entity, Object obj) {
+    List<EntityColumn> columns = entity.columns();
+    Object[] values = new Object[columns.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = columns.get(i).field().get(obj);
+    }
+    return values;
+  }
+
+  /**
+   * 清除已经被回收的实体
+   */
+  protected static void expunge() {
+    Reference<?> reference;
+    while ((reference = QUEUE.poll()) != null) {
+      SNAPSHOTS.remove(reference);
+    }
+  }
+
+  /**
+   * 按对象引用比较的弱引用
+   */
+  static class Key extends WeakReference<Object> {
+    private final int hash;
+
+    Key(Object obj, ReferenceQueue<Object> queue) {
+      super(obj, queue);
+      this.hash = System.identityHashCode(obj);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Object obj = get();
+      return obj != null && obj == ((Key) o).get();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.dirty;
+
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.builder.annotation.ProviderSqlSource;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 给开启了 {@link DirtyTracker#ENABLED} 的实体记录快照
+ * <p>
+ * 通用查询方法返回的实体在查询后记录快照，{@link DirtyUpdateProvider#updateDirty} 更新了数据时记录新的快照，
+ * 没有修改任何列时不执行 SQL 直接返回 0。
+ * <p>
+ * 新的快照先保存在当前会话中，事务提交后才会替换实体的快照，回滚或者没有提交就关闭会话时丢弃，
+ * 保证回滚后重试时仍然能发现修改过的列。影响行数为 0 时不记录；批量执行器中的更新在 flushStatements 后根据每一行的结果判断。
+ * 自动提交的会话在执行后立即替换。
+ * <p>
+ * 使用时需要注册插件，例如：
+ * <pre>
+ * &lt;plugins&gt;
+ *   &lt;plugin interceptor="io.mybatis.provider.dirty.DirtyTrackingInterceptor"/&gt;
+ * &lt;/plugins&gt;
+ * </pre>
+ *
+ * @author liuzh
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+    @Signature(type = Executor.class, method = "flushStatements", args = {}),
+    @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class DirtyTrackingInterceptor implements Interceptor {
+
+  /**
+   * 缓存方法对应的实体，key 为 msId，不需要记录快照的方法为空
+   */
+  private final Map<String, Optional<EntityTable>> entities = new ConcurrentHashMap<>();
+  /**
+   * 每个会话中等待提交的快照，key 为会话的执行器
+   */
+  private final Map<Executor, List<Pending>>       pending  = new ConcurrentHashMap<>();
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    Executor executor = (Executor) invocation.getTarget();
+    switch (invocation.getMethod().getName()) {
+      case "flushStatements":
+        return flushStatements(invocation, executor);
+      case "commit":
+        return commit(invocation, executor);
+      case "rollback":
+      case "close":
+        pending.remove(executor);
+        return invocation.proceed();
+      default:
+        break;
+    }
+    MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+    Optional<EntityTable> entity = entities.computeIfAbsent(ms.getId(), id -> tracked(ms));
+    if (!entity.isPresent()) {
+      return invocation.proceed();
+    }
+    if (ms.getSqlCommandType() == SqlCommandType.SELECT) {
+      Object result = invocation.proceed();
+      if (result instanceof List) {
+        for (Object obj : (List<?>) result) {
+          if (obj != null && obj.getClass() == entity.get().entityClass()) {
+            DirtyTracker.trackIfAbsent(entity.get(), obj);
+          }
+        }
+      }
+      return result;
+    }
+    Object parameter = invocation.getArgs()[1];
+    if (parameter == null || parameter.getClass() != entity.get().entityClass()) {
+      return invocation.proceed();
+    }
+    //当前会话中已经更新过时和会话中的快照比较
+    Pending last = last(executor, parameter);
+    BitSet dirty = last != null ? DirtyTracker.dirtyColumns(entity.get(), parameter, last.snapshot)
+        : DirtyTracker.dirtyColumns(entity.get(), parameter);
+    if (dirty != null && DirtyUpdateSqlSource.updateColumns(entity.get(), dirty).isEmpty()) {
+      return 0;
+    }
+    Object[] snapshot = DirtyTracker.snapshot(entity.get(), parameter);
+    //生成 SQL 时使用这里计算的列，不再和实体已提交的快照比较
+    Object result;
+    DirtyUpdateSqlSource.bind(parameter, dirty);
+    try {
+      result = invocation.proceed();
+    } finally {
+      DirtyUpdateSqlSource.unbind();
+    }
+    int rows = result instanceof Integer ? (Integer) result : 0;
+    if (rows == BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+      pending.computeIfAbsent(executor, e -> new ArrayList<>()).add(new Pending(parameter, snapshot, true));
+    } else if (rows > 0) {
+      if (isAutoCommit(executor)) {
+        DirtyTracker.track(parameter, snapshot);
+      } else {
+        pending.computeIfAbsent(executor, e -> new ArrayList<>()).add(new Pending(parameter, snapshot, false));
+      }
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected Object flushStatements(Invocation invocation, Executor executor) throws Throwable {
+    List<BatchResult> results = (List<BatchResult>) invocation.proceed();
+    List<Pending> list = pending.get(executor);
+    if (list != null) {
+      resolve(list, results);
+      if (isAutoCommit(executor)) {
+        pending.remove(executor);
+        list.forEach(Pending::apply);
+      }
+    }
+    return results;
+  }
+
+  protected Object commit(Invocation invocation, Executor executor) throws Throwable {
+    List<Pending> list = pending.remove(executor);
+    if (list == null) {
+      return invocation.proceed();
+    }
+    //提交时会先执行批量操作，这里提前执行以便拿到每一行的结果
+    if (list.stream().anyMatch(p -> p.batched)) {
+      resolve(list, executor.flushStatements());
+    }
+    Object result = invocation.proceed();
+    list.forEach(Pending::apply);
+    return result;
+  }
+
+  /**
+   * 根据批量执行的结果确定批量更新是否更新了数据，没有更新或者没有结果（已丢弃）的不再记录
+   */
+  protected void resolve(List<Pending> list, List<BatchResult> results) {
+    Iterator<Pending> iterator = list.iterator();
+    while (iterator.hasNext()) {
+      Pending p = iterator.next();
+      if (!p.batched) {
+        continue;
+      }
+      int rows = 0;
+      for (BatchResult result : results) {
+        List<Object> parameters = result.getParameterObjects();
+        for (int i = 0; i < parameters.size(); i++) {
+          if (parameters.get(i) == p.obj && i < result.getUpdateCounts().length) {
+            rows = result.getUpdateCounts()[i];
+          }
+        }
+      }
+      if (rows > 0 || rows == Statement.SUCCESS_NO_INFO) {
+        p.batched = false;
+      } else {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * 当前会话中实体最后一次更新的快照
+   */
+  protected Pending last(Executor executor, Object obj) {
+    List<Pending> list = pending.get(executor);
+    if (list != null) {
+      for (int i = list.size() - 1; i >= 0; i--) {
+        if (list.get(i).obj == obj) {
+          return list.get(i);
+        }
+      }
+    }
+    return null;
+  }
+
+  protected static boolean isAutoCommit(Executor executor) {
+    try {
+      return executor.getTransaction().getConnection().getAutoCommit();
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /**
+   * 需要处理的方法：通用查询方法和 {@link DirtyUpdateProvider} 生成的方法
+   */
+  protected Optional<EntityTable> tracked(MappedStatement ms) {
+    if (ms.getSqlCommandType() == SqlCommandType.UPDATE) {
+      Object context = ms.getSqlSource() instanceof ProviderSqlSource
+          ? SystemMetaObject.forObject(ms.getSqlSource()).getValue("providerContext") : null;
+      if (!(context instanceof ProviderContext) || !DirtyUpdateSqlSourceCustomize.isDirtyUpdate((ProviderContext) context)) {
+        return Optional.empty();
+      }
+    } else if (ms.getSqlCommandType() != SqlCommandType.SELECT) {
+      return Optional.empty();
+    }
+    return EntityFactory.create(ms).filter(entity -> entity.getPropBoolean(DirtyTracker.ENABLED, false));
+  }
+
+  /**
+   * 等待提交的快照
+   */
+  static class Pending {
+    final Object   obj;
+    final Object[] snapshot;
+    /**
+     * 批量执行器中还没有拿到影响行数
+     */
+    boolean batched;
+
+    Pending(Object obj, Object[] snapshot, boolean batched) {
+      this.obj = obj;
+      this.snapshot = snapshot;
+      this.batched = batched;
+    }
+
+    void apply() {
+      DirtyTracker.track(obj, snapshot);
+    }
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.dirty;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.SqlScript;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+
+import java.util.stream.Collectors;
+
+/**
+ * 只更新修改过的列
+ * <p>
+ * 使用方式：
+ * <pre>
+ * &#64;Lang(Caching.class)
+ * &#64;UpdateProvider(type = DirtyUpdateProvider.class, method = "updateDirty")
+ * int updateDirty(User user);
+ * </pre>
+ * 实体需要开启 {@link DirtyTracker#ENABLED} 并注册 {@link DirtyTrackingInterceptor} 插件，
+ * 没有快照的实体（如手动创建的对象）更新所有列，和这里生成的 SQL 一致
+ *
+ * @author liuzh
+ */
+public class DirtyUpdateProvider {
+
+  /**
+   * 根据主键更新修改过的列
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String updateDirty(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, entity ->
+        "UPDATE " + entity.tableName() + " SET "
+            + entity.updateColumns().stream().filter(column -> !column.id()).map(EntityColumn::columnEqualsProperty).collect(Collectors.joining(","))
+            + " WHERE " + entity.idColumns().stream().map(EntityColumn::columnEqualsProperty).collect(Collectors.joining(" AND ")));
+  }
+
+}
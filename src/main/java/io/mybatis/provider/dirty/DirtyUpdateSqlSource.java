@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.dirty;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 根据修改过的列生成 update 语句，相同修改列组合的 SQL 只解析一次
+ * <p>
+ * 修改过的列由 {@link DirtyTrackingInterceptor} 计算（当前会话中更新过的实体和会话中的快照比较），执行时通过
+ * {@link #bind(Object, BitSet)} 传递，保证生成的 SQL 和插件判断的一致，直接调用 {@link #getBoundSql(Object)} 时和实体的快照比较。
+ *
+ * @author liuzh
+ */
+public class DirtyUpdateSqlSource implements SqlSource {
+  /**
+   * 插件在当前线程中计算的修改过的列
+   */
+  private static final ThreadLocal<Dirty> DIRTY = new ThreadLocal<>();
+
+  private final SqlSource              sqlSource;
+  private final EntityTable            entity;
+  private final Configuration          configuration;
+  private final Map<BitSet, SqlSource> shapes = new ConcurrentHashMap<>();
+
+  public DirtyUpdateSqlSource(SqlSource sqlSource, EntityTable entity, Configuration configuration) {
+    this.sqlSource = sqlSource;
+    this.entity = entity;
+    this.configuration = configuration;
+  }
+
+  /**
+   * 修改过的列中需要更新的列
+   *
+   * @param entity 实体类信息
+   * @param dirty  修改过的列
+   * @return 需要更新的列
+   */
+  public static List<EntityColumn> updateColumns(EntityTable entity, BitSet dirty) {
+    List<EntityColumn> columns = entity.columns();
+    return dirty.stream().mapToObj(columns::get)
+        .filter(column -> column.updatable() && !column.id()).collect(Collectors.toList());
+  }
+
+  /**
+   * 在当前线程中传递插件计算的修改过的列，执行结束后需要调用 {@link #unbind()}
+   *
+   * @param obj   实体
+   * @param dirty 修改过的列，为 null 时更新所有列
+   */
+  static void bind(Object obj, BitSet dirty) {
+    DIRTY.set(new Dirty(obj, dirty));
+  }
+
+  static void unbind() {
+    DIRTY.remove();
+  }
+
+  @Override
+  public BoundSql getBoundSql(Object parameterObject) {
+    if (parameterObject == null || parameterObject.getClass() != entity.entityClass()) {
+      return sqlSource.getBoundSql(parameterObject);
+    }
+    Dirty bound = DIRTY.get();
+    BitSet dirty = bound != null && bound.obj == parameterObject ? bound.dirty : DirtyTracker.dirtyColumns(entity, parameterObject);
+    //没有快照时更新所有列，使用原来的 SqlSource
+    if (dirty == null) {
+      return sqlSource.getBoundSql(parameterObject);
+    }
+    return shapes.computeIfAbsent(dirty, this::parse).getBoundSql(parameterObject);
+  }
+
+  protected SqlSource parse(BitSet dirty) {
+    List<EntityColumn> columns = updateColumns(entity, dirty);
+    //没有修改时插件不会执行，这里只是保证 SQL 正确
+    String set = columns.isEmpty()
+        ? entity.idColumns().get(0).column() + " = " + entity.idColumns().get(0).column()
+        : columns.stream().map(EntityColumn::columnEqualsProperty).collect(Collectors.joining(","));
+    String sql = "UPDATE " + entity.tableName() + " SET " + set
+        + " WHERE " + entity.idColumns().stream().map(EntityColumn::columnEqualsProperty).collect(Collectors.joining(" AND "));
+    return new SqlSourceBuilder(configuration).parse(sql, entity.entityClass(), Collections.emptyMap());
+  }
+
+  /**
+   * 实体和修改过的列
+   */
+  static class Dirty {
+    final Object obj;
+    final BitSet dirty;
+
+    Dirty(Object obj, BitSet dirty) {
+      this.obj = obj;
+      this.dirty = dirty;
+    }
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.dirty;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlSourceCustomize;
+import org.apache.ibatis.annotations.UpdateProvider;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+
+/**
+ * 使用 {@link DirtyUpdateSqlSource} 处理 {@link DirtyUpdateProvider} 生成的方法
+ *
+ * @author liuzh
+ */
+public class DirtyUpdateSqlSourceCustomize implements SqlSourceCustomize {
+  /**
+   * 是否为 {@link DirtyUpdateProvider} 生成的方法
+   *
+   * @param context 调用方法上下文
+   */
+  public static boolean isDirtyUpdate(ProviderContext context) {
+    UpdateProvider provider = context.getMapperMethod().getAnnotation(UpdateProvider.class);
+    return provider != null && (provider.type() == DirtyUpdateProvider.class || provider.value() == DirtyUpdateProvider.class);
+  }
+
+  @Override
+  public SqlSource customize(SqlSource sqlSource, EntityTable entity, MappedStatement ms, ProviderContext context) {
+    if (!isDirtyUpdate(context)) {
+      return sqlSource;
+    }
+    return new DirtyUpdateSqlSource(sqlSource, entity, ms.getConfiguration());
+  }
+
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.flight;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.*;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 合并并发的主键查询
+ * <p>
+ * 对只按 {@link EntityTable#idColumns()} 查询的通用方法（如 selectByPrimaryKey，判断方式见 {@link SingleFlightMsCustomize#isIdLookup}），
+ * 多个线程同时查询同一个主键时只有一个线程真正执行查询，其他线程等待查询结果，
+ * 每个线程得到各自的实体对象（通过 {@link org.apache.ibatis.reflection.factory.ObjectFactory} 创建，字段值浅复制，不包含未加载的延迟列）。
+ * <p>
+ * 配置 {@link #BATCH_WINDOW} 后，单主键的方法会在窗口时间内收集不同的主键，合并成一条 {@code IN (...)} 查询，
+ * 第一个到达的线程负责执行查询，只有同时还有其他线程在查询这个方法时才会等待窗口时间。
+ * <p>
+ * 需要注册插件，并通过 {@code @Entity.Table(props)} 或全局配置 {@link #ENABLED} 开启，
+ * 由于使用了其他会话的查询结果，只适合读取不在当前事务中修改的数据。通过 {@link #stats()} 可以获取每个方法的合并情况。
+ *
+ * @author liuzh
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+})
+public class SingleFlightInterceptor implements Interceptor {
+  public static final Log    log            = LogFactory.getLog(SingleFlightInterceptor.class);
+  /**
+   * 是否开启，默认 false
+   */
+  public static final String ENABLED        = "mybatis.provider.singleFlight.enabled";
+  /**
+   * 合并不同主键的等待毫秒数，默认 0 不合并
+   */
+  public static final String BATCH_WINDOW   = "mybatis.provider.singleFlight.batchWindow";
+  /**
+   * 合并不同主键时，一次最多查询的主键个数，默认 500
+   */
+  public static final String MAX_BATCH_SIZE = "mybatis.provider.singleFlight.maxBatchSize";
+
+  /**
+   * 缓存方法对应的信息，key 为 msId
+   */
+  private final Map<String, Flight>                            flights  = new ConcurrentHashMap<>();
+  /**
+   * 正在执行的查询
+   */
+  private final Map<CacheKey, CompletableFuture<List<Object>>> inFlight = new ConcurrentHashMap<>();
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Object intercept(Invocation invocation) throws Throwable {
+    Object[] args = invocation.getArgs();
+    MappedStatement ms = (MappedStatement) args[0];
+    Object parameter = args[1];
+    RowBounds rowBounds = (RowBounds) args[2];
+    if (args[3] != null || rowBounds != RowBounds.DEFAULT || ms.getSqlCommandType() != SqlCommandType.SELECT) {
+      return invocation.proceed();
+    }
+    //先判断是否开启了合并，没有开启的方法直接执行，避免多生成一次 SQL
+    Flight flight = flights.get(ms.getId());
+    if (flight == null && !Flight.enabled(ms)) {
+      flight = Flight.NONE;
+      flights.putIfAbsent(ms.getId(), flight);
+    }
+    if (flight == Flight.NONE) {
+      return invocation.proceed();
+    }
+    BoundSql boundSql = ms.getBoundSql(parameter);
+    if (flight == null) {
+      flight = flights.computeIfAbsent(ms.getId(), id -> Flight.of(ms, boundSql));
+      if (flight == Flight.NONE) {
+        return invocation.proceed();
+      }
+    }
+    flight.requests.increment();
+    Executor executor = (Executor) invocation.getTarget();
+    if (flight.batchStatement != null) {
+      return flight.batch(executor, parameterValue(ms, boundSql, parameter));
+    }
+    CacheKey key = executor.createCacheKey(ms, parameter, rowBounds, boundSql);
+    CompletableFuture<List<Object>> future = new CompletableFuture<>();
+    CompletableFuture<List<Object>> existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      return copy(ms.getConfiguration(), flight.entity, get(existing));
+    }
+    try {
+      flight.executions.increment();
+      List<Object> result = (List<Object>) invocation.proceed();
+      future.complete(result);
+      return result;
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+      throw t;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  /**
+   * 获取每个方法的合并情况，key 为 msId，只包含开启了合并的方法
+   *
+   * @return 合并情况
+   */
+  public Map<String, Stats> stats() {
+    Map<String, Stats> stats = new TreeMap<>();
+    flights.forEach((id, flight) -> {
+      if (flight != Flight.NONE) {
+        stats.put(id, new Stats(flight.requests.sum(), flight.executions.sum()));
+      }
+    });
+    return stats;
+  }
+
+  protected static List<Object> get(CompletableFuture<List<Object>> future) throws Throwable {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * 复制查询结果，每个调用方得到自己的对象
+   * <p>
+   * 实体按字段复制，不会通过 getter 触发其他会话中的延迟加载，其他类型按属性复制，简单类型直接使用原值
+   *
+   * @param configuration 配置
+   * @param entity        实体信息
+   * @param rows          查询结果
+   * @return 新的结果
+   */
+  protected static List<Object> copy(Configuration configuration, EntityTable entity, List<Object> rows) {
+    List<Object> copies = new ArrayList<>(rows.size());
+    for (Object row : rows) {
+      if (row == null || configuration.getTypeHandlerRegistry().hasTypeHandler(row.getClass())) {
+        copies.add(row);
+      } else if (entity.entityClass().isInstance(row)) {
+        Object copy = configuration.getObjectFactory().create(entity.entityClass());
+        for (EntityColumn column : entity.columns()) {
+          column.field().set(copy, column.field().get(row));
+        }
+        copies.add(copy);
+      } else {
+        Object copy = configuration.getObjectFactory().create(row.getClass());
+        MetaObject source = configuration.newMetaObject(row);
+        MetaObject target = configuration.newMetaObject(copy);
+        for (String name : source.getGetterNames()) {
+          if (target.hasSetter(name)) {
+            target.setValue(name, source.getValue(name));
+          }
+        }
+        copies.add(copy);
+      }
+    }
+    return copies;
+  }
+
+  /**
+   * 获取单个参数的值，和 DefaultParameterHandler 的取值方式一致
+   */
+  protected static Object parameterValue(MappedStatement ms, BoundSql boundSql, Object parameter) {
+    String property = boundSql.getParameterMappings().get(0).getProperty();
+    if (boundSql.hasAdditionalParameter(property)) {
+      return boundSql.getAdditionalParameter(property);
+    } else if (parameter == null) {
+      return null;
+    } else if (ms.getConfiguration().getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+      return parameter;
+    }
+    return ms.getConfiguration().newMetaObject(parameter).getValue(property);
+  }
+
+  /**
+   * 方法的合并统计
+   */
+  public static class Stats {
+    private final long requests;
+    private final long executions;
+
+    public Stats(long requests, long executions) {
+      this.requests = requests;
+      this.executions = executions;
+    }
+
+    /**
+     * 调用次数
+     */
+    public long getRequests() {
+      return requests;
+    }
+
+    /**
+     * 实际执行查询的次数
+     */
+    public long getExecutions() {
+      return executions;
+    }
+
+    /**
+     * 被合并掉的调用比例
+     */
+    public double getDedupRatio() {
+      return requests == 0 ? 0 : 1 - (double) executions / requests;
+    }
+
+    @Override
+    public String toString() {
+      return "requests=" + requests + ", executions=" + executions + ", dedupRatio=" + String.format("%.4f", getDedupRatio());
+    }
+  }
+
+  /**
+   * 方法对应的合并信息
+   */
+  static class Flight {
+    static final Flight          NONE       = new Flight(null, null, null, 0, 0);
+    final        LongAdder       requests   = new LongAdder();
+    final        LongAdder       executions = new LongAdder();
+    /**
+     * 正在合并查询的线程数
+     */
+    final        AtomicInteger   running    = new AtomicInteger();
+    final        EntityTable     entity;
+    final        EntityColumn    idColumn;
+    final        MappedStatement batchStatement;
+    final        long            batchWindow;
+    final        int             maxBatchSize;
+    private      Batch           current;
+
+    Flight(EntityTable entity, EntityColumn idColumn, MappedStatement batchStatement, long batchWindow, int maxBatchSize) {
+      this.entity = entity;
+      this.idColumn = idColumn;
+      this.batchStatement = batchStatement;
+      this.batchWindow = batchWindow;
+      this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 方法对应的实体是否开启了合并
+     */
+    static boolean enabled(MappedStatement ms) {
+      return EntityFactory.create(ms).map(entity -> entity.getPropBoolean(ENABLED, false)).orElse(false);
+    }
+
+    static Flight of(MappedStatement ms, BoundSql boundSql) {
+      Optional<EntityTable> optionalEntity = EntityFactory.create(ms);
+      if (!optionalEntity.isPresent() || !optionalEntity.get().getPropBoolean(ENABLED, false)) {
+        return NONE;
+      }
+      EntityTable entity = optionalEntity.get();
+      ProviderContext context = (ProviderContext) SystemMetaObject.forObject(ms.getSqlSource()).getValue("providerContext");
+      //参数映射也必须恰好是主键属性，避免 Provider 使用了其他参数
+      Set<String> properties = boundSql.getParameterMappings().stream().map(ParameterMapping::getProperty).collect(Collectors.toSet());
+      if (!SingleFlightMsCustomize.isIdLookup(entity, context)
+          || boundSql.getParameterMappings().size() != entity.idColumns().size()
+          || !properties.equals(entity.idColumns().stream().map(EntityColumn::property).collect(Collectors.toSet()))) {
+        log.warn(ms.getId() + " is not a primary key lookup, " + ENABLED + " is ignored");
+        return NONE;
+      }
+      //IN 查询在方法初始化时由 SingleFlightMsCustomize 注册
+      String batchId = ms.getId() + SingleFlightMsCustomize.BATCH_SUFFIX;
+      if (!ms.getConfiguration().hasStatement(batchId, false)) {
+        return new Flight(entity, null, null, 0, 0);
+      }
+      return new Flight(entity, entity.idColumns().get(0), ms.getConfiguration().getMappedStatement(batchId, false),
+          entity.getPropInt(BATCH_WINDOW, 0), entity.getPropInt(MAX_BATCH_SIZE, 500));
+    }
+
+    /**
+     * 加入当前批次，第一个加入的线程执行查询，有其他线程同时查询时先等待窗口时间
+     */
+    List<Object> batch(Executor executor, Object id) throws Throwable {
+      running.incrementAndGet();
+      try {
+        return copy(batchStatement.getConfiguration(), entity, join(executor, id));
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+
+    List<Object> join(Executor executor, Object id) throws Throwable {
+      String key = String.valueOf(id);
+      Batch batch;
+      CompletableFuture<List<Object>> future;
+      boolean leader = false;
+      synchronized (this) {
+        if (current == null) {
+          current = new Batch();
+          leader = true;
+        }
+        batch = current;
+        future = batch.futures.computeIfAbsent(key, k -> {
+          batch.ids.add(id);
+          return new CompletableFuture<>();
+        });
+        if (batch.ids.size() >= maxBatchSize) {
+          current = null;
+        }
+      }
+      if (leader) {
+        //没有其他线程同时查询时直接执行，不增加等待时间
+        if (running.get() > 1) {
+          try {
+            Thread.sleep(batchWindow);
+          } catch (InterruptedException e) {
+            //其他线程还在等待结果，这里不能直接退出
+            Thread.currentThread().interrupt();
+          }
+        }
+        synchronized (this) {
+          if (current == batch) {
+            current = null;
+          }
+        }
+        execute(executor, batch);
+      }
+      return get(future);
+    }
+
+    void execute(Executor executor, Batch batch) throws Throwable {
+      executions.increment();
+      try {
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("ids", batch.ids);
+        List<Object> rows = executor.query(batchStatement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        Map<String, List<Object>> grouped = new HashMap<>();
+        for (Object row : rows) {
+          Object id = batchStatement.getConfiguration().newMetaObject(row).getValue(idColumn.property());
+          grouped.computeIfAbsent(String.valueOf(id), k -> new ArrayList<>()).add(row);
+        }
+        batch.futures.forEach((key, future) -> future.complete(grouped.getOrDefault(key, Collections.emptyList())));
+      } catch (Throwable t) {
+        batch.futures.values().forEach(future -> future.completeExceptionally(t));
+        throw t;
+      }
+    }
+  }
+
+  /**
+   * 同一个窗口内收集的主键
+   */
+  static class Batch {
+    final List<Object>                                 ids     = new ArrayList<>();
+    final Map<String, CompletableFuture<List<Object>>> futures = new HashMap<>();
+  }
+
+}
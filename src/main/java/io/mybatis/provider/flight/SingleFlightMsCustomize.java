@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.flight;
+
+import io.mybatis.provider.*;
+import io.mybatis.provider.defaults.GenericTypeResolver;
+import io.mybatis.provider.shard.Sharding;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 给开启了 {@link SingleFlightInterceptor#BATCH_WINDOW} 的主键查询方法注册对应的 {@code IN (...)} 查询
+ * <p>
+ * 方法是否为主键查询根据接口方法判断：使用 {@code @SelectProvider}，参数和实体的主键一一对应，
+ * 并且接口、方法和参数上都没有 {@link SqlWrapper} 追加条件。IN 查询的 id 为原方法 id 加上 {@link #BATCH_SUFFIX}，
+ * 和原方法一样经过 {@link SqlScriptWrapper} 和 {@link SqlSourceCustomize} 处理，分表的实体不合并不同主键。
+ *
+ * @author liuzh
+ */
+public class SingleFlightMsCustomize implements MsCustomize {
+  /**
+   * IN 查询的 id 后缀
+   */
+  public static final String BATCH_SUFFIX = "$singleFlight";
+
+  @Override
+  public void customize(EntityTable entity, MappedStatement ms, ProviderContext context) {
+    if (!entity.getPropBoolean(SingleFlightInterceptor.ENABLED, false)
+        || entity.getPropInt(SingleFlightInterceptor.BATCH_WINDOW, 0) <= 0
+        || entity.idColumns().size() != 1
+        || Sharding.of(entity).isPresent()
+        || !isIdLookup(entity, context)) {
+      return;
+    }
+    Configuration configuration = ms.getConfiguration();
+    synchronized (configuration) {
+      if (!configuration.hasStatement(ms.getId() + BATCH_SUFFIX, false)) {
+        configuration.addMappedStatement(batchStatement(entity, ms, context));
+      }
+    }
+  }
+
+  /**
+   * 接口方法是否只按主键查询
+   *
+   * @param entity  实体
+   * @param context 接口和方法信息
+   * @return 只有主键参数时返回 true
+   */
+  public static boolean isIdLookup(EntityTable entity, ProviderContext context) {
+    Method method = context.getMapperMethod();
+    if (!method.isAnnotationPresent(SelectProvider.class) || entity.idColumns().isEmpty()
+        || hasSqlWrapper(context.getMapperType().getAnnotations()) || hasSqlWrapper(method.getAnnotations())) {
+      return false;
+    }
+    Type[] types = GenericTypeResolver.resolveParamTypes(method, context.getMapperType());
+    Annotation[][] annotations = method.getParameterAnnotations();
+    if (types.length != entity.idColumns().size()) {
+      return false;
+    }
+    if (types.length == 1) {
+      Param param = method.getParameters()[0].getAnnotation(Param.class);
+      EntityColumn idColumn = entity.idColumns().get(0);
+      return !hasSqlWrapper(annotations[0])
+          && (param == null || param.value().equals(idColumn.property()))
+          && wrap(GenericTypeResolver.resolveTypeToClass(types[0])).isAssignableFrom(wrap(idColumn.javaType()));
+    }
+    //多个主键时参数必须通过 @Param 指定主键属性名
+    Set<String> names = new HashSet<>();
+    for (int i = 0; i < types.length; i++) {
+      Param param = method.getParameters()[i].getAnnotation(Param.class);
+      if (param == null || hasSqlWrapper(annotations[i])) {
+        return false;
+      }
+      names.add(param.value());
+    }
+    return names.equals(entity.idColumns().stream().map(EntityColumn::property).collect(Collectors.toSet()));
+  }
+
+  /**
+   * 根据原方法创建 IN 查询，返回值和原方法一致
+   */
+  protected static MappedStatement batchStatement(EntityTable entity, MappedStatement ms, ProviderContext context) {
+    Configuration configuration = ms.getConfiguration();
+    EntityColumn idColumn = entity.idColumns().get(0);
+    //原方法使用了 resultMap 时按列名查询，否则按属性别名查询
+    boolean useResultMap = !ms.getResultMaps().isEmpty() && !ms.getResultMaps().get(0).getResultMappings().isEmpty();
+    SqlScript sqlScript = SqlScriptWrapper.wrapSqlScript(context, entity, e -> "SELECT "
+        + (useResultMap ? e.baseColumnList() : e.baseColumnAsPropertyList()) + " FROM " + e.tableName()
+        + " WHERE " + idColumn.column() + " IN "
+        + "<foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\",\" close=\")\">"
+        + idColumn.variables().replace("#{" + idColumn.property(), "#{id") + "</foreach>");
+    SqlSource sqlSource = configuration.getLanguageDriver(XMLLanguageDriver.class)
+        .createSqlSource(configuration, "<script>\n" + sqlScript.getSql(entity) + "\n</script>", Map.class);
+    sqlSource = SqlSourceCustomize.SPI.customize(sqlSource, entity, ms, context);
+    return new MappedStatement.Builder(configuration, ms.getId() + BATCH_SUFFIX, sqlSource, SqlCommandType.SELECT)
+        .resource(ms.getResource())
+        .statementType(StatementType.PREPARED)
+        .timeout(ms.getTimeout())
+        .fetchSize(ms.getFetchSize())
+        .resultMaps(ms.getResultMaps())
+        .resultSetType(ms.getResultSetType())
+        .databaseId(ms.getDatabaseId())
+        .useCache(false)
+        .build();
+  }
+
+  private static boolean hasSqlWrapper(Annotation[] annotations) {
+    for (Annotation annotation : annotations) {
+      if (annotation.annotationType() == SqlWrapper.class || annotation.annotationType().isAnnotationPresent(SqlWrapper.class)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Class<?> wrap(Class<?> type) {
+    return MethodType.methodType(type).wrap().returnType();
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.key;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按 {@link EntityTable#idColumns()} 顺序组成的主键值，可以作为 Map 的 key
+ *
+ * @author liuzh
+ */
+public final class CompositeKey {
+  private final Object[] values;
+  private final int      hash;
+
+  private CompositeKey(Object[] values) {
+    this.values = values;
+    this.hash = Arrays.hashCode(values);
+  }
+
+  /**
+   * 直接指定主键值
+   *
+   * @param values 按主键列顺序排列的值
+   * @return 主键
+   */
+  public static CompositeKey of(Object... values) {
+    return new CompositeKey(values.clone());
+  }
+
+  /**
+   * 获取实体的主键值
+   *
+   * @param entity 实体类信息
+   * @param obj    实体
+   * @return 主键
+   */
+  public static CompositeKey of(EntityTable entity, Object obj) {
+    List<EntityColumn> ids = entity.idColumns();
+    Object[] values = new Object[ids.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = ids.get(i).field().get(obj);
+    }
+    return new CompositeKey(values);
+  }
+
+  /**
+   * 第 index 个主键列的值
+   */
+  public Object get(int index) {
+    return values[index];
+  }
+
+  /**
+   * 主键列的个数
+   */
+  public int size() {
+    return values.length;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CompositeKey)) {
+      return false;
+    }
+    CompositeKey that = (CompositeKey) o;
+    return hash == that.hash && Arrays.equals(values, that.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(values);
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.key;
+
+import io.mybatis.config.ConfigHelper;
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlScript;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 根据多个主键批量查询，支持复合主键
+ * <p>
+ * 根据 {@code _databaseId}（即 {@link org.apache.ibatis.session.Configuration#getDatabaseId()}）选择写法：
+ * <ul>
+ *   <li>{@link #ROW_VALUE_DATABASE_IDS}（默认 hsqldb,h2,mysql,mariadb,postgresql,oracle）：{@code (a, b) IN ((?,?),(?,?))}</li>
+ *   <li>其他数据库：{@code ((a = ? AND b = ?) OR (a = ? AND b = ?))}</li>
+ * </ul>
+ * 单主键时使用 {@code a IN (?,?)}。参数为只设置了主键字段的实体集合，使用方式：
+ * <pre>
+ * &#64;Lang(Caching.class)
+ * &#64;SelectProvider(type = CompositeKeyProvider.class, method = "selectByIds")
+ * List&lt;UserRole&gt; selectByIds(&#64;Param("ids") Collection&lt;UserRole&gt; ids);
+ * </pre>
+ * 使用 {@link CompositeKeys#selectMap} 分段执行并按 {@link CompositeKey} 返回结果
+ *
+ * @author liuzh
+ */
+public class CompositeKeyProvider {
+  /**
+   * 支持行值 IN 条件的 databaseId，逗号分隔
+   */
+  public static final String ROW_VALUE_DATABASE_IDS = "mybatis.provider.key.rowValueDatabaseIds";
+
+  /**
+   * 根据主键集合查询
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String selectByIds(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) ->
+        "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName()
+            + " WHERE " + condition(entity, util, "ids"));
+  }
+
+  /**
+   * 主键在集合中的条件，集合为空时和 foreach 一样会生成错误的 SQL，需要调用方保证非空
+   *
+   * @param entity     实体类信息
+   * @param util       sql 辅助工具
+   * @param collection 集合参数名，元素为实体
+   * @return 条件
+   */
+  public static String condition(EntityTable entity, SqlScript util, String collection) {
+    List<EntityColumn> ids = entity.idColumns();
+    if (ids.size() == 1) {
+      return ids.get(0).column() + " IN" + util.foreach(collection, "key", ",", "(", ")", () -> ids.get(0).variables("key."));
+    }
+    String rowValue = SqlScript.databaseIdTest(ConfigHelper.getStr(ROW_VALUE_DATABASE_IDS, "hsqldb,h2,mysql,mariadb,postgresql,oracle"));
+    return util.choose(() ->
+        (rowValue.isEmpty() ? "" : util.whenTest(rowValue, () ->
+            "(" + ids.stream().map(EntityColumn::column).collect(Collectors.joining(",")) + ") IN"
+                + util.foreach(collection, "key", ",", "(", ")", () ->
+                "(" + ids.stream().map(column -> column.variables("key.")).collect(Collectors.joining(",")) + ")")))
+            + util.otherwise(() -> util.foreach(collection, "key", " OR ", "(", ")", () ->
+            "(" + ids.stream().map(column -> column.columnEqualsProperty("key.")).collect(Collectors.joining(" AND ")) + ")")));
+  }
+
+}
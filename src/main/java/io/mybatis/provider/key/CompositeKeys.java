@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.key;
+
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.SqlSession;
+
+import java.util.*;
+
+/**
+ * 分段执行 {@link CompositeKeyProvider#selectByIds} 生成的方法，结果按 {@link CompositeKey} 返回
+ *
+ * @author liuzh
+ */
+public class CompositeKeys {
+  /**
+   * 每条 SQL 最多包含的主键个数，可以通过 {@code @Entity.Table(props)} 或全局配置，默认 500
+   */
+  public static final String BATCH_SIZE = "mybatis.provider.key.batchSize";
+
+  /**
+   * 按主键批量查询
+   *
+   * @param sqlSession  当前会话
+   * @param statementId 批量查询方法，只有一个集合参数，参数名为 ids
+   * @param keys        只设置了主键字段的实体，重复的主键只查询一次
+   * @return 主键和实体，不存在的主键没有对应的值
+   */
+  public static <T> Map<CompositeKey, T> selectMap(SqlSession sqlSession, String statementId, Collection<T> keys) {
+    MappedStatement ms = sqlSession.getConfiguration().getMappedStatement(statementId);
+    EntityTable entity = EntityFactory.create(ms).orElseThrow(() -> new IllegalArgumentException(statementId + " is not a provider method"));
+    Map<CompositeKey, T> distinct = new LinkedHashMap<>();
+    for (T key : keys) {
+      distinct.putIfAbsent(CompositeKey.of(entity, key), key);
+    }
+    List<T> list = new ArrayList<>(distinct.values());
+    int batchSize = entity.getPropInt(BATCH_SIZE, 500);
+    Map<CompositeKey, T> result = new HashMap<>(list.size() * 4 / 3 + 1);
+    for (int i = 0; i < list.size(); i += batchSize) {
+      List<T> rows = sqlSession.selectList(statementId, Collections.singletonMap("ids", list.subList(i, Math.min(i + batchSize, list.size()))));
+      for (T row : rows) {
+        result.put(CompositeKey.of(entity, row), row);
+      }
+    }
+    return result;
+  }
+
+}
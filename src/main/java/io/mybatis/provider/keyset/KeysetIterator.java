@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.keyset;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按键集分页逐页查询，逐行遍历全表，每一页的查询代价和页码无关
+ * <p>
+ * 使用方式：
+ * <pre>
+ * KeysetIterator.stream(mapper::selectPage, 1000).forEach(...);
+ * </pre>
+ * 返回的行数小于 pageSize 时认为已经是最后一页
+ *
+ * @param <T> 实体类型
+ * @author liuzh
+ */
+public class KeysetIterator<T> implements Iterator<T> {
+  private final BiFunction<T, Integer, List<T>> pageQuery;
+  private final int                             pageSize;
+  private       Iterator<T>                     page = Collections.emptyIterator();
+  private       T                               cursor;
+  private       boolean                         exhausted;
+  private       int                             pages;
+
+  /**
+   * @param pageQuery 分页查询，参数为游标（第一页为 null）和每页行数
+   * @param pageSize  每页行数
+   */
+  public KeysetIterator(BiFunction<T, Integer, List<T>> pageQuery, int pageSize) {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("pageSize must be greater than 0");
+    }
+    this.pageQuery = pageQuery;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * 创建顺序流
+   *
+   * @param pageQuery 分页查询，参数为游标（第一页为 null）和每页行数
+   * @param pageSize  每页行数
+   */
+  public static <T> Stream<T> stream(BiFunction<T, Integer, List<T>> pageQuery, int pageSize) {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+        new KeysetIterator<>(pageQuery, pageSize), Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!page.hasNext() && !exhausted) {
+      List<T> list = pageQuery.apply(cursor, pageSize);
+      pages++;
+      exhausted = list.size() < pageSize;
+      if (!list.isEmpty()) {
+        cursor = list.get(list.size() - 1);
+      }
+      page = list.iterator();
+    }
+    return page.hasNext();
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.next();
+  }
+
+  /**
+   * 已经查询的页数
+   */
+  public int getPages() {
+    return pages;
+  }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.keyset;
+
+import io.mybatis.provider.SqlScript;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+
+/**
+ * 键集分页（seek）查询，不论翻到第几页都只读取一页的数据
+ * <p>
+ * 使用方式：
+ * <pre>
+ * &#64;Lang(Caching.class)
+ * &#64;SelectProvider(type = KeysetProvider.class, method = "selectPage")
+ * List&lt;User&gt; selectPage(&#64;Param("cursor") User cursor, &#64;Param("size") int size);
+ * </pre>
+ * 第一页 cursor 传 null，之后传上一页的最后一行，配合 {@link KeysetIterator} 可以逐行遍历全表
+ *
+ * @author liuzh
+ */
+public class KeysetProvider {
+
+  /**
+   * 查询游标之后的一页数据
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String selectPage(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) ->
+        "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName()
+            + util.where(() -> util.ifTest("cursor != null", () -> KeysetSql.condition(entity, "cursor")))
+            + " ORDER BY " + KeysetSql.orderBy(entity)
+            + KeysetSql.limit(util, "size"));
+  }
+
+}
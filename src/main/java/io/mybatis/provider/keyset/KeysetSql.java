@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.keyset;
+
+import io.mybatis.config.ConfigHelper;
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlScript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * 生成键集分页（seek）需要的 SQL 片段，排序字段来自 {@link EntityTable#keysetColumns()}
+ * <p>
+ * 以上一页最后一行作为游标，条件为排序字段“在游标之后”，例如排序为 {@code a ASC, b DESC, id ASC} 时生成：
+ * <pre>
+ * (a &gt; #{cursor.a} OR (a = #{cursor.a} AND b &lt; #{cursor.b}) OR (a = #{cursor.a} AND b = #{cursor.b} AND id &gt; #{cursor.id}))
+ * </pre>
+ * 所有字段排序方向相同并且开启 {@link #ROW_VALUE} 时生成行值比较 {@code (a, id) > (#{cursor.a}, #{cursor.id})}。
+ * 排序字段不能为 null，否则游标之后的数据会被漏掉。
+ *
+ * @author liuzh
+ */
+public class KeysetSql {
+  /**
+   * 排序方向相同时是否使用行值比较，可以通过 {@code @Entity.Table(props)} 或全局配置，默认 true
+   */
+  public static final String ROW_VALUE                = "mybatis.provider.keyset.rowValue";
+  /**
+   * 使用 {@code FETCH FIRST n ROWS ONLY} 限制行数的 databaseId，逗号分隔，其他数据库使用 {@code LIMIT n}
+   */
+  public static final String FETCH_FIRST_DATABASE_IDS = "mybatis.provider.keyset.fetchFirstDatabaseIds";
+
+  /**
+   * 排序字段是否为降序
+   */
+  public static boolean isDesc(EntityColumn column) {
+    return column.orderBy() != null && column.orderBy().trim().toUpperCase(Locale.ENGLISH).startsWith("DESC");
+  }
+
+  /**
+   * 排序 {@code a ASC, b DESC, id ASC}
+   *
+   * @param entity 实体
+   * @return 排序，不包含 ORDER BY
+   */
+  public static String orderBy(EntityTable entity) {
+    return entity.keysetColumns().stream()
+        .map(column -> column.column() + (isDesc(column) ? " DESC" : " ASC"))
+        .collect(Collectors.joining(", "));
+  }
+
+  /**
+   * 游标之后的条件，已经转义 &lt; 和 &gt;
+   *
+   * @param entity 实体
+   * @param cursor 游标参数名，值为上一页最后一行
+   * @return 条件
+   */
+  public static String condition(EntityTable entity, String cursor) {
+    List<EntityColumn> columns = entity.keysetColumns();
+    if (columns.isEmpty()) {
+      throw new IllegalArgumentException(entity.tableName() + " has no order by or id columns for keyset pagination");
+    }
+    String prefix = cursor + ".";
+    boolean desc = isDesc(columns.get(0));
+    boolean sameDirection = columns.stream().allMatch(column -> isDesc(column) == desc);
+    if (columns.size() == 1 || (sameDirection && entity.getPropBoolean(ROW_VALUE, true))) {
+      String op = desc ? " &lt; " : " &gt; ";
+      if (columns.size() == 1) {
+        return columns.get(0).column() + op + columns.get(0).variables(prefix);
+      }
+      return "(" + columns.stream().map(EntityColumn::column).collect(Collectors.joining(", ")) + ")" + op
+          + "(" + columns.stream().map(column -> column.variables(prefix)).collect(Collectors.joining(", ")) + ")";
+    }
+    //排序方向不同时展开：前面的字段相等，当前字段在游标之后
+    List<String> terms = new ArrayList<>(columns.size());
+    for (int i = 0; i < columns.size(); i++) {
+      StringBuilder term = new StringBuilder("(");
+      for (int j = 0; j < i; j++) {
+        term.append(columns.get(j).column()).append(" = ").append(columns.get(j).variables(prefix)).append(" AND ");
+      }
+      EntityColumn column = columns.get(i);
+      term.append(column.column()).append(isDesc(column) ? " &lt; " : " &gt; ").append(column.variables(prefix)).append(")");
+      terms.add(term.toString());
+    }
+    return "(" + String.join(" OR ", terms) + ")";
+  }
+
+  /**
+   * 限制返回行数，根据 {@code _databaseId} 选择 {@code FETCH FIRST} 或 {@code LIMIT}
+   *
+   * @param util SqlScript
+   * @param size 行数参数名
+   * @return 限制行数的 xml
+   */
+  public static String limit(SqlScript util, String size) {
+    String fetchFirst = SqlScript.databaseIdTest(ConfigHelper.getStr(FETCH_FIRST_DATABASE_IDS, "oracle,sqlserver,db2,derby"));
+    if (fetchFirst.isEmpty()) {
+      return " LIMIT #{" + size + "}";
+    }
+    return util.choose(() ->
+        util.whenTest(fetchFirst, () -> "OFFSET 0 ROWS FETCH NEXT #{" + size + "} ROWS ONLY")
+            + util.otherwise(() -> "LIMIT #{" + size + "}"));
+  }
+
+}
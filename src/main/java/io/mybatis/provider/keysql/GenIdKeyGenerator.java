@@ -26,10 +26,7 @@ import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 import java.sql.Statement;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -90,18 +87,15 @@ public class GenIdKeyGenerator implements KeyGenerator {
           metaObject.setValue(column.property(), id);
         }
       } else if (parameter instanceof Map) {
-        new HashSet<>(((Map<String, Object>) parameter).values()).forEach(this::genId);
-      } else if (parameter instanceof Iterator) {
-        Iterator iterator = (Iterator) parameter;
-        Set<Object> set = new HashSet();
-        while (iterator.hasNext()) {
-          set.add(iterator.next());
-        }
+        //同一个集合可能同时以 collection 和 list 出现，按引用去重，避免计算整个集合的 hashCode
+        Set<Object> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(((Map<String, Object>) parameter).values());
         set.forEach(this::genId);
+      } else if (parameter instanceof Iterator) {
+        //已经有主键的不会重复生成，这里直接逐个处理，不需要先复制全部元素
+        ((Iterator) parameter).forEachRemaining(this::genId);
       } else if (parameter instanceof Iterable) {
-        Set<Object> set = new HashSet();
-        ((Iterable) parameter).forEach(set::add);
-        set.forEach(this::genId);
+        ((Iterable) parameter).forEach(this::genId);
       }
     }
   }
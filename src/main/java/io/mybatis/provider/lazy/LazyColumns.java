@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.lazy;
+
+import io.mybatis.mapper.fn.Fn;
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.util.Assert;
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.*;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+
+import java.util.*;
+
+/**
+ * 延迟加载的列
+ * <p>
+ * 通过 {@code @Entity.Column(props = @Entity.Prop(name = LazyColumns.LAZY, value = "true"))} 标记的列（如大字段）
+ * 不在 {@link EntityTable#selectColumns()} 中，通用查询方法不会读取。实体开启 {@code autoResultMap} 时，
+ * 生成的 resultMap 会给这些列添加 MyBatis 的延迟加载映射，第一次调用 getter 时执行 {@code SELECT col FROM t WHERE id = ?}，
+ * 没有开启时只能通过 {@link #fetch} 读取。
+ * <p>
+ * 查询多行后需要读取延迟加载列时，使用 {@link #fetch} 按主键批量读取，避免每行执行一次 SQL。
+ * <p>
+ * 读取延迟加载列的查询和 resultMap 中的延迟加载映射由 {@link LazyColumnsMsCustomize} 在初始化实体的方法时添加，
+ * {@link #fetch} 使用的查询在第一次调用时注册，不需要手动调用 {@link #register(Configuration)}。
+ * <p>
+ * 只支持单主键的实体，延迟加载列的类型需要是有默认类型处理器的类型（如 String, byte[]）
+ *
+ * @author liuzh
+ */
+public class LazyColumns {
+  /**
+   * 列是否延迟加载，只能在 {@code @Entity.Column(props)} 中配置，默认 false
+   */
+  public static final String LAZY       = EntityColumn.LAZY;
+  /**
+   * 批量读取时每条 SQL 最多包含的主键个数，默认 500
+   */
+  public static final String BATCH_SIZE = "mybatis.provider.lazy.batchSize";
+
+  /**
+   * 注册所有通用方法的实体中延迟加载列需要的查询
+   * <p>
+   * 可选，初始化方法时会自动注册，需要提前注册时在创建 SqlSessionFactory 之后调用一次
+   *
+   * @param configuration MyBatis 配置类
+   */
+  public static void register(Configuration configuration) {
+    Set<Class<?>> registered = new HashSet<>();
+    for (String name : new ArrayList<>(configuration.getMappedStatementNames())) {
+      //同时存在不带命名空间的简写
+      if (name.indexOf('.') < 0) {
+        continue;
+      }
+      EntityFactory.create(configuration.getMappedStatement(name, false)).ifPresent(entity -> {
+        if (registered.add(entity.entityClass())) {
+          register(configuration, entity);
+        }
+      });
+    }
+  }
+
+  /**
+   * 注册实体的延迟加载列需要的查询：每一列的延迟加载查询和按主键批量读取的查询
+   *
+   * @param configuration MyBatis 配置类
+   * @param entity        实体类信息
+   */
+  public static void register(Configuration configuration, EntityTable entity) {
+    if (entity.lazyColumns().isEmpty()) {
+      return;
+    }
+    EntityColumn id = idColumn(entity);
+    synchronized (configuration) {
+      for (EntityColumn column : entity.lazyColumns()) {
+        String statementId = lazyStatementId(entity, column);
+        if (!configuration.hasStatement(statementId, false)) {
+          SqlSource sqlSource = new SqlSourceBuilder(configuration).parse("SELECT " + column.column() + " FROM " + entity.tableName()
+              + " WHERE " + id.columnEqualsProperty(), id.javaType(), Collections.emptyMap());
+          ResultMap resultMap = new ResultMap.Builder(configuration, statementId + "-Inline", column.javaType(), new ArrayList<>(), null).build();
+          //MyBatis 按参数类型读取主键列的值
+          ParameterMap parameterMap = new ParameterMap.Builder(configuration, statementId + "-Inline", id.javaType(), new ArrayList<>()).build();
+          configuration.addMappedStatement(new MappedStatement.Builder(configuration, statementId, sqlSource, SqlCommandType.SELECT)
+              .parameterMap(parameterMap).resultMaps(Collections.singletonList(resultMap)).build());
+        }
+      }
+      String fetchId = fetchStatementId(entity);
+      if (!configuration.hasStatement(fetchId, false)) {
+        //读取的列来自实体信息，不是外部输入
+        String script = "<script>SELECT " + id.column()
+            + "<foreach collection=\"columns\" item=\"column\" open=\",\" separator=\",\">${column}</foreach>"
+            + " FROM " + entity.tableName() + " WHERE " + id.column()
+            + " IN <foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach></script>";
+        SqlSource sqlSource = new XMLLanguageDriver().createSqlSource(configuration, script, Map.class);
+        //结果中不存在的列不会映射
+        List<ResultMapping> mappings = new ArrayList<>();
+        mappings.add(entity.genResultMapping(configuration, id));
+        entity.lazyColumns().forEach(column -> mappings.add(entity.genResultMapping(configuration, column)));
+        ResultMap resultMap = new ResultMap.Builder(configuration, fetchId + "-Inline", entity.entityClass(), mappings, false).build();
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, fetchId, sqlSource, SqlCommandType.SELECT)
+            .resultMaps(Collections.singletonList(resultMap)).build());
+      }
+    }
+  }
+
+  protected static String lazyStatementId(EntityTable entity, EntityColumn column) {
+    return entity.entityClass().getName() + "$lazy$" + column.property();
+  }
+
+  protected static String fetchStatementId(EntityTable entity) {
+    return entity.entityClass().getName() + "$lazyFetch";
+  }
+
+  /**
+   * 获取已经注册的查询，实体的方法还没有初始化时需要先调用 {@link #register(Configuration)}
+   */
+  protected static String registered(Configuration configuration, String statementId) {
+    Assert.isTrue(configuration.hasStatement(statementId, false),
+        statementId + " is not registered, call LazyColumns.register(configuration) before the entity's mapper methods are used");
+    return statementId;
+  }
+
+  /**
+   * 生成延迟加载列的 ResultMapping，读取该列的查询需要已经通过 {@link #register} 注册
+   *
+   * @param configuration MyBatis 配置类
+   * @param entity        实体类信息
+   * @param column        延迟加载列
+   * @return ResultMapping
+   */
+  public static ResultMapping genResultMapping(Configuration configuration, EntityTable entity, EntityColumn column) {
+    EntityColumn id = idColumn(entity);
+    String statementId = registered(configuration, lazyStatementId(entity, column));
+    return new ResultMapping.Builder(configuration, column.property(), EntityTable.columnName(id), column.javaType())
+        .nestedQueryId(statementId).lazy(true).build();
+  }
+
+  /**
+   * 按主键批量读取延迟加载列，读取后对应的延迟加载不会再执行
+   *
+   * @param sqlSession 当前会话
+   * @param entities   实体集合
+   * @param fns        需要读取的延迟加载列
+   */
+  @SafeVarargs
+  public static <T> void fetch(SqlSession sqlSession, Collection<T> entities, Fn<T, Object>... fns) {
+    if (entities.isEmpty() || fns.length == 0) {
+      return;
+    }
+    EntityTable entity = fns[0].toEntityColumn().entityTable();
+    EntityColumn id = idColumn(entity);
+    List<EntityColumn> columns = new ArrayList<>(fns.length);
+    List<String> columnNames = new ArrayList<>(fns.length);
+    for (Fn<T, Object> fn : fns) {
+      EntityColumn column = fn.toEntityColumn();
+      Assert.isTrue(entity.lazyColumns().contains(column), column.property() + " is not a lazy column");
+      columns.add(column);
+      columnNames.add(column.column());
+    }
+    register(sqlSession.getConfiguration(), entity);
+    String statementId = fetchStatementId(entity);
+    Map<Object, List<T>> targets = new LinkedHashMap<>();
+    for (T target : entities) {
+      targets.computeIfAbsent(id.field().get(target), key -> new ArrayList<>(1)).add(target);
+    }
+    List<Object> ids = new ArrayList<>(targets.keySet());
+    int batchSize = entity.getPropInt(BATCH_SIZE, 500);
+    for (int i = 0; i < ids.size(); i += batchSize) {
+      Map<String, Object> params = new HashMap<>();
+      params.put("columns", columnNames);
+      params.put("ids", ids.subList(i, Math.min(i + batchSize, ids.size())));
+      List<Object> rows = sqlSession.selectList(statementId, params);
+      for (Object row : rows) {
+        for (T target : targets.get(id.field().get(row))) {
+          //通过 setter 赋值，延迟加载的代理对象会移除对应的加载器
+          MetaObject metaObject = SystemMetaObject.forObject(target);
+          for (EntityColumn column : columns) {
+            metaObject.setValue(column.property(), column.field().get(row));
+          }
+        }
+      }
+    }
+  }
+
+  protected static EntityColumn idColumn(EntityTable entity) {
+    List<EntityColumn> ids = entity.idColumns();
+    Assert.isTrue(ids.size() == 1 && ids.get(0).id(), entity.entityClass().getName() + " lazy columns require a single id column");
+    return ids.get(0);
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.lazy;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.MsCustomize;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 初始化方法时注册实体中延迟加载列需要的查询，不需要手动调用 {@link LazyColumns#register(Configuration)}
+ * <p>
+ * 查询方法使用实体自动生成的 resultMap 时，替换为添加了延迟加载映射的 resultMap，第一次调用 getter 时读取对应的列
+ *
+ * @author liuzh
+ */
+public class LazyColumnsMsCustomize implements MsCustomize {
+  /**
+   * 自动生成的 resultMap 和添加了延迟加载映射的 resultMap
+   */
+  private final Map<ResultMap, ResultMap> lazyResultMaps = new ConcurrentHashMap<>();
+
+  @Override
+  public void customize(EntityTable entity, MappedStatement ms, ProviderContext context) {
+    if (entity.lazyColumns().isEmpty()) {
+      return;
+    }
+    Configuration configuration = ms.getConfiguration();
+    LazyColumns.register(configuration, entity);
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getResultMaps().size() != 1) {
+      return;
+    }
+    ResultMap resultMap = ms.getResultMaps().get(0);
+    if (isAutoResultMap(entity, resultMap)) {
+      ResultMap lazyResultMap = lazyResultMaps.computeIfAbsent(resultMap, r -> lazyResultMap(configuration, entity, r));
+      configuration.newMetaObject(ms).setValue("resultMaps", Collections.singletonList(lazyResultMap));
+    }
+  }
+
+  /**
+   * 是否为实体自动生成的 resultMap，指定的 resultMap 需要自己配置延迟加载
+   */
+  protected boolean isAutoResultMap(EntityTable entity, ResultMap resultMap) {
+    return entity.autoResultMap() && resultMap.getType() == entity.entityClass()
+        && resultMap.getId().endsWith("." + EntityTable.RESULT_MAP_NAME);
+  }
+
+  /**
+   * 在自动生成的 resultMap 中添加延迟加载列的映射，id 保持不变
+   */
+  protected ResultMap lazyResultMap(Configuration configuration, EntityTable entity, ResultMap resultMap) {
+    List<ResultMapping> resultMappings = new ArrayList<>(resultMap.getResultMappings());
+    for (EntityColumn column : entity.lazyColumns()) {
+      resultMappings.add(LazyColumns.genResultMapping(configuration, entity, column));
+    }
+    return new ResultMap.Builder(configuration, resultMap.getId(), resultMap.getType(), resultMappings, resultMap.getAutoMapping()).build();
+  }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.mapping;
+
+import org.apache.ibatis.type.ArrayTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * 把集合作为一个数组参数绑定，通过 {@link java.sql.Connection#createArrayOf(String, Object[])} 创建 SQL 数组
+ * <p>
+ * 数组元素的类型名称优先使用参数上指定的 jdbcType，没有指定时根据第一个非空元素的 Java 类型确定，规则和 {@link ArrayTypeHandler} 一致
+ *
+ * @author liuzh
+ */
+public class CollectionArrayTypeHandler extends ArrayTypeHandler {
+
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, Object parameter, JdbcType jdbcType) throws SQLException {
+    if (!(parameter instanceof Collection)) {
+      super.setNonNullParameter(ps, i, parameter, jdbcType);
+      return;
+    }
+    Collection<?> collection = (Collection<?>) parameter;
+    String arrayTypeName = jdbcType != null && jdbcType != JdbcType.OTHER && jdbcType != JdbcType.ARRAY
+        ? jdbcType.name() : resolveTypeName(elementType(collection));
+    Array array = ps.getConnection().createArrayOf(arrayTypeName, collection.toArray());
+    ps.setArray(i, array);
+    array.free();
+  }
+
+  /**
+   * 第一个非空元素的类型
+   */
+  protected Class<?> elementType(Collection<?> collection) {
+    for (Object element : collection) {
+      if (element != null) {
+        return element.getClass();
+      }
+    }
+    return Object.class;
+  }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.mapping;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.List;
+
+/**
+ * 静态 SQL 的参数是实体时，返回携带 {@link EntityParameterBinder} 的 {@link BoundSql}
+ */
+public class CompiledParameterSqlSource implements SqlSource {
+  private final SqlSource              sqlSource;
+  private final Configuration          configuration;
+  private final String                 sql;
+  private final List<ParameterMapping> parameterMappings;
+  private final EntityParameterBinder  binder;
+
+  public CompiledParameterSqlSource(SqlSource sqlSource, Configuration configuration, String sql,
+                                    List<ParameterMapping> parameterMappings, EntityParameterBinder binder) {
+    this.sqlSource = sqlSource;
+    this.configuration = configuration;
+    this.sql = sql;
+    this.parameterMappings = parameterMappings;
+    this.binder = binder;
+  }
+
+  @Override
+  public BoundSql getBoundSql(Object parameterObject) {
+    if (binder.accepts(parameterObject)) {
+      return new EntityParameterBinder.CompiledBoundSql(configuration, sql, parameterMappings, parameterObject, binder);
+    }
+    return sqlSource.getBoundSql(parameterObject);
+  }
+
+}
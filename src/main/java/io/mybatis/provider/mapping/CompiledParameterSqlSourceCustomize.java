@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.mapping;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlSourceCustomize;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+
+import java.util.Optional;
+
+/**
+ * 不包含动态标签的通用方法，参数映射在解析后就固定下来，参数是实体时使用 {@link EntityParameterBinder} 设置参数
+ * <p>
+ * 可以通过 {@code @Entity.Table(props)} 或全局配置 {@link #ENABLED}=false 关闭
+ *
+ * @author liuzh
+ */
+public class CompiledParameterSqlSourceCustomize implements SqlSourceCustomize {
+  public static final Log    log     = LogFactory.getLog(CompiledParameterSqlSourceCustomize.class);
+  /**
+   * 是否使用预编译的参数绑定，默认 true
+   */
+  public static final String ENABLED = "mybatis.provider.mapping.compiledParameter";
+
+  @Override
+  public SqlSource customize(SqlSource sqlSource, EntityTable entity, MappedStatement ms, ProviderContext context) {
+    if (!(sqlSource instanceof RawSqlSource) || !entity.getPropBoolean(ENABLED, true)) {
+      return sqlSource;
+    }
+    //静态 SQL 的参数映射和参数值无关
+    BoundSql boundSql = sqlSource.getBoundSql(null);
+    if (boundSql.getParameterMappings().isEmpty()) {
+      return sqlSource;
+    }
+    Optional<EntityParameterBinder> binder = EntityParameterBinder.of(ms.getConfiguration(), entity, boundSql.getParameterMappings());
+    if (!binder.isPresent()) {
+      return sqlSource;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug(ms.getId() + " uses compiled parameter binder");
+    }
+    return new CompiledParameterSqlSource(sqlSource, ms.getConfiguration(), boundSql.getSql(), boundSql.getParameterMappings(), binder.get());
+  }
+
+}
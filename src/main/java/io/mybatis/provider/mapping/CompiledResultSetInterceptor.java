@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.mapping;
+
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.RowBounds;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 使用 {@link EntityRowMapper} 处理通用查询方法返回实体时的查询结果，包括 {@code autoResultMap = true} 自动生成的 resultMap 和自动映射
+ * <p>
+ * 只处理通用查询方法中没有 RowBounds 和 ResultHandler 的情况，结果集的列和实体的映射不一致时使用 MyBatis 默认的处理方式。
+ * 可以通过 {@code @Entity.Table(props)} 或全局配置 {@link #ENABLED}=false 关闭，配置 {@link #ORDINAL}=false 时不按位置读取。
+ * <p>
+ * 使用时需要注册插件，例如：
+ * <pre>
+ * &lt;plugins&gt;
+ *   &lt;plugin interceptor="io.mybatis.provider.mapping.CompiledResultSetInterceptor"/&gt;
+ * &lt;/plugins&gt;
+ * </pre>
+ *
+ * @author liuzh
+ */
+@Intercepts({
+    @Signature(type = ResultSetHandler.class, method = "handleResultSets", args = {Statement.class})
+})
+public class CompiledResultSetInterceptor implements Interceptor {
+  public static final Log    log     = LogFactory.getLog(CompiledResultSetInterceptor.class);
+  /**
+   * 是否使用预编译的行映射，默认 true
+   */
+  public static final String ENABLED = "mybatis.provider.mapping.compiled";
+  /**
+   * 是否按查询列的位置读取结果，默认 true，第一次执行时会验证列的顺序
+   */
+  public static final String ORDINAL = "mybatis.provider.mapping.ordinal";
+
+  /**
+   * 缓存方法对应的行映射，key 为 msId
+   */
+  private final Map<String, Optional<Compiled>> mappers = new ConcurrentHashMap<>();
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    if (!(invocation.getTarget() instanceof DefaultResultSetHandler)) {
+      return invocation.proceed();
+    }
+    MetaObject metaObject = SystemMetaObject.forObject(invocation.getTarget());
+    MappedStatement ms = (MappedStatement) metaObject.getValue("mappedStatement");
+    RowBounds rowBounds = (RowBounds) metaObject.getValue("rowBounds");
+    if (metaObject.getValue("resultHandler") != null
+        || rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT
+        || ms.getResultSets() != null || ms.getResultMaps().size() != 1) {
+      return invocation.proceed();
+    }
+    Optional<Compiled> compiled = mappers.computeIfAbsent(ms.getId(), id -> compile(ms));
+    if (!compiled.isPresent()) {
+      return invocation.proceed();
+    }
+    Statement stmt = (Statement) invocation.getArgs()[0];
+    ResultSet rs = stmt.getResultSet();
+    if (rs == null) {
+      return invocation.proceed();
+    }
+    EntityRowMapper mapper = compiled.get().mapper;
+    BoundSql boundSql = (BoundSql) metaObject.getValue("boundSql");
+    EntityRowMapper.Layout layout = mapper.layout(boundSql.getSql(), rs.getMetaData(), compiled.get().ordinal);
+    if (layout == null) {
+      //部分驱动（如 hsqldb）第二次调用 getResultSet 时返回 null，需要把已经获取的结果集交给默认的处理方式
+      return ((ResultSetHandler) invocation.getTarget()).handleResultSets(reuse(stmt, rs));
+    }
+    try {
+      return mapper.map(rs, layout);
+    } finally {
+      rs.close();
+    }
+  }
+
+  /**
+   * 第一次调用 getResultSet 时返回已经获取的结果集，其他方法直接调用原 Statement
+   */
+  protected static Statement reuse(Statement stmt, ResultSet rs) {
+    boolean[] returned = {false};
+    return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[]{Statement.class}, (proxy, method, args) -> {
+      if ("getResultSet".equals(method.getName()) && !returned[0]) {
+        returned[0] = true;
+        return rs;
+      }
+      try {
+        return method.invoke(stmt, args);
+      } catch (InvocationTargetException e) {
+        throw e.getTargetException();
+      }
+    });
+  }
+
+  protected Optional<Compiled> compile(MappedStatement ms) {
+    Optional<EntityTable> entity = EntityFactory.create(ms);
+    if (!entity.isPresent() || !entity.get().getPropBoolean(ENABLED, true)) {
+      return Optional.empty();
+    }
+    Optional<EntityRowMapper> mapper = EntityRowMapper.of(ms.getConfiguration(), entity.get(), ms.getResultMaps().get(0));
+    if (mapper.isPresent() && log.isDebugEnabled()) {
+      log.debug(ms.getId() + " uses compiled row mapper");
+    }
+    boolean ordinal = entity.get().getPropBoolean(ORDINAL, true);
+    return mapper.map(m -> new Compiled(m, ordinal));
+  }
+
+  static class Compiled {
+    final EntityRowMapper mapper;
+    final boolean         ordinal;
+
+    Compiled(EntityRowMapper mapper, boolean ordinal) {
+      this.mapper = mapper;
+      this.ordinal = ordinal;
+    }
+  }
+
+}
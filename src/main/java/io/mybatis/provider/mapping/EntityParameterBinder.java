@@ -0,0 +1,235 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.mapping;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeException;
+import org.apache.ibatis.type.TypeHandler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 预编译的实体参数绑定
+ * <p>
+ * 参数就是实体本身时，在创建时按 {@link ParameterMapping} 确定每个参数的取值方法（getter 或字段的 {@link MethodHandle}）、
+ * {@link TypeHandler} 和 {@link JdbcType}，执行时直接按顺序取值并设置到 {@link PreparedStatement}，
+ * 不再经过 MetaObject 反射和 {@link BoundSql} 的附加参数查找。
+ * <p>
+ * 空值的处理方式和 MyBatis 一致：值为 null 并且没有指定 jdbcType 时使用 {@link Configuration#getJdbcTypeForNull()}。
+ *
+ * @author liuzh
+ */
+public class EntityParameterBinder {
+  private final Class<?>         type;
+  private final String[]         properties;
+  private final MethodHandle[]   getters;
+  private final TypeHandler<?>[] typeHandlers;
+  private final JdbcType[]       jdbcTypes;
+  private final JdbcType         jdbcTypeForNull;
+
+  protected EntityParameterBinder(Configuration configuration, Class<?> type, String[] properties,
+                                  MethodHandle[] getters, TypeHandler<?>[] typeHandlers, JdbcType[] jdbcTypes) {
+    this.type = type;
+    this.properties = properties;
+    this.getters = getters;
+    this.typeHandlers = typeHandlers;
+    this.jdbcTypes = jdbcTypes;
+    this.jdbcTypeForNull = configuration.getJdbcTypeForNull();
+  }
+
+  /**
+   * 根据参数映射创建参数绑定，存在无法处理的映射（嵌套属性、存储过程出参、非实体字段等）时返回空
+   *
+   * @param configuration     配置
+   * @param entity            实体
+   * @param parameterMappings 参数映射
+   * @return 参数绑定
+   */
+  public static Optional<EntityParameterBinder> of(Configuration configuration, EntityTable entity, List<ParameterMapping> parameterMappings) {
+    Map<String, EntityColumn> columnMap = new HashMap<>();
+    for (EntityColumn column : entity.columns()) {
+      columnMap.put(column.property(), column);
+    }
+    int size = parameterMappings.size();
+    String[] properties = new String[size];
+    MethodHandle[] getters = new MethodHandle[size];
+    TypeHandler<?>[] typeHandlers = new TypeHandler[size];
+    JdbcType[] jdbcTypes = new JdbcType[size];
+    try {
+      for (int i = 0; i < size; i++) {
+        ParameterMapping mapping = parameterMappings.get(i);
+        EntityColumn column = columnMap.get(mapping.getProperty());
+        if (column == null || mapping.getTypeHandler() == null
+            || (mapping.getMode() != null && mapping.getMode() != ParameterMode.IN)) {
+          return Optional.empty();
+        }
+        properties[i] = mapping.getProperty();
+        getters[i] = getter(entity.entityClass(), column.field().getName());
+        //和结果映射共用列上保存的类型处理器实例
+        TypeHandler<?> shared = column.typeHandlerInstance(configuration);
+        typeHandlers[i] = shared != null && shared.getClass() == mapping.getTypeHandler().getClass() ? shared : mapping.getTypeHandler();
+        jdbcTypes[i] = mapping.getJdbcType();
+      }
+      return Optional.of(new EntityParameterBinder(configuration, entity.entityClass(), properties, getters, typeHandlers, jdbcTypes));
+    } catch (ReflectiveOperationException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * 和 MyBatis 一样优先使用 getter 方法，没有时直接读取字段
+   */
+  protected static MethodHandle getter(Class<?> type, String property) throws ReflectiveOperationException {
+    String suffix = property.substring(0, 1).toUpperCase(Locale.ENGLISH) + property.substring(1);
+    for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+      for (Method method : clazz.getDeclaredMethods()) {
+        if (method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers())
+            && (method.getName().equals("get" + suffix)
+            || (method.getName().equals("is" + suffix) && method.getReturnType() == boolean.class))) {
+          method.setAccessible(true);
+          return MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+        }
+      }
+    }
+    Field field = findField(type, property);
+    field.setAccessible(true);
+    return MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+  }
+
+  private static Field findField(Class<?> type, String property) throws NoSuchFieldException {
+    for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+      try {
+        return clazz.getDeclaredField(property);
+      } catch (NoSuchFieldException ignored) {
+        // ignored
+      }
+    }
+    throw new NoSuchFieldException(property);
+  }
+
+  /**
+   * 参数是否可以使用当前绑定
+   *
+   * @param parameterObject 参数
+   */
+  public boolean accepts(Object parameterObject) {
+    return type.isInstance(parameterObject);
+  }
+
+  /**
+   * 把实体的属性值依次设置到 {@link PreparedStatement}
+   *
+   * @param ps     PreparedStatement
+   * @param entity 实体
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void bind(PreparedStatement ps, Object entity) {
+    for (int i = 0; i < getters.length; i++) {
+      Object value;
+      try {
+        value = getters[i].invokeExact(entity);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new IllegalStateException("Error getting property '" + properties[i] + "' of " + type.getName(), t);
+      }
+      JdbcType jdbcType = jdbcTypes[i];
+      if (value == null && jdbcType == null) {
+        jdbcType = jdbcTypeForNull;
+      }
+      try {
+        ((TypeHandler) typeHandlers[i]).setParameter(ps, i + 1, value, jdbcType);
+      } catch (TypeException | SQLException e) {
+        throw new TypeException("Could not set parameters for mapping: " + properties[i] + ". Cause: " + e, e);
+      }
+    }
+  }
+
+  /**
+   * 绑定的参数个数
+   */
+  public int size() {
+    return getters.length;
+  }
+
+  /**
+   * 携带参数绑定的 {@link BoundSql}，{@link io.mybatis.provider.Caching#createParameterHandler} 根据类型判断是否使用参数绑定
+   */
+  public static class CompiledBoundSql extends BoundSql {
+    private final EntityParameterBinder  binder;
+    private final List<ParameterMapping> compiledMappings;
+
+    public CompiledBoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings,
+                            Object parameterObject, EntityParameterBinder binder) {
+      super(configuration, sql, parameterMappings, parameterObject);
+      this.binder = binder;
+      this.compiledMappings = parameterMappings;
+    }
+
+    public EntityParameterBinder getBinder() {
+      return binder;
+    }
+
+    /**
+     * 参数映射和附加参数是否仍然和创建参数绑定时一致
+     * <p>
+     * 其他插件替换或追加了参数映射、设置了附加参数时，参数绑定无法体现这些变化，需要回退到 MyBatis 默认的参数处理
+     */
+    public boolean isIntact() {
+      List<ParameterMapping> mappings = getParameterMappings();
+      return mappings == compiledMappings && mappings.size() == binder.size() && getAdditionalParameters().isEmpty();
+    }
+  }
+
+  /**
+   * 使用参数绑定设置参数的 {@link ParameterHandler}
+   */
+  public static class Handler implements ParameterHandler {
+    private final EntityParameterBinder binder;
+    private final Object                parameterObject;
+
+    public Handler(EntityParameterBinder binder, Object parameterObject) {
+      this.binder = binder;
+      this.parameterObject = parameterObject;
+    }
+
+    @Override
+    public Object getParameterObject() {
+      return parameterObject;
+    }
+
+    @Override
+    public void setParameters(PreparedStatement ps) {
+      binder.bind(ps, parameterObject);
+    }
+  }
+
+}
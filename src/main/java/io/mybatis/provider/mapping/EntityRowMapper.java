@@ -0,0 +1,409 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.mapping;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.session.AutoMappingBehavior;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+import org.apache.ibatis.type.UnknownTypeHandler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预编译的实体行映射
+ * <p>
+ * 在创建时按 {@link ResultMap} 确定每一列的 {@link TypeHandler} 和属性的赋值方法（setter 或字段的 {@link MethodHandle}），
+ * 每个 {@link ResultSet} 只解析一次列的位置，之后逐行按列序号读取并赋值，不再经过 MetaObject 反射。
+ * 没有配置 resultMap 的实体（自动映射）按 {@link EntityTable#selectColumns()} 和属性名对应，
+ * 和 MyBatis 一样按属性类型和 {@link ResultSetMetaData} 中列的 {@link JdbcType} 获取 {@link TypeHandler}。
+ * <p>
+ * 通用方法生成的查询列顺序和 {@link EntityTable#selectColumns()} 一致，按序号读取时，同一个 SQL 只在第一次和
+ * {@link ResultSetMetaData} 对比验证，之后直接按位置读取；验证不通过时按列名查找位置。
+ * 列的位置和 {@link TypeHandler} 按 SQL 缓存，最多缓存 {@link #MAX_LAYOUTS} 个 SQL。
+ * <p>
+ * 空值的处理方式和 MyBatis 一致：值为 null 时只有开启 callSettersOnNulls 并且不是基本类型时才赋值，
+ * 所有列都为 null 时，没有开启 returnInstanceForEmptyRow 的情况下返回 null。
+ *
+ * @author liuzh
+ */
+public class EntityRowMapper {
+  /**
+   * 最多缓存的 SQL 个数，超过后不再缓存新的 SQL
+   */
+  public static final int           MAX_LAYOUTS = 256;
+  private static final Layout       NONE        = new Layout(null, null);
+  private final Class<?>            type;
+  private final MethodHandle        constructor;
+  private final ObjectFactory       objectFactory;
+  /**
+   * 列名，大写
+   */
+  private final String[]            columns;
+  /**
+   * 属性类型
+   */
+  private final Class<?>[]          javaTypes;
+  /**
+   * resultMap 中指定的 TypeHandler，自动映射时为 null，按结果集的列类型获取
+   */
+  private final TypeHandler<?>[]    typeHandlers;
+  private final TypeHandlerRegistry typeHandlerRegistry;
+  private final MethodHandle[]      setters;
+  private final boolean[]           primitives;
+  private final boolean             callSettersOnNulls;
+  private final boolean             returnInstanceForEmptyRow;
+  /**
+   * 按位置读取时的列序号，依次为 1,2,3...
+   */
+  private final int[]               ordinalIndexes;
+  /**
+   * SQL 对应的列位置和 TypeHandler
+   */
+  private final Map<String, Layout> layouts = new ConcurrentHashMap<>();
+
+  protected EntityRowMapper(Configuration configuration, Class<?> type, MethodHandle constructor, String[] columns,
+                            Class<?>[] javaTypes, TypeHandler<?>[] typeHandlers, MethodHandle[] setters, boolean[] primitives) {
+    this.type = type;
+    this.constructor = constructor;
+    this.objectFactory = configuration.getObjectFactory();
+    this.columns = columns;
+    this.javaTypes = javaTypes;
+    this.typeHandlers = typeHandlers;
+    this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    this.setters = setters;
+    this.primitives = primitives;
+    this.callSettersOnNulls = configuration.isCallSettersOnNulls();
+    this.returnInstanceForEmptyRow = configuration.isReturnInstanceForEmptyRow();
+    this.ordinalIndexes = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      this.ordinalIndexes[i] = i + 1;
+    }
+  }
+
+  /**
+   * 根据 resultMap 创建行映射，存在无法处理的映射（嵌套、构造方法参数、非实体字段等）时返回空
+   *
+   * @param configuration 配置
+   * @param entity        实体
+   * @param resultMap     resultMap，没有映射时按自动映射处理
+   * @return 行映射
+   */
+  public static Optional<EntityRowMapper> of(Configuration configuration, EntityTable entity, ResultMap resultMap) {
+    if (resultMap.getType() != entity.entityClass()
+        || resultMap.hasNestedResultMaps()
+        || resultMap.hasNestedQueries()
+        || resultMap.getDiscriminator() != null
+        || !resultMap.getConstructorResultMappings().isEmpty()) {
+      return Optional.empty();
+    }
+    if (resultMap.getResultMappings().isEmpty()) {
+      return ofAutoMapping(configuration, entity, resultMap);
+    }
+    Map<String, EntityColumn> columnMap = new HashMap<>();
+    for (EntityColumn column : entity.columns()) {
+      columnMap.put(column.property(), column);
+    }
+    List<ResultMapping> mappings = resultMap.getPropertyResultMappings();
+    int size = mappings.size();
+    String[] columns = new String[size];
+    Class<?>[] javaTypes = new Class[size];
+    TypeHandler<?>[] typeHandlers = new TypeHandler[size];
+    MethodHandle[] setters = new MethodHandle[size];
+    boolean[] primitives = new boolean[size];
+    try {
+      for (int i = 0; i < size; i++) {
+        ResultMapping mapping = mappings.get(i);
+        EntityColumn column = columnMap.get(mapping.getProperty());
+        if (column == null || mapping.getColumn() == null || mapping.getTypeHandler() == null
+            || mapping.getNestedQueryId() != null || mapping.getNestedResultMapId() != null) {
+          return Optional.empty();
+        }
+        columns[i] = mapping.getColumn().toUpperCase(Locale.ENGLISH);
+        javaTypes[i] = column.javaType();
+        typeHandlers[i] = mapping.getTypeHandler();
+        setters[i] = setter(entity.entityClass(), column.field().getName(), column.javaType());
+        primitives[i] = column.javaType().isPrimitive();
+      }
+      return Optional.of(new EntityRowMapper(configuration, entity.entityClass(),
+          constructor(configuration, entity.entityClass()), columns, javaTypes, typeHandlers, setters, primitives));
+    } catch (ReflectiveOperationException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * 自动映射时，通用方法查询列的别名就是属性名，{@link TypeHandler} 在读取结果集时按列类型获取
+   */
+  protected static Optional<EntityRowMapper> ofAutoMapping(Configuration configuration, EntityTable entity, ResultMap resultMap) {
+    boolean autoMapping = resultMap.getAutoMapping() != null ? resultMap.getAutoMapping()
+        : configuration.getAutoMappingBehavior() != AutoMappingBehavior.NONE;
+    if (!autoMapping) {
+      return Optional.empty();
+    }
+    TypeHandlerRegistry registry = configuration.getTypeHandlerRegistry();
+    List<EntityColumn> selectColumns = entity.selectColumns();
+    int size = selectColumns.size();
+    String[] columns = new String[size];
+    Class<?>[] javaTypes = new Class[size];
+    MethodHandle[] setters = new MethodHandle[size];
+    boolean[] primitives = new boolean[size];
+    try {
+      for (int i = 0; i < size; i++) {
+        EntityColumn column = selectColumns.get(i);
+        if (!registry.hasTypeHandler(column.javaType())) {
+          return Optional.empty();
+        }
+        columns[i] = column.property().toUpperCase(Locale.ENGLISH);
+        javaTypes[i] = column.javaType();
+        setters[i] = setter(entity.entityClass(), column.field().getName(), column.javaType());
+        primitives[i] = column.javaType().isPrimitive();
+      }
+      return Optional.of(new EntityRowMapper(configuration, entity.entityClass(),
+          constructor(configuration, entity.entityClass()), columns, javaTypes, null, setters, primitives));
+    } catch (ReflectiveOperationException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * 使用默认的 ObjectFactory 时直接调用无参构造方法
+   */
+  protected static MethodHandle constructor(Configuration configuration, Class<?> type) throws ReflectiveOperationException {
+    if (configuration.getObjectFactory().getClass() != DefaultObjectFactory.class) {
+      return null;
+    }
+    Constructor<?> constructor = type.getDeclaredConstructor();
+    constructor.setAccessible(true);
+    return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+  }
+
+  /**
+   * 和 MyBatis 一样优先使用 setter 方法，没有时直接给字段赋值
+   */
+  protected static MethodHandle setter(Class<?> type, String property, Class<?> javaType) throws ReflectiveOperationException {
+    MethodHandle handle = null;
+    String name = "set" + property.substring(0, 1).toUpperCase(Locale.ENGLISH) + property.substring(1);
+    for (Class<?> clazz = type; clazz != null && clazz != Object.class && handle == null; clazz = clazz.getSuperclass()) {
+      for (Method method : clazz.getDeclaredMethods()) {
+        if (method.getName().equals(name) && method.getParameterCount() == 1
+            && method.getParameterTypes()[0].isAssignableFrom(javaType)) {
+          method.setAccessible(true);
+          handle = MethodHandles.lookup().unreflect(method);
+          break;
+        }
+      }
+    }
+    if (handle == null) {
+      Field field = findField(type, property);
+      field.setAccessible(true);
+      handle = MethodHandles.lookup().unreflectSetter(field);
+    }
+    return handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+  }
+
+  private static Field findField(Class<?> type, String property) throws NoSuchFieldException {
+    for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+      try {
+        return clazz.getDeclaredField(property);
+      } catch (NoSuchFieldException ignored) {
+        // ignored
+      }
+    }
+    throw new NoSuchFieldException(property);
+  }
+
+  /**
+   * 解析列的位置和 {@link TypeHandler}，优先按位置读取，结果集中的列和映射的列不完全一致时返回 null
+   *
+   * @param sql      执行的 SQL，同一个 SQL 只解析一次
+   * @param metaData 结果集元数据
+   * @param ordinal  是否按位置读取
+   * @return 每个映射对应的列序号和 TypeHandler
+   */
+  public Layout layout(String sql, ResultSetMetaData metaData, boolean ordinal) throws SQLException {
+    Layout layout = sql != null ? layouts.get(sql) : null;
+    if (layout == null) {
+      int[] indexes = ordinal && matchesOrdinal(metaData) ? ordinalIndexes : columnIndexes(metaData);
+      TypeHandler<?>[] handlers = indexes != null ? typeHandlers(metaData, indexes) : null;
+      layout = handlers != null ? new Layout(indexes, handlers) : NONE;
+      if (sql != null && layouts.size() < MAX_LAYOUTS) {
+        layouts.putIfAbsent(sql, layout);
+      }
+    }
+    return layout != NONE ? layout : null;
+  }
+
+  /**
+   * 获取每一列的 {@link TypeHandler}，自动映射时和 MyBatis 一样按属性类型和列的 {@link JdbcType} 获取，
+   * MyBatis 不会自动映射的列返回 null，由默认方式处理
+   */
+  protected TypeHandler<?>[] typeHandlers(ResultSetMetaData metaData, int[] indexes) throws SQLException {
+    if (typeHandlers != null) {
+      return typeHandlers;
+    }
+    TypeHandler<?>[] handlers = new TypeHandler[indexes.length];
+    for (int i = 0; i < indexes.length; i++) {
+      JdbcType jdbcType = jdbcType(metaData.getColumnType(indexes[i]));
+      if (!typeHandlerRegistry.hasTypeHandler(javaTypes[i], jdbcType)) {
+        return null;
+      }
+      handlers[i] = typeHandlerRegistry.getTypeHandler(javaTypes[i], jdbcType);
+      if (handlers[i] == null || handlers[i] instanceof UnknownTypeHandler) {
+        return null;
+      }
+    }
+    return handlers;
+  }
+
+  private static JdbcType jdbcType(int code) {
+    try {
+      return JdbcType.forCode(code);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * 结果集的列是否和映射的列顺序完全一致
+   */
+  protected boolean matchesOrdinal(ResultSetMetaData metaData) throws SQLException {
+    if (metaData.getColumnCount() != columns.length) {
+      return false;
+    }
+    for (int i = 0; i < columns.length; i++) {
+      if (!columns[i].equalsIgnoreCase(metaData.getColumnLabel(i + 1))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 按列名解析列的位置，结果集中的列和映射的列不完全一致时返回 null
+   *
+   * @param metaData 结果集元数据
+   * @return 每个映射对应的列序号
+   */
+  protected int[] columnIndexes(ResultSetMetaData metaData) throws SQLException {
+    int count = metaData.getColumnCount();
+    if (count != columns.length) {
+      return null;
+    }
+    Map<String, Integer> labels = new HashMap<>(count * 2);
+    for (int i = 1; i <= count; i++) {
+      labels.put(metaData.getColumnLabel(i).toUpperCase(Locale.ENGLISH), i);
+    }
+    int[] indexes = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      Integer index = labels.get(columns[i]);
+      if (index == null) {
+        return null;
+      }
+      indexes[i] = index;
+    }
+    return indexes;
+  }
+
+  /**
+   * 读取所有行
+   *
+   * @param rs     结果集
+   * @param layout 每个映射对应的列序号和 TypeHandler
+   * @return 结果
+   */
+  public List<Object> map(ResultSet rs, Layout layout) throws SQLException {
+    List<Object> list = new ArrayList<>();
+    while (rs.next()) {
+      list.add(mapRow(rs, layout));
+    }
+    return list;
+  }
+
+  /**
+   * 读取当前行
+   *
+   * @param rs     结果集
+   * @param layout 每个映射对应的列序号和 TypeHandler
+   * @return 实体
+   */
+  public Object mapRow(ResultSet rs, Layout layout) throws SQLException {
+    int[] indexes = layout.indexes;
+    TypeHandler<?>[] handlers = layout.typeHandlers;
+    Object row = newInstance();
+    boolean foundValues = false;
+    for (int i = 0; i < indexes.length; i++) {
+      Object value = handlers[i].getResult(rs, indexes[i]);
+      if (value != null) {
+        foundValues = true;
+      } else if (!callSettersOnNulls || primitives[i]) {
+        continue;
+      }
+      try {
+        setters[i].invokeExact(row, value);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new IllegalStateException("Error setting property of " + type.getName(), t);
+      }
+    }
+    return foundValues || returnInstanceForEmptyRow ? row : null;
+  }
+
+  protected Object newInstance() {
+    if (constructor == null) {
+      return objectFactory.create(type);
+    }
+    try {
+      return constructor.invokeExact();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException("Error instantiating " + type.getName(), t);
+    }
+  }
+
+  /**
+   * 结果集中每个映射对应的列序号和 {@link TypeHandler}
+   */
+  public static class Layout {
+    final int[]            indexes;
+    final TypeHandler<?>[] typeHandlers;
+
+    Layout(int[] indexes, TypeHandler<?>[] typeHandlers) {
+      this.indexes = indexes;
+      this.typeHandlers = typeHandlers;
+    }
+  }
+
+}
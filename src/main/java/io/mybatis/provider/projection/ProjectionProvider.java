@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.projection;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.SqlScript;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+
+import java.util.stream.Collectors;
+
+/**
+ * 只查询指定列，列通过 {@link io.mybatis.mapper.fn.Fn.Fns} 参数指定，没有指定时查询所有列
+ * <p>
+ * 使用方式：
+ * <pre>
+ * &#64;Lang(Caching.class)
+ * &#64;SelectProvider(type = ProjectionProvider.class, method = "selectById")
+ * User selectColumnsById(&#64;Param("id") Long id, &#64;Param("fns") Fn.Fns&lt;User&gt; fns);
+ *
+ * userMapper.selectColumnsById(1L, Fn.of(User::getId, User::getUsername));
+ * </pre>
+ * 生成的 SQL 由 {@link ProjectionSqlSource} 按列的组合缓存
+ *
+ * @author liuzh
+ */
+public class ProjectionProvider {
+
+  /**
+   * 根据主键查询指定列，主键参数需要使用和字段相同的名字
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String selectById(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, entity ->
+        "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName()
+            + " WHERE " + entity.idColumns().stream().map(EntityColumn::columnEqualsProperty).collect(Collectors.joining(" AND ")));
+  }
+
+  /**
+   * 按主键顺序查询所有行的指定列
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String selectAll(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, entity ->
+        "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName()
+            + " ORDER BY " + entity.idColumns().stream().map(EntityColumn::column).collect(Collectors.joining(",")));
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.projection;
+
+import io.mybatis.mapper.fn.Fn;
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.util.Assert;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 把查询所有列的 SQL 替换为只查询指定列的 SQL
+ * <p>
+ * 原 SQL 需要是静态 SQL，并且以 {@code SELECT} + {@link EntityTable#baseColumnAsPropertyList()} 开头。
+ * 指定的列按 {@link EntityTable#selectColumns()} 的顺序排列，相同组合的列只生成一次 SQL，
+ * 缓存在容量为 {@link #CACHE_SIZE} 的 LRU 中
+ *
+ * @author liuzh
+ */
+public class ProjectionSqlSource implements SqlSource {
+  /**
+   * 每个方法缓存的列组合个数，可以通过 {@code @Entity.Table(props)} 或全局配置，默认 64
+   */
+  public static final String CACHE_SIZE = "mybatis.provider.projection.cacheSize";
+
+  private final SqlSource              sqlSource;
+  private final EntityTable            entity;
+  private final Configuration          configuration;
+  private final String                 prefix;
+  private final Map<BitSet, SqlSource> shapes;
+
+  public ProjectionSqlSource(SqlSource sqlSource, EntityTable entity, Configuration configuration) {
+    this.sqlSource = sqlSource;
+    this.entity = entity;
+    this.configuration = configuration;
+    this.prefix = "SELECT " + entity.baseColumnAsPropertyList();
+    int cacheSize = entity.getPropInt(CACHE_SIZE, 64);
+    this.shapes = Collections.synchronizedMap(new LinkedHashMap<BitSet, SqlSource>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<BitSet, SqlSource> eldest) {
+        return size() > cacheSize;
+      }
+    });
+  }
+
+  /**
+   * 获取参数中的 {@link Fn.Fns}
+   *
+   * @param parameterObject 参数
+   * @return 指定的列，没有时返回 null
+   */
+  protected static Fn.Fns<?> fns(Object parameterObject) {
+    if (parameterObject instanceof Fn.Fns) {
+      return (Fn.Fns<?>) parameterObject;
+    }
+    if (parameterObject instanceof Map) {
+      for (Object value : ((Map<?, ?>) parameterObject).values()) {
+        if (value instanceof Fn.Fns) {
+          return (Fn.Fns<?>) value;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 实体的查询列中被指定的列
+   *
+   * @param fns 指定的列
+   * @return 位置和 {@link EntityTable#selectColumns()} 对应
+   */
+  protected BitSet shape(Fn.Fns<?> fns) {
+    List<EntityColumn> columns = entity.selectColumns();
+    BitSet shape = new BitSet(columns.size());
+    for (EntityColumn column : fns.columns()) {
+      int index = -1;
+      for (int i = 0; i < columns.size(); i++) {
+        if (columns.get(i).property().equals(column.property())) {
+          index = i;
+          break;
+        }
+      }
+      Assert.isTrue(index >= 0, column.property() + " is not a select column of " + entity.entityClass().getName());
+      shape.set(index);
+    }
+    return shape;
+  }
+
+  @Override
+  public BoundSql getBoundSql(Object parameterObject) {
+    Fn.Fns<?> fns = fns(parameterObject);
+    if (fns == null || !fns.isNotEmpty()) {
+      return sqlSource.getBoundSql(parameterObject);
+    }
+    BitSet shape = shape(fns);
+    SqlSource projection = shapes.get(shape);
+    if (projection != null) {
+      return projection.getBoundSql(parameterObject);
+    }
+    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    String sql = boundSql.getSql();
+    if (!sql.startsWith(prefix)) {
+      return boundSql;
+    }
+    List<EntityColumn> columns = entity.selectColumns();
+    String columnList = shape.stream().mapToObj(columns::get)
+        .map(column -> entity.useResultMaps() ? column.column() : column.columnAsProperty())
+        .collect(Collectors.joining(","));
+    projection = new StaticSqlSource(configuration, "SELECT " + columnList + sql.substring(prefix.length()), boundSql.getParameterMappings());
+    shapes.put(shape, projection);
+    return projection.getBoundSql(parameterObject);
+  }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.projection;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlSourceCustomize;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+
+/**
+ * 使用 {@link ProjectionSqlSource} 处理 {@link ProjectionProvider} 生成的方法
+ *
+ * @author liuzh
+ */
+public class ProjectionSqlSourceCustomize implements SqlSourceCustomize {
+
+  @Override
+  public SqlSource customize(SqlSource sqlSource, EntityTable entity, MappedStatement ms, ProviderContext context) {
+    SelectProvider provider = context.getMapperMethod().getAnnotation(SelectProvider.class);
+    if (provider == null || (provider.type() != ProjectionProvider.class && provider.value() != ProjectionProvider.class)
+        || !(sqlSource instanceof RawSqlSource)) {
+      return sqlSource;
+    }
+    return new ProjectionSqlSource(sqlSource, entity, ms.getConfiguration());
+  }
+
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.scan;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 按主键范围分区并行扫描，适合大表导出
+ * <p>
+ * 根据实体唯一的数值主键，按 {@code MIN(id)} 和 {@code MAX(id)} 平均拆分（或使用指定的拆分点）为多个分区，
+ * 每个分区使用一个单独的会话执行指定的范围查询方法，通过 {@link Cursor} 逐行读取并交给消费者处理。
+ * 主键范围通过 {@link #rangeStatement(String)} 指定的方法（例如使用 {@link ScanProvider#selectIdRange}）查询，
+ * 和范围查询一样经过分表、租户等处理，并使用相同的参数。
+ * <p>
+ * 范围查询方法需要在 Mapper 中声明（例如使用 {@link ScanProvider#selectRange}），和其他方法一样在启动时注册，
+ * 执行时通过 {@code lower}（包含）和 {@code upper}（不包含）参数传入分区的主键范围，为 null 时表示不限制，
+ * 通过 {@link #param(String, Object)} 设置的其他参数（如过滤条件）会传给每个分区。
+ * <p>
+ * 消费者会在多个线程中同时调用，需要保证线程安全。每个分区读取下一行前会等待消费者处理完当前行，
+ * 结合查询方法的 fetchSize 限制每次从数据库读取的行数，消费者处理不过来时读取也会同步变慢，不会在内存中堆积。
+ *
+ * @param <T> 实体类型
+ * @author liuzh
+ */
+public class ParallelScan<T> {
+  public static final Log    log        = LogFactory.getLog(ParallelScan.class);
+  /**
+   * 默认分区数，可以通过 {@code @Entity.Table(props)} 或全局配置，默认为 CPU 核数
+   */
+  public static final String PARTITIONS = "mybatis.provider.scan.partitions";
+
+  private final    SqlSessionFactory   sqlSessionFactory;
+  private final    EntityTable         entityTable;
+  private final    EntityColumn        idColumn;
+  private final    String              statementId;
+  private final    Map<String, Object> params   = new HashMap<>();
+  private          String              rangeStatementId;
+  private          int                 partitions;
+  private          List<Long>          splitPoints;
+  private volatile List<Partition>     progress = Collections.emptyList();
+
+  /**
+   * @param sqlSessionFactory 会话工厂
+   * @param statementId       按主键范围查询的通用方法（如 {@link ScanProvider#selectRange}），返回值为实体
+   */
+  public ParallelScan(SqlSessionFactory sqlSessionFactory, String statementId) {
+    this.sqlSessionFactory = sqlSessionFactory;
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(statementId);
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT) {
+      throw new IllegalArgumentException(statementId + " is not a select statement");
+    }
+    this.entityTable = EntityFactory.create(ms).orElseThrow(() ->
+        new IllegalArgumentException(statementId + " is not a provider statement of an entity"));
+    List<EntityColumn> idColumns = entityTable.idColumns();
+    if (idColumns.size() != 1 || !isNumeric(idColumns.get(0).javaType())) {
+      throw new IllegalArgumentException(entityTable.tableName() + " must have a single numeric primary key to be scanned in parallel");
+    }
+    this.idColumn = idColumns.get(0);
+    this.partitions = entityTable.getPropInt(PARTITIONS, Runtime.getRuntime().availableProcessors());
+    this.statementId = statementId;
+  }
+
+  protected static boolean isNumeric(Class<?> type) {
+    return type == Long.class || type == long.class || type == Integer.class || type == int.class
+        || type == Short.class || type == short.class;
+  }
+
+  /**
+   * 设置传给每个分区的其他参数，{@code lower} 和 {@code upper} 由分区决定，不能设置
+   *
+   * @param name  参数名
+   * @param value 参数值
+   */
+  public ParallelScan<T> param(String name, Object value) {
+    if ("lower".equals(name) || "upper".equals(name)) {
+      throw new IllegalArgumentException(name + " is reserved for the partition range");
+    }
+    params.put(name, value);
+    return this;
+  }
+
+  /**
+   * 设置查询主键范围的方法（如 {@link ScanProvider#selectIdRange}），按分区数拆分时需要设置
+   *
+   * @param statementId 返回 {@link ScanProvider#MIN_ID} 和 {@link ScanProvider#MAX_ID} 两列的查询方法
+   */
+  public ParallelScan<T> rangeStatement(String statementId) {
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(statementId);
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT) {
+      throw new IllegalArgumentException(statementId + " is not a select statement");
+    }
+    this.rangeStatementId = statementId;
+    return this;
+  }
+
+  /**
+   * 设置分区数，按 MIN(id) 和 MAX(id) 平均拆分
+   *
+   * @param partitions 分区数
+   */
+  public ParallelScan<T> partitions(int partitions) {
+    if (partitions < 1) {
+      throw new IllegalArgumentException("partitions must be greater than 0");
+    }
+    this.partitions = partitions;
+    return this;
+  }
+
+  /**
+   * 设置拆分点，n 个拆分点得到 n+1 个分区，第一个分区不限下限，最后一个分区不限上限
+   *
+   * @param splitPoints 递增的拆分点
+   */
+  public ParallelScan<T> splitPoints(List<? extends Number> splitPoints) {
+    List<Long> points = new ArrayList<>(splitPoints.size());
+    for (Number point : splitPoints) {
+      if (!points.isEmpty() && point.longValue() <= points.get(points.size() - 1)) {
+        throw new IllegalArgumentException("split points must be increasing: " + splitPoints);
+      }
+      points.add(point.longValue());
+    }
+    this.splitPoints = points;
+    return this;
+  }
+
+  /**
+   * 并行扫描全表，所有分区完成后返回
+   *
+   * @param consumer 线程安全的消费者
+   * @return 扫描的总行数
+   */
+  public long scan(Consumer<? super T> consumer) {
+    List<Partition> partitionList = partitions();
+    this.progress = Collections.unmodifiableList(partitionList);
+    if (log.isDebugEnabled()) {
+      log.debug("Scan " + entityTable.tableName() + " in " + partitionList.size() + " partitions");
+    }
+    AtomicBoolean cancelled = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(partitionList.size(), new ScanThreadFactory(entityTable.tableName()));
+    try {
+      List<Future<?>> futures = new ArrayList<>(partitionList.size());
+      for (Partition partition : partitionList) {
+        futures.add(executor.submit(() -> scan(partition, consumer, cancelled)));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          //有一个分区失败时停止其他分区
+          cancelled.set(true);
+          Throwable cause = e.getCause();
+          throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+      }
+    } catch (InterruptedException e) {
+      cancelled.set(true);
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Scan of " + entityTable.tableName() + " is interrupted", e);
+    } finally {
+      executor.shutdownNow();
+    }
+    return partitionList.stream().mapToLong(Partition::getRows).sum();
+  }
+
+  @SuppressWarnings("unchecked")
+  protected void scan(Partition partition, Consumer<? super T> consumer, AtomicBoolean cancelled) {
+    Map<String, Object> params = new HashMap<>(this.params);
+    params.put("lower", toIdType(partition.lower));
+    params.put("upper", toIdType(partition.upper));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+         Cursor<Object> cursor = sqlSession.selectCursor(statementId, params)) {
+      for (Object row : cursor) {
+        if (cancelled.get()) {
+          return;
+        }
+        consumer.accept((T) row);
+        partition.rows.incrementAndGet();
+      }
+      partition.done = true;
+    } catch (Exception e) {
+      partition.error = e;
+      cancelled.set(true);
+      throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+    }
+  }
+
+  protected Object toIdType(Long value) {
+    if (value == null) {
+      return null;
+    }
+    Class<?> javaType = idColumn.javaType();
+    if (javaType == Integer.class || javaType == int.class) {
+      return value.intValue();
+    } else if (javaType == Short.class || javaType == short.class) {
+      return value.shortValue();
+    }
+    return value;
+  }
+
+  /**
+   * 根据拆分点或主键范围计算分区
+   */
+  protected List<Partition> partitions() {
+    List<Long> points = splitPoints;
+    if (points == null) {
+      points = new ArrayList<>();
+      long[] range = partitions > 1 ? idRange() : null;
+      if (range != null) {
+        //主键范围可能超过 long 的范围，使用 BigInteger 计算
+        BigInteger min = BigInteger.valueOf(range[0]), max = BigInteger.valueOf(range[1]);
+        BigInteger step = max.subtract(min).add(BigInteger.ONE).divide(BigInteger.valueOf(partitions)).max(BigInteger.ONE);
+        for (int i = 1; i < partitions; i++) {
+          BigInteger point = min.add(step.multiply(BigInteger.valueOf(i)));
+          if (point.compareTo(max) > 0) {
+            break;
+          }
+          points.add(point.longValue());
+        }
+      }
+    }
+    List<Partition> list = new ArrayList<>(points.size() + 1);
+    Long lower = null;
+    for (Long point : points) {
+      list.add(new Partition(list.size(), lower, point));
+      lower = point;
+    }
+    list.add(new Partition(list.size(), lower, null));
+    return list;
+  }
+
+  /**
+   * 通过 {@link #rangeStatement(String)} 指定的方法查询主键的最小值和最大值，参数和分区查询一致
+   *
+   * @return 最小值和最大值，没有数据时返回 null
+   */
+  protected long[] idRange() {
+    if (rangeStatementId == null) {
+      throw new IllegalStateException("rangeStatement is required to split " + entityTable.tableName() + " into "
+          + partitions + " partitions, or use splitPoints instead");
+    }
+    Map<String, Object> range;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      range = sqlSession.selectOne(rangeStatementId, new HashMap<>(params));
+    }
+    Number min = null, max = null;
+    if (range != null) {
+      for (Map.Entry<String, Object> entry : range.entrySet()) {
+        if (ScanProvider.MIN_ID.equalsIgnoreCase(entry.getKey())) {
+          min = (Number) entry.getValue();
+        } else if (ScanProvider.MAX_ID.equalsIgnoreCase(entry.getKey())) {
+          max = (Number) entry.getValue();
+        }
+      }
+    }
+    if (min == null || max == null) {
+      return null;
+    }
+    return new long[]{min.longValue(), max.longValue()};
+  }
+
+  /**
+   * 最近一次扫描的分区进度
+   */
+  public List<Partition> getPartitions() {
+    return progress;
+  }
+
+  /**
+   * 分区和进度
+   */
+  public static class Partition {
+    private final    int        index;
+    /**
+     * 下限（包含），为 null 时不限制
+     */
+    private final    Long       lower;
+    /**
+     * 上限（不包含），为 null 时不限制
+     */
+    private final    Long       upper;
+    private final    AtomicLong rows = new AtomicLong();
+    private volatile boolean    done;
+    private volatile Throwable  error;
+
+    Partition(int index, Long lower, Long upper) {
+      this.index = index;
+      this.lower = lower;
+      this.upper = upper;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public Long getLower() {
+      return lower;
+    }
+
+    public Long getUpper() {
+      return upper;
+    }
+
+    /**
+     * 已经处理的行数
+     */
+    public long getRows() {
+      return rows.get();
+    }
+
+    public boolean isDone() {
+      return done;
+    }
+
+    public Throwable getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return "Partition{" + index + ", [" + lower + ", " + upper + "), rows=" + rows.get()
+          + (done ? ", done" : "") + (error != null ? ", error=" + error : "") + "}";
+    }
+  }
+
+  static class ScanThreadFactory implements ThreadFactory {
+    private final String     prefix;
+    private final AtomicLong counter = new AtomicLong();
+
+    ScanThreadFactory(String tableName) {
+      this.prefix = "parallel-scan-" + tableName + "-";
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.scan;
+
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlScript;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 按主键范围查询，配合 {@link ParallelScan} 分区并行扫描
+ * <p>
+ * 使用方式：
+ * <pre>
+ * &#64;Lang(Caching.class)
+ * &#64;Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+ * &#64;SelectProvider(type = ScanProvider.class, method = "selectRange")
+ * Cursor&lt;User&gt; selectRange(&#64;Param("lower") Long lower, &#64;Param("upper") Long upper, &#64;Param("entity") User entity);
+ * </pre>
+ * lower（包含）和 upper（不包含）为空时不限制，entity 不为空时按其中不为空的字段过滤。
+ * <p>
+ * 按分区数拆分时，还需要声明查询主键范围的方法，参数和范围查询一致（不需要 lower 和 upper）：
+ * <pre>
+ * &#64;Lang(Caching.class)
+ * &#64;SelectProvider(type = ScanProvider.class, method = "selectIdRange")
+ * Map&lt;String, Object&gt; selectIdRange(&#64;Param("entity") User entity);
+ * </pre>
+ *
+ * @author liuzh
+ */
+public class ScanProvider {
+  /**
+   * {@link #selectIdRange} 中主键最小值的别名
+   */
+  public static final String MIN_ID = "min_id";
+  /**
+   * {@link #selectIdRange} 中主键最大值的别名
+   */
+  public static final String MAX_ID = "max_id";
+
+  /**
+   * 查询主键范围内的数据
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String selectRange(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) -> {
+      String id = idColumn(entity).column();
+      return "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName()
+          + util.where(() ->
+          util.ifTest("lower != null", () -> "AND " + id + " &gt;= #{lower}")
+              + util.ifTest("upper != null", () -> "AND " + id + " &lt; #{upper}")
+              + entityFilter(entity, util));
+    });
+  }
+
+  /**
+   * 查询主键的最小值 {@link #MIN_ID} 和最大值 {@link #MAX_ID}，过滤条件和 {@link #selectRange} 一致
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String selectIdRange(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) -> {
+      String id = idColumn(entity).column();
+      return "SELECT MIN(" + id + ") AS " + MIN_ID + ", MAX(" + id + ") AS " + MAX_ID + " FROM " + entity.tableName()
+          + util.where(() -> entityFilter(entity, util));
+    });
+  }
+
+  private static EntityColumn idColumn(EntityTable entity) {
+    List<EntityColumn> idColumns = entity.idColumns();
+    if (idColumns.size() != 1) {
+      throw new IllegalArgumentException(entity.tableName() + " must have a single primary key to be scanned by range");
+    }
+    return idColumns.get(0);
+  }
+
+  /**
+   * entity 参数不为空时按其中不为空的字段过滤
+   */
+  private static String entityFilter(EntityTable entity, SqlScript util) {
+    return util.ifTest("entity != null", () -> entity.columns().stream().map(column ->
+        util.ifTest(column.notNullTest("entity."), () -> "AND " + column.columnEqualsProperty("entity."))
+    ).collect(Collectors.joining(SqlScript.LF)));
+  }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.shard;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 默认的分表策略，按分片键取模
+ * <p>
+ * 整数类型的分片键直接取模，其他类型使用 {@link Object#hashCode()} 取模。分表个数通过 {@link Sharding#COUNT} 配置，
+ * 实际表名通过 {@link Sharding#FORMAT} 格式化逻辑表名和序号得到，默认 {@code %s_%02d}，例如 {@code order_07}
+ *
+ * @author liuzh
+ */
+public class ModShardingStrategy implements ShardingStrategy {
+  /**
+   * 缓存实体的所有实际表名，key 为实体类
+   */
+  private final Map<Class<?>, String[]> tables = new ConcurrentHashMap<>();
+
+  @Override
+  public String tableName(EntityTable entity, Object shardKey) {
+    String[] names = tables.computeIfAbsent(entity.entityClass(), c -> tableNames(entity));
+    return names[index(shardKey, names.length)];
+  }
+
+  @Override
+  public String tableName(EntityTable entity, String baseName, Object shardKey) {
+    int count = tables.computeIfAbsent(entity.entityClass(), c -> tableNames(entity)).length;
+    return String.format(entity.getProp(Sharding.FORMAT, "%s_%02d"), baseName, index(shardKey, count));
+  }
+
+  protected int index(Object shardKey, int count) {
+    long hash = shardKey instanceof Number ? ((Number) shardKey).longValue() : shardKey.hashCode();
+    return (int) Math.floorMod(hash, (long) count);
+  }
+
+  protected String[] tableNames(EntityTable entity) {
+    int count = entity.getPropInt(Sharding.COUNT, 0);
+    Assert.isTrue(count > 0, Sharding.COUNT + " must be greater than 0 for " + entity.entityClass().getName());
+    String format = entity.getProp(Sharding.FORMAT, "%s_%02d");
+    String[] names = new String[count];
+    for (int i = 0; i < count; i++) {
+      names[i] = String.format(format, entity.tableName(), i);
+    }
+    return names;
+  }
+
+}
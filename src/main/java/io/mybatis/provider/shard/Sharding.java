@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.shard;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.util.Assert;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体的分表配置，根据参数中的分片键计算实际表名
+ * <p>
+ * 实体通过 {@code @Entity.Table(props)} 配置 {@link #KEY} 后启用分表，例如：
+ * <pre>
+ * &#64;Entity.Table(value = "order", props = {
+ *     &#64;Entity.Prop(name = "mybatis.provider.shard.key", value = "userId"),
+ *     &#64;Entity.Prop(name = "mybatis.provider.shard.count", value = "64")
+ * })
+ * </pre>
+ * 分片键按以下顺序从参数中获取：参数本身是实体时取实体的属性；参数是 Map 时取同名的参数，
+ * 没有同名参数时取其中的实体或实体集合的第一个元素的属性。
+ *
+ * @author liuzh
+ */
+public class Sharding {
+  /**
+   * 分片键对应的属性名
+   */
+  public static final String KEY      = "mybatis.provider.shard.key";
+  /**
+   * 分表策略的实现类，默认 {@link ModShardingStrategy}
+   */
+  public static final String STRATEGY = "mybatis.provider.shard.strategy";
+  /**
+   * {@link ModShardingStrategy} 的分表个数
+   */
+  public static final String COUNT    = "mybatis.provider.shard.count";
+  /**
+   * {@link ModShardingStrategy} 的实际表名格式，参数为逻辑表名和序号，默认 {@code %s_%02d}
+   */
+  public static final String FORMAT   = "mybatis.provider.shard.format";
+
+  private static final Map<Class<?>, Optional<Sharding>> SHARDINGS  = new ConcurrentHashMap<>();
+  private static final Map<String, ShardingStrategy>     STRATEGIES = new ConcurrentHashMap<>();
+
+  private final EntityTable      entity;
+  private final String           property;
+  private final ShardingStrategy strategy;
+
+  public Sharding(EntityTable entity, String property, ShardingStrategy strategy) {
+    this.entity = entity;
+    this.property = property;
+    this.strategy = strategy;
+  }
+
+  /**
+   * 获取实体的分表配置
+   *
+   * @param entity 实体类信息
+   * @return 没有配置 {@link #KEY} 时返回空
+   */
+  public static Optional<Sharding> of(EntityTable entity) {
+    return SHARDINGS.computeIfAbsent(entity.entityClass(), c -> {
+      String property = entity.getProp(KEY);
+      if (property == null || property.isEmpty()) {
+        return Optional.empty();
+      }
+      ShardingStrategy strategy = STRATEGIES.computeIfAbsent(
+          entity.getProp(STRATEGY, ModShardingStrategy.class.getName()), Sharding::newInstance);
+      return Optional.of(new Sharding(entity, property, strategy));
+    });
+  }
+
+  private static ShardingStrategy newInstance(String className) {
+    try {
+      return (ShardingStrategy) Class.forName(className).getConstructor().newInstance();
+    } catch (Exception e) {
+      throw new RuntimeException("instance [ " + className + " ] error", e);
+    }
+  }
+
+  /**
+   * 根据参数计算实际表名
+   *
+   * @param parameterObject 参数
+   * @return 实际表名
+   */
+  public String tableName(Object parameterObject) {
+    Object shardKey = shardKey(parameterObject);
+    Assert.notNull(shardKey, "Shard key " + property + " of " + entity.entityClass().getName() + " not found in parameter");
+    return strategy.tableName(entity, shardKey);
+  }
+
+  /**
+   * 根据参数在指定的表名上计算实际表名
+   *
+   * @param parameterObject 参数
+   * @param baseName        路由后的表名，例如 {@code tenant_a.order}
+   * @return 实际表名
+   */
+  public String tableName(Object parameterObject, String baseName) {
+    Object shardKey = shardKey(parameterObject);
+    Assert.notNull(shardKey, "Shard key " + property + " of " + entity.entityClass().getName() + " not found in parameter");
+    return strategy.tableName(entity, baseName, shardKey);
+  }
+
+  /**
+   * 获取参数中分片键的值
+   *
+   * @param parameterObject 参数
+   * @return 分片键的值，不存在时返回 null
+   */
+  public Object shardKey(Object parameterObject) {
+    if (parameterObject == null) {
+      return null;
+    }
+    if (entity.entityClass().isInstance(parameterObject)) {
+      return SystemMetaObject.forObject(parameterObject).getValue(property);
+    }
+    if (parameterObject instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) parameterObject;
+      if (map.containsKey(property)) {
+        return map.get(property);
+      }
+      for (Object value : map.values()) {
+        if (value instanceof Collection && !((Collection<?>) value).isEmpty()) {
+          value = ((Collection<?>) value).iterator().next();
+        }
+        if (entity.entityClass().isInstance(value)) {
+          return SystemMetaObject.forObject(value).getValue(property);
+        }
+      }
+    }
+    return null;
+  }
+
+  public EntityTable entity() {
+    return entity;
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.shard;
+
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.batch.ChunkingInterceptor;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按实际表拆分分表实体的批量操作
+ * <p>
+ * 参数中包含实体集合（如 insertList）时，按集合中每个实体的分片键分组，每组在同一个会话中单独执行，最后汇总影响行数。
+ * 和 {@link ChunkingInterceptor} 同时使用时需要注册在它之后，先按表分组再按参数个数拆分，例如：
+ * <pre>
+ * &lt;plugins&gt;
+ *   &lt;plugin interceptor="io.mybatis.provider.batch.ChunkingInterceptor"/&gt;
+ *   &lt;plugin interceptor="io.mybatis.provider.shard.ShardingInterceptor"/&gt;
+ * &lt;/plugins&gt;
+ * </pre>
+ *
+ * @author liuzh
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class ShardingInterceptor implements Interceptor {
+  /**
+   * 缓存方法对应的分表配置，key 为 msId
+   */
+  private final Map<String, Optional<Sharding>> shardings = new ConcurrentHashMap<>();
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    Object[] args = invocation.getArgs();
+    MappedStatement ms = (MappedStatement) args[0];
+    Object parameter = args[1];
+    Collection<?> collection = ChunkingInterceptor.getCollection(parameter);
+    if (collection == null || collection.size() < 2) {
+      return invocation.proceed();
+    }
+    Optional<Sharding> sharding = shardings.computeIfAbsent(ms.getId(), id -> EntityFactory.create(ms).flatMap(Sharding::of));
+    if (!sharding.isPresent() || !sharding.get().entity().entityClass().isInstance(collection.iterator().next())) {
+      return invocation.proceed();
+    }
+    Map<String, List<Object>> groups = new LinkedHashMap<>();
+    for (Object element : collection) {
+      groups.computeIfAbsent(sharding.get().tableName(element), t -> new ArrayList<>()).add(element);
+    }
+    if (groups.size() == 1) {
+      return invocation.proceed();
+    }
+    Executor executor = (Executor) invocation.getTarget();
+    int total = 0;
+    for (List<Object> group : groups.values()) {
+      int count = executor.update(ms, ChunkingInterceptor.replace(parameter, collection, group));
+      //批量执行器只有在 flushStatements 时才能拿到结果
+      if (count == BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+        total = count;
+      } else if (total != BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+        total += count;
+      }
+    }
+    return total;
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.shard;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlSourceCustomize;
+import io.mybatis.provider.table.TableVariantSqlSource;
+import io.mybatis.provider.tenant.TenantSchema;
+import io.mybatis.provider.tenant.TenantSchemaSqlSourceCustomize;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 配置了分表的实体，使用 {@link TableVariantSqlSource} 按分片键把逻辑表名替换为实际表名，每个实际表缓存一份 SQL
+ * <p>
+ * 同时开启了 {@link TenantSchema#ENABLED} 的实体由 {@link TenantSchemaSqlSourceCustomize} 在租户表名上分表，这里不处理
+ *
+ * @author liuzh
+ */
+public class ShardingSqlSourceCustomize implements SqlSourceCustomize {
+
+  @Override
+  public SqlSource customize(SqlSource sqlSource, EntityTable entity, MappedStatement ms, ProviderContext context) {
+    Optional<Sharding> sharding = Sharding.of(entity);
+    if (!sharding.isPresent() || entity.getPropBoolean(TenantSchema.ENABLED, false)) {
+      return sqlSource;
+    }
+    return new TableVariantSqlSource(sqlSource, ms.getConfiguration(), entity.tableName(),
+        sharding.get()::tableName, new ConcurrentHashMap<>());
+  }
+
+}
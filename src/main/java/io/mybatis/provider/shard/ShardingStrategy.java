@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.shard;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.util.Assert;
+
+/**
+ * 分表策略，根据分片键的值计算实际表名
+ * <p>
+ * 通过 {@code @Entity.Table(props)} 或全局配置 {@link Sharding#STRATEGY} 指定实现类，实现类需要有无参构造方法，
+ * 同一个实现类在所有实体间共享一个实例
+ *
+ * @author liuzh
+ */
+public interface ShardingStrategy {
+
+  /**
+   * 计算实际表名
+   *
+   * @param entity   实体类信息
+   * @param shardKey 分片键的值，不为 null
+   * @return 实际表名
+   */
+  String tableName(EntityTable entity, Object shardKey);
+
+  /**
+   * 在指定的表名上计算实际表名，用于同时开启了其他表名路由（如按租户切换 schema）的实体
+   * <p>
+   * 默认把 {@link #tableName(EntityTable, Object)} 得到的实际表名中的逻辑表名前缀替换为 baseName，
+   * 实际表名不以逻辑表名开头时无法组合，直接抛出异常
+   *
+   * @param entity   实体类信息
+   * @param baseName 路由后的表名，例如 {@code tenant_a.order}
+   * @param shardKey 分片键的值，不为 null
+   * @return 实际表名
+   */
+  default String tableName(EntityTable entity, String baseName, Object shardKey) {
+    String tableName = tableName(entity, shardKey);
+    Assert.isTrue(tableName.startsWith(entity.tableName()), "Sharding table " + tableName + " of "
+        + entity.entityClass().getName() + " does not start with " + entity.tableName() + ", cannot apply it to " + baseName);
+    return baseName + tableName.substring(entity.tableName().length());
+  }
+
+}
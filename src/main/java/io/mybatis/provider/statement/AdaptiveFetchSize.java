@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.statement;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 根据查询返回的行数自动调整 fetchSize
+ * <p>
+ * 每个开启的方法记录返回行数的直方图（按 2 的幂分桶），fetchSize 取指定百分位所在桶的上限，并限制在 [min, max] 范围内，
+ * 小查询使用较小的 fetchSize 减少内存占用，大查询使用较大的 fetchSize 减少网络往返。
+ * 记录数达到窗口大小时所有桶减半，使旧数据逐渐失去影响。
+ * <p>
+ * 通过 {@link #snapshot()} 可以查看学习到的值，固定下来时在方法上配置 {@code @Options(fetchSize = n)}，配置后不再自动调整。
+ *
+ * @author liuzh
+ */
+public class AdaptiveFetchSize {
+  /**
+   * 是否开启，可以通过 {@code @Entity.Table(props)} 或全局配置，默认 false
+   */
+  public static final String ENABLED    = "mybatis.provider.statement.adaptiveFetchSize";
+  /**
+   * fetchSize 下限，默认 10
+   */
+  public static final String MIN        = "mybatis.provider.statement.adaptiveFetchSize.min";
+  /**
+   * fetchSize 上限，默认 1000
+   */
+  public static final String MAX        = "mybatis.provider.statement.adaptiveFetchSize.max";
+  /**
+   * 使用的百分位，默认 90
+   */
+  public static final String PERCENTILE = "mybatis.provider.statement.adaptiveFetchSize.percentile";
+  /**
+   * 直方图窗口大小，默认 1000
+   */
+  public static final String WINDOW     = "mybatis.provider.statement.adaptiveFetchSize.window";
+
+  private static final Map<MappedStatement, Stats> STATS = new ConcurrentHashMap<>();
+
+  /**
+   * 注册需要自动调整的方法
+   *
+   * @param ms    MappedStatement
+   * @param stats 统计信息
+   */
+  public static void register(MappedStatement ms, Stats stats) {
+    STATS.put(ms, stats);
+  }
+
+  /**
+   * 获取方法的统计信息
+   *
+   * @param ms MappedStatement
+   * @return 没有开启时返回 null
+   */
+  public static Stats get(MappedStatement ms) {
+    return STATS.get(ms);
+  }
+
+  /**
+   * 当前所有方法的 fetchSize，key 为 msId
+   */
+  public static Map<String, Integer> snapshot() {
+    Map<String, Integer> snapshot = new TreeMap<>();
+    STATS.forEach((ms, stats) -> snapshot.put(ms.getId(), stats.getFetchSize()));
+    return snapshot;
+  }
+
+  /**
+   * 所有方法的统计信息，key 为 msId
+   */
+  public static Map<String, Stats> stats() {
+    Map<String, Stats> stats = new TreeMap<>();
+    STATS.forEach((ms, s) -> stats.put(ms.getId(), s));
+    return stats;
+  }
+
+  /**
+   * 返回行数的直方图，第 i 个桶记录 [2^(i-1), 2^i) 行（第 0 个桶为 0 行）的次数
+   */
+  public static class Stats {
+    private static final int    BUCKETS = 32;
+    private final        int    min;
+    private final        int    max;
+    private final        double percentile;
+    private final        int    window;
+    private final        long[] buckets = new long[BUCKETS];
+    private              long   total;
+    private              long   observations;
+    private volatile     int    fetchSize;
+
+    public Stats(int min, int max, int percentile, int window, int initialFetchSize) {
+      if (min < 1 || max < min) {
+        throw new IllegalArgumentException("Invalid adaptive fetch size bounds [" + min + ", " + max + "]");
+      }
+      this.min = min;
+      this.max = max;
+      this.percentile = Math.max(1, Math.min(100, percentile)) / 100.0;
+      this.window = Math.max(1, window);
+      this.fetchSize = clamp(initialFetchSize);
+    }
+
+    static int bucket(int rows) {
+      return rows <= 0 ? 0 : Math.min(BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(rows));
+    }
+
+    protected int clamp(int value) {
+      return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * 记录一次查询的行数
+     *
+     * @param rows 行数
+     * @return 新的 fetchSize
+     */
+    public synchronized int record(int rows) {
+      buckets[bucket(rows)]++;
+      total++;
+      observations++;
+      if (total >= window) {
+        total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+          buckets[i] >>= 1;
+          total += buckets[i];
+        }
+      }
+      long target = (long) Math.ceil(total * percentile);
+      long count = 0;
+      int bucket = 0;
+      for (; bucket < BUCKETS - 1; bucket++) {
+        count += buckets[bucket];
+        if (count >= target) {
+          break;
+        }
+      }
+      //取桶的上限（不包含），比桶中最多的行数多一行，一次往返就能读完并确认没有更多数据
+      fetchSize = clamp(bucket >= 31 ? Integer.MAX_VALUE : 1 << bucket);
+      return fetchSize;
+    }
+
+    public int getFetchSize() {
+      return fetchSize;
+    }
+
+    public synchronized long getObservations() {
+      return observations;
+    }
+
+    /**
+     * 当前窗口中的直方图，key 为每个桶的行数上限（不包含）
+     */
+    public synchronized Map<Long, Long> getHistogram() {
+      Map<Long, Long> histogram = new LinkedHashMap<>();
+      for (int i = 0; i < BUCKETS; i++) {
+        if (buckets[i] > 0) {
+          histogram.put(1L << i, buckets[i]);
+        }
+      }
+      return histogram;
+    }
+
+    @Override
+    public String toString() {
+      return "Stats{fetchSize=" + fetchSize + ", observations=" + getObservations() + ", histogram=" + getHistogram() + "}";
+    }
+  }
+
+}
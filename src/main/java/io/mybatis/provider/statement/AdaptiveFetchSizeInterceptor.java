@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.statement;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.RowBounds;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 给开启了 {@link AdaptiveFetchSize#ENABLED} 的查询方法设置学习到的 fetchSize，并记录每次从数据库读取的行数
+ * <p>
+ * fetchSize 在创建 Statement 时按本次执行设置，不修改共享的 {@link MappedStatement}。
+ * 行数在处理结果集时记录，命中缓存的查询不会读取数据库，也不会被记录；返回 {@link Cursor} 的查询在游标关闭或读取完时记录已经读取的行数。
+ * 使用 {@link org.apache.ibatis.session.ResultHandler} 的查询只设置 fetchSize，不记录行数。
+ * <p>
+ * 没有开启的方法只有一次 Map 查找的开销。使用时需要注册插件，例如：
+ * <pre>
+ * &lt;plugins&gt;
+ *   &lt;plugin interceptor="io.mybatis.provider.statement.AdaptiveFetchSizeInterceptor"/&gt;
+ * &lt;/plugins&gt;
+ * </pre>
+ *
+ * @author liuzh
+ */
+@Intercepts({
+    @Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}),
+    @Signature(type = ResultSetHandler.class, method = "handleResultSets", args = {Statement.class}),
+    @Signature(type = ResultSetHandler.class, method = "handleCursorResultSets", args = {Statement.class})
+})
+public class AdaptiveFetchSizeInterceptor implements Interceptor {
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    if (invocation.getTarget() instanceof StatementHandler) {
+      return prepare(invocation);
+    }
+    Object result = invocation.proceed();
+    MetaObject metaObject = unwrap(invocation.getTarget());
+    AdaptiveFetchSize.Stats stats = AdaptiveFetchSize.get((MappedStatement) metaObject.getValue("mappedStatement"));
+    if (stats == null || metaObject.getValue("resultHandler") != null) {
+      return result;
+    }
+    //RowBounds 跳过的行也会从数据库读取
+    int offset = ((RowBounds) metaObject.getValue("rowBounds")).getOffset();
+    if (result instanceof Cursor) {
+      return new RecordingCursor<>((Cursor<?>) result, stats, offset);
+    }
+    if (result instanceof List) {
+      stats.record(offset + ((List<?>) result).size());
+    }
+    return result;
+  }
+
+  protected Object prepare(Invocation invocation) throws Throwable {
+    Statement statement = (Statement) invocation.proceed();
+    MetaObject metaObject = unwrap(invocation.getTarget());
+    //RoutingStatementHandler 中的 delegate
+    if (metaObject.hasGetter("delegate")) {
+      metaObject = unwrap(metaObject.getValue("delegate"));
+    }
+    AdaptiveFetchSize.Stats stats = AdaptiveFetchSize.get((MappedStatement) metaObject.getValue("mappedStatement"));
+    if (stats != null) {
+      statement.setFetchSize(stats.getFetchSize());
+    }
+    return statement;
+  }
+
+  /**
+   * 获取被其他插件代理的原始对象
+   */
+  private static MetaObject unwrap(Object target) {
+    while (Proxy.isProxyClass(target.getClass())) {
+      InvocationHandler handler = Proxy.getInvocationHandler(target);
+      if (!(handler instanceof Plugin)) {
+        break;
+      }
+      target = SystemMetaObject.forObject(handler).getValue("target");
+    }
+    return SystemMetaObject.forObject(target);
+  }
+
+  /**
+   * 记录读取行数的游标，关闭或读取完时记录一次
+   */
+  static class RecordingCursor<T> implements Cursor<T> {
+    private final Cursor<T>               cursor;
+    private final AdaptiveFetchSize.Stats stats;
+    private final int                     offset;
+    private final AtomicBoolean           recorded = new AtomicBoolean();
+    private       int                     rows;
+
+    RecordingCursor(Cursor<T> cursor, AdaptiveFetchSize.Stats stats, int offset) {
+      this.cursor = cursor;
+      this.stats = stats;
+      this.offset = offset;
+    }
+
+    void record() {
+      if (recorded.compareAndSet(false, true)) {
+        stats.record(offset + rows);
+      }
+    }
+
+    @Override
+    public boolean isOpen() {
+      return cursor.isOpen();
+    }
+
+    @Override
+    public boolean isConsumed() {
+      return cursor.isConsumed();
+    }
+
+    @Override
+    public int getCurrentIndex() {
+      return cursor.getCurrentIndex();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        cursor.close();
+      } finally {
+        record();
+      }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      Iterator<T> iterator = cursor.iterator();
+      return new Iterator<T>() {
+        @Override
+        public boolean hasNext() {
+          boolean hasNext = iterator.hasNext();
+          if (!hasNext) {
+            record();
+          }
+          return hasNext;
+        }
+
+        @Override
+        public T next() {
+          T next = iterator.next();
+          rows++;
+          return next;
+        }
+      };
+    }
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.statement;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.MsCustomize;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+
+/**
+ * 给开启了 {@link AdaptiveFetchSize#ENABLED} 的查询方法注册统计信息，需要同时注册 {@link AdaptiveFetchSizeInterceptor} 插件设置 fetchSize 并记录返回的行数
+ * <p>
+ * 方法上通过 {@code @Options} 指定了 fetchSize 时不自动调整
+ *
+ * @author liuzh
+ */
+public class AdaptiveFetchSizeMsCustomize implements MsCustomize {
+
+  @Override
+  public void customize(EntityTable entity, MappedStatement ms, ProviderContext context) {
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT || !entity.getPropBoolean(AdaptiveFetchSize.ENABLED, false)) {
+      return;
+    }
+    Options options = context.getMapperMethod().getAnnotation(Options.class);
+    if (options != null && options.fetchSize() != -1) {
+      return;
+    }
+    int min = entity.getPropInt(AdaptiveFetchSize.MIN, 10);
+    AdaptiveFetchSize.Stats stats = new AdaptiveFetchSize.Stats(
+        min,
+        entity.getPropInt(AdaptiveFetchSize.MAX, 1000),
+        entity.getPropInt(AdaptiveFetchSize.PERCENTILE, 90),
+        entity.getPropInt(AdaptiveFetchSize.WINDOW, 1000),
+        ms.getFetchSize() != null ? ms.getFetchSize() : min);
+    AdaptiveFetchSize.register(ms, stats);
+  }
+
+}
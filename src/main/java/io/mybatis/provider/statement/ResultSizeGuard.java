@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.statement;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限制通用查询方法返回的行数，避免没有条件的查询把整张表读入内存
+ * <p>
+ * 开启了 {@link #MAX_ROWS} 的方法在创建 Statement 时设置 {@link Statement#setMaxRows(int)} 为上限加一，
+ * 数据库最多返回上限加一行，执行后根据返回的行数判断是否超出，不需要逐行检查。超出时：
+ * <ul>
+ *   <li>{@link Mode#FAIL}（默认）：抛出 {@link ResultSizeExceededException}</li>
+ *   <li>{@link Mode#TRUNCATE}：只返回上限数量的数据，并输出警告日志</li>
+ * </ul>
+ * 超出的次数可以通过 {@link #violations()} 获取。使用 {@link ResultHandler} 或 {@link Cursor}
+ * 的流式查询不受限制（包括通过 {@code selectCursor} 调用开启了限制的方法），需要读取大量数据时应当使用这两种方式。
+ * <p>
+ * 使用时需要注册插件，例如：
+ * <pre>
+ * &lt;plugins&gt;
+ *   &lt;plugin interceptor="io.mybatis.provider.statement.ResultSizeGuard"/&gt;
+ * &lt;/plugins&gt;
+ * </pre>
+ *
+ * @author liuzh
+ */
+@Intercepts({
+    @Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}),
+    @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "queryCursor", args = {MappedStatement.class, Object.class, RowBounds.class})
+})
+public class ResultSizeGuard implements Interceptor {
+  public static final Log    log      = LogFactory.getLog(ResultSizeGuard.class);
+  /**
+   * 查询方法最多返回的行数，可以通过 {@code @Entity.Table(props)} 或全局配置，默认 0 不限制
+   */
+  public static final String MAX_ROWS = "mybatis.provider.guard.maxRows";
+  /**
+   * 超出上限时的处理方式，可选值参考 {@link Mode}，默认 FAIL
+   */
+  public static final String MODE     = "mybatis.provider.guard.mode";
+
+  private static final Map<MappedStatement, Guard> GUARDS     = new ConcurrentHashMap<>();
+  private static final Map<String, AtomicLong>     VIOLATIONS = new ConcurrentHashMap<>();
+  /**
+   * 当前线程是否正在执行 Cursor 查询，Statement 在 queryCursor 方法中创建
+   */
+  private static final ThreadLocal<Boolean>        CURSOR     = new ThreadLocal<>();
+
+  /**
+   * 给方法设置限制
+   *
+   * @param ms    MappedStatement
+   * @param guard 限制，为 null 时取消限制
+   */
+  public static void register(MappedStatement ms, Guard guard) {
+    if (guard == null) {
+      GUARDS.remove(ms);
+    } else {
+      GUARDS.put(ms, guard);
+    }
+  }
+
+  /**
+   * 每个方法超出上限的次数，key 为 msId
+   */
+  public static Map<String, Long> violations() {
+    Map<String, Long> violations = new TreeMap<>();
+    VIOLATIONS.forEach((id, count) -> violations.put(id, count.get()));
+    return violations;
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    if (invocation.getTarget() instanceof StatementHandler) {
+      return prepare(invocation);
+    }
+    if ("queryCursor".equals(invocation.getMethod().getName())) {
+      Boolean cursor = CURSOR.get();
+      CURSOR.set(Boolean.TRUE);
+      try {
+        return invocation.proceed();
+      } finally {
+        if (cursor == null) {
+          CURSOR.remove();
+        }
+      }
+    }
+    Object[] args = invocation.getArgs();
+    MappedStatement ms = (MappedStatement) args[0];
+    Object result = invocation.proceed();
+    Guard guard = GUARDS.get(ms);
+    if (guard == null || !(result instanceof List) || ((RowBounds) args[2]).getLimit() <= guard.maxRows) {
+      return result;
+    }
+    List<?> list = (List<?>) result;
+    if (list.size() <= guard.maxRows) {
+      return result;
+    }
+    VIOLATIONS.computeIfAbsent(ms.getId(), id -> new AtomicLong()).incrementAndGet();
+    if (guard.mode == Mode.TRUNCATE) {
+      log.warn(ms.getId() + " returned more than " + guard.maxRows + " rows, the result is truncated");
+      //不能修改原集合，原集合可能已经放入一级缓存
+      return new ArrayList<>(list.subList(0, guard.maxRows));
+    }
+    throw new ResultSizeExceededException(ms.getId() + " returned more than " + guard.maxRows + " rows ("
+        + MAX_ROWS + "), add conditions or use a Cursor / ResultHandler to stream the result");
+  }
+
+  protected Object prepare(Invocation invocation) throws Throwable {
+    Statement statement = (Statement) invocation.proceed();
+    MetaObject metaObject = unwrap(invocation.getTarget());
+    //RoutingStatementHandler 中的 delegate
+    if (metaObject.hasGetter("delegate")) {
+      metaObject = unwrap(metaObject.getValue("delegate"));
+    }
+    Guard guard = GUARDS.get((MappedStatement) metaObject.getValue("mappedStatement"));
+    //Cursor 逐行读取，不能限制数据库返回的行数，否则会在上限处静默结束
+    if (guard == null || CURSOR.get() != null || unwrap(metaObject.getValue("resultSetHandler")).getValue("resultHandler") != null) {
+      return statement;
+    }
+    RowBounds rowBounds = (RowBounds) metaObject.getValue("rowBounds");
+    if (rowBounds.getLimit() <= guard.maxRows) {
+      return statement;
+    }
+    //RowBounds 跳过的行也会从数据库读取
+    long maxRows = (long) rowBounds.getOffset() + guard.maxRows + 1;
+    if (maxRows < Integer.MAX_VALUE && (statement.getMaxRows() == 0 || statement.getMaxRows() > maxRows)) {
+      statement.setMaxRows((int) maxRows);
+    }
+    return statement;
+  }
+
+  /**
+   * 获取被其他插件代理的原始对象
+   */
+  private static MetaObject unwrap(Object target) {
+    while (Proxy.isProxyClass(target.getClass())) {
+      InvocationHandler handler = Proxy.getInvocationHandler(target);
+      if (!(handler instanceof Plugin)) {
+        break;
+      }
+      target = SystemMetaObject.forObject(handler).getValue("target");
+    }
+    return SystemMetaObject.forObject(target);
+  }
+
+  /**
+   * 超出上限时的处理方式
+   */
+  public enum Mode {
+    /**
+     * 抛出异常
+     */
+    FAIL,
+    /**
+     * 只返回上限数量的数据
+     */
+    TRUNCATE
+  }
+
+  /**
+   * 方法的限制
+   */
+  public static class Guard {
+    private final int  maxRows;
+    private final Mode mode;
+
+    public Guard(int maxRows, Mode mode) {
+      if (maxRows < 1) {
+        throw new IllegalArgumentException("maxRows must be greater than 0");
+      }
+      this.maxRows = maxRows;
+      this.mode = mode;
+    }
+
+    public int getMaxRows() {
+      return maxRows;
+    }
+
+    public Mode getMode() {
+      return mode;
+    }
+  }
+
+  /**
+   * 查询结果超出上限
+   */
+  public static class ResultSizeExceededException extends RuntimeException {
+    public ResultSizeExceededException(String message) {
+      super(message);
+    }
+  }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.statement;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.MsCustomize;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+
+import java.util.Locale;
+
+/**
+ * 给配置了 {@link ResultSizeGuard#MAX_ROWS} 的查询方法设置行数限制，需要同时注册 {@link ResultSizeGuard} 插件，
+ * 返回 {@link Cursor} 的方法不限制
+ *
+ * @author liuzh
+ */
+public class ResultSizeGuardMsCustomize implements MsCustomize {
+
+  @Override
+  public void customize(EntityTable entity, MappedStatement ms, ProviderContext context) {
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT
+        || Cursor.class.isAssignableFrom(context.getMapperMethod().getReturnType())) {
+      return;
+    }
+    int maxRows = entity.getPropInt(ResultSizeGuard.MAX_ROWS, 0);
+    if (maxRows <= 0) {
+      return;
+    }
+    ResultSizeGuard.Mode mode = ResultSizeGuard.Mode.valueOf(
+        entity.getProp(ResultSizeGuard.MODE, ResultSizeGuard.Mode.FAIL.name()).trim().toUpperCase(Locale.ENGLISH));
+    ResultSizeGuard.register(ms, new ResultSizeGuard.Guard(maxRows, mode));
+  }
+
+}
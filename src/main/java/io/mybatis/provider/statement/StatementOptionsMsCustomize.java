@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.statement;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.MsCustomize;
+import io.mybatis.provider.util.Utils;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.MetaObject;
+
+import java.util.Locale;
+
+/**
+ * 根据实体配置设置通用方法的 fetchSize、resultSetType 和 timeout
+ * <p>
+ * 可以通过 {@code @Entity.Table(props)} 或全局配置，方法上的 {@code @Options} 中设置的值优先。
+ * fetchSize 和 resultSetType 只对查询方法有效，timeout 对所有方法有效。
+ * <p>
+ * 配合返回 {@link org.apache.ibatis.cursor.Cursor} 的通用查询方法，可以在有限的内存中逐行读取大量数据，例如：
+ * <pre>
+ * &#64;Lang(Caching.class)
+ * &#64;SelectProvider(type = XxxProvider.class, method = "selectAll")
+ * Cursor&lt;User&gt; selectAllCursor();
+ * </pre>
+ * MySQL 需要配置 fetchSize={@link Integer#MIN_VALUE} 和 resultSetType=FORWARD_ONLY 才会流式读取，
+ * PostgreSQL 需要在事务中（非自动提交）配置 fetchSize。
+ *
+ * @author liuzh
+ */
+public class StatementOptionsMsCustomize implements MsCustomize {
+  /**
+   * 查询方法每次读取的行数
+   */
+  public static final String FETCH_SIZE      = "mybatis.provider.statement.fetchSize";
+  /**
+   * 查询方法的结果集类型，可选值参考 {@link ResultSetType}
+   */
+  public static final String RESULT_SET_TYPE = "mybatis.provider.statement.resultSetType";
+  /**
+   * 执行超时时间（秒）
+   */
+  public static final String TIMEOUT         = "mybatis.provider.statement.timeout";
+
+  @Override
+  public void customize(EntityTable entity, MappedStatement ms, ProviderContext context) {
+    Options options = context.getMapperMethod().getAnnotation(Options.class);
+    MetaObject metaObject = ms.getConfiguration().newMetaObject(ms);
+    if (ms.getSqlCommandType() == SqlCommandType.SELECT) {
+      String fetchSize = entity.getProp(FETCH_SIZE);
+      if (Utils.isNotEmpty(fetchSize) && ms.getFetchSize() == null) {
+        metaObject.setValue("fetchSize", Integer.parseInt(fetchSize.trim()));
+      }
+      String resultSetType = entity.getProp(RESULT_SET_TYPE);
+      if (Utils.isNotEmpty(resultSetType) && (options == null || options.resultSetType() == ResultSetType.DEFAULT)) {
+        metaObject.setValue("resultSetType", ResultSetType.valueOf(resultSetType.trim().toUpperCase(Locale.ENGLISH)));
+      }
+    }
+    String timeout = entity.getProp(TIMEOUT);
+    if (Utils.isNotEmpty(timeout) && (options == null || options.timeout() == -1)) {
+      metaObject.setValue("timeout", Integer.parseInt(timeout.trim()));
+    }
+  }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.table;
+
+import io.mybatis.provider.mapping.EntityParameterBinder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 执行时根据参数把 SQL 中的逻辑表名替换为实际表名
+ * <p>
+ * 只替换表的位置（{@code FROM}、{@code JOIN}、{@code INTO}、{@code UPDATE}、{@code TABLE}、{@code USING} 之后）出现的逻辑表名，
+ * 和表名相同的列名、别名或字符串常量不会被替换，SQL 中不能使用 {@code 表名.列名} 的形式引用列。
+ * <p>
+ * 每个实际表名缓存一份替换后的 SQL，静态 SQL 每次生成的 SQL 是同一个字符串，命中缓存时只需要一次 map 查找。
+ * 动态 SQL 每次生成的 SQL 不同，按 SQL 内容缓存最近使用的 {@link Variant#MAX_SHAPES} 种形式，相同形式不会重复替换。
+ * 按实际表名缓存使用的 map 由调用方提供，可以根据需要限制容量。
+ *
+ * @author liuzh
+ */
+public class TableVariantSqlSource implements SqlSource {
+  private final SqlSource                sqlSource;
+  private final Configuration            configuration;
+  private final String                   tableName;
+  private final Pattern                  pattern;
+  private final Function<Object, String> router;
+  private final Map<String, Variant>     variants;
+
+  /**
+   * @param sqlSource     原 SqlSource
+   * @param configuration MyBatis 配置
+   * @param tableName     逻辑表名，通常为 {@link io.mybatis.provider.EntityTable#tableName()}
+   * @param router        根据参数计算实际表名，返回 null 或逻辑表名时使用原 SQL
+   * @param variants      缓存每个实际表名对应的 SQL
+   */
+  public TableVariantSqlSource(SqlSource sqlSource, Configuration configuration, String tableName,
+                               Function<Object, String> router, Map<String, Variant> variants) {
+    this.sqlSource = sqlSource;
+    this.configuration = configuration;
+    this.tableName = tableName;
+    this.pattern = Pattern.compile("(?i)(\\b(?:FROM|JOIN|INTO|UPDATE|TABLE|USING)\\s+)" + Pattern.quote(tableName) + "(?![\\w$.])");
+    this.router = router;
+    this.variants = variants;
+  }
+
+  /**
+   * 把 SQL 中表的位置出现的逻辑表名替换为实际表名，不会替换作为其他标识符一部分的表名
+   *
+   * @param sql   SQL
+   * @param table 实际表名
+   * @return 替换后的 SQL
+   */
+  public String replace(String sql, String table) {
+    return pattern.matcher(sql).replaceAll("$1" + Matcher.quoteReplacement(table));
+  }
+
+  @Override
+  public BoundSql getBoundSql(Object parameterObject) {
+    String table = router.apply(parameterObject);
+    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    if (table == null || table.equals(tableName)) {
+      return boundSql;
+    }
+    String sql = boundSql.getSql();
+    Variant variant = variants.get(table);
+    if (variant == null) {
+      variant = new Variant(sql, replace(sql, table));
+      variants.put(table, variant);
+      return copy(boundSql, variant.sql);
+    }
+    if (variant.source == sql) {
+      return copy(boundSql, variant.sql);
+    }
+    return copy(boundSql, variant.shape(sql, source -> replace(source, table)));
+  }
+
+  /**
+   * 复制 BoundSql 并使用新的 SQL，保留参数映射、附加参数和预编译的参数绑定
+   */
+  protected BoundSql copy(BoundSql boundSql, String sql) {
+    BoundSql copy;
+    if (boundSql instanceof EntityParameterBinder.CompiledBoundSql) {
+      copy = new EntityParameterBinder.CompiledBoundSql(configuration, sql, boundSql.getParameterMappings(),
+          boundSql.getParameterObject(), ((EntityParameterBinder.CompiledBoundSql) boundSql).getBinder());
+    } else {
+      copy = new BoundSql(configuration, sql, boundSql.getParameterMappings(), boundSql.getParameterObject());
+    }
+    boundSql.getAdditionalParameters().forEach(copy::setAdditionalParameter);
+    return copy;
+  }
+
+  /**
+   * 实际表名对应的 SQL，{@link #source} 为替换前的 SQL，同一个字符串时直接使用 {@link #sql}，
+   * 动态 SQL 的其他形式按内容缓存在 {@link #shapes} 中
+   */
+  public static class Variant {
+    /**
+     * 每个实际表名缓存的动态 SQL 形式个数
+     */
+    public static final int MAX_SHAPES = 64;
+
+    final String              source;
+    final String              sql;
+    final Map<String, String> shapes = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > MAX_SHAPES;
+      }
+    });
+
+    Variant(String source, String sql) {
+      this.source = source;
+      this.sql = sql;
+    }
+
+    String shape(String source, Function<String, String> replace) {
+      if (source.equals(this.source)) {
+        return sql;
+      }
+      String target = shapes.get(source);
+      if (target == null) {
+        target = replace.apply(source);
+        shapes.put(source, target);
+      }
+      return target;
+    }
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.tenant;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前租户的 schema
+ * <p>
+ * 默认从当前线程中获取，可以通过 {@link #setSupplier(Supplier)} 改为从其他上下文中获取，例如 Web 请求或协程上下文。
+ * 返回 null 时使用实体配置的 schema。
+ *
+ * @author liuzh
+ */
+public class TenantContext {
+  private static final ThreadLocal<String> SCHEMA   = new ThreadLocal<>();
+  private static volatile Supplier<String> supplier = SCHEMA::get;
+
+  /**
+   * 获取当前租户的 schema
+   */
+  public static String getSchema() {
+    return supplier.get();
+  }
+
+  /**
+   * 设置当前线程的租户 schema，使用后需要调用 {@link #clear()}
+   */
+  public static void setSchema(String schema) {
+    SCHEMA.set(schema);
+  }
+
+  /**
+   * 清除当前线程的租户 schema
+   */
+  public static void clear() {
+    SCHEMA.remove();
+  }
+
+  /**
+   * 使用指定的租户 schema 执行操作，执行完成后恢复原来的值
+   *
+   * @param schema 租户 schema
+   * @param action 操作
+   * @return 操作的返回值
+   */
+  public static <T> T call(String schema, Supplier<T> action) {
+    String previous = SCHEMA.get();
+    SCHEMA.set(schema);
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        SCHEMA.remove();
+      } else {
+        SCHEMA.set(previous);
+      }
+    }
+  }
+
+  /**
+   * 设置获取租户 schema 的方式
+   *
+   * @param supplier 为 null 时恢复为从当前线程获取
+   */
+  public static void setSupplier(Supplier<String> supplier) {
+    TenantContext.supplier = supplier != null ? supplier : SCHEMA::get;
+  }
+
+}
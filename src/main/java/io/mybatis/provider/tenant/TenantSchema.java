@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.tenant;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.table.TableVariantSqlSource;
+import io.mybatis.provider.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 按租户切换 schema（schema-per-tenant）
+ * <p>
+ * 实体通过 {@code @Entity.Table(props)} 或全局配置 {@link #ENABLED}=true 后，执行时使用 {@link TenantContext#getSchema()}
+ * 替换 {@link EntityTable#tableName()} 中的 schema，仍然使用 {@code #{}} 参数和预编译语句。
+ * 每个方法按租户缓存替换后的 SQL，缓存为容量 {@link #CACHE_SIZE} 的 LRU，通过 {@link #stats()} 可以获取每个方法的命中情况。
+ *
+ * @author liuzh
+ */
+public class TenantSchema {
+  /**
+   * 是否按租户切换 schema，默认 false
+   */
+  public static final String ENABLED    = "mybatis.provider.tenant.schema";
+  /**
+   * 每个方法缓存的租户个数，默认 256
+   */
+  public static final String CACHE_SIZE = "mybatis.provider.tenant.cacheSize";
+
+  /**
+   * 租户 schema 会直接拼接到 SQL 中，只允许合法的标识符
+   */
+  private static final Pattern               SCHEMA   = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+  private static final Map<String, Variants> VARIANTS = new ConcurrentHashMap<>();
+
+  /**
+   * 获取方法对应的租户 SQL 缓存
+   *
+   * @param msId    方法 id
+   * @param maxSize 最大租户个数
+   * @return 缓存
+   */
+  public static Variants variants(String msId, int maxSize) {
+    return VARIANTS.computeIfAbsent(msId, id -> new Variants(maxSize));
+  }
+
+  /**
+   * 当前租户对应的表名
+   *
+   * @param entity 实体类信息
+   * @return 没有租户时返回 null
+   */
+  public static String tableName(EntityTable entity) {
+    String schema = TenantContext.getSchema();
+    if (schema == null || schema.isEmpty()) {
+      return null;
+    }
+    Assert.isTrue(SCHEMA.matcher(schema).matches(), "Invalid tenant schema: " + schema);
+    return Stream.of(entity.catalog(), schema, entity.table())
+        .filter(s -> s != null && !s.isEmpty())
+        .collect(Collectors.joining("."));
+  }
+
+  /**
+   * 所有方法的统计信息，key 为 msId
+   */
+  public static Map<String, Variants> stats() {
+    return new TreeMap<>(VARIANTS);
+  }
+
+  /**
+   * 按访问顺序淘汰的租户 SQL 缓存，记录命中、未命中和淘汰次数
+   */
+  public static class Variants extends LinkedHashMap<String, TableVariantSqlSource.Variant> {
+    private final int       maxSize;
+    private final LongAdder hits      = new LongAdder();
+    private final LongAdder misses    = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public Variants(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public synchronized TableVariantSqlSource.Variant get(Object key) {
+      TableVariantSqlSource.Variant variant = super.get(key);
+      if (variant != null) {
+        hits.increment();
+      } else {
+        misses.increment();
+      }
+      return variant;
+    }
+
+    @Override
+    public synchronized TableVariantSqlSource.Variant put(String key, TableVariantSqlSource.Variant value) {
+      return super.put(key, value);
+    }
+
+    @Override
+    public synchronized int size() {
+      return super.size();
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, TableVariantSqlSource.Variant> eldest) {
+      if (size() > maxSize) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * 命中次数
+     */
+    public long getHits() {
+      return hits.sum();
+    }
+
+    /**
+     * 未命中次数，每次未命中都会生成一次当前租户的 SQL
+     */
+    public long getMisses() {
+      return misses.sum();
+    }
+
+    /**
+     * 淘汰次数
+     */
+    public long getEvictions() {
+      return evictions.sum();
+    }
+
+    public int getMaxSize() {
+      return maxSize;
+    }
+  }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.tenant;
+
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlSourceCustomize;
+import io.mybatis.provider.shard.Sharding;
+import io.mybatis.provider.table.TableVariantSqlSource;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 开启了 {@link TenantSchema#ENABLED} 的实体，使用 {@link TableVariantSqlSource} 把表名替换为当前租户 schema 下的表名
+ * <p>
+ * 实体同时配置了分表时，先得到租户下的表名（没有租户时为逻辑表名），再按分片键分表，例如 {@code tenant_a.order_07}，
+ * 每个租户的每个实际表各缓存一份 SQL
+ *
+ * @author liuzh
+ */
+public class TenantSchemaSqlSourceCustomize implements SqlSourceCustomize {
+
+  @Override
+  public SqlSource customize(SqlSource sqlSource, EntityTable entity, MappedStatement ms, ProviderContext context) {
+    if (!entity.getPropBoolean(TenantSchema.ENABLED, false)) {
+      return sqlSource;
+    }
+    Optional<Sharding> sharding = Sharding.of(entity);
+    Function<Object, String> router;
+    if (sharding.isPresent()) {
+      router = parameterObject -> {
+        String tableName = TenantSchema.tableName(entity);
+        return sharding.get().tableName(parameterObject, tableName != null ? tableName : entity.tableName());
+      };
+    } else {
+      router = parameterObject -> TenantSchema.tableName(entity);
+    }
+    return new TableVariantSqlSource(sqlSource, ms.getConfiguration(), entity.tableName(),
+        router, TenantSchema.variants(ms.getId(), entity.getPropInt(TenantSchema.CACHE_SIZE, 256)));
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.upsert;
+
+import io.mybatis.provider.SqlScript;
+import org.apache.ibatis.builder.annotation.ProviderContext;
+
+/**
+ * 存在时更新，不存在时插入，不同数据库的写法参考 {@link UpsertSql}
+ * <p>
+ * 使用方式：
+ * <pre>
+ * &#64;Lang(Caching.class)
+ * &#64;InsertProvider(type = UpsertProvider.class, method = "upsert")
+ * int upsert(User user);
+ *
+ * &#64;Lang(Caching.class)
+ * &#64;InsertProvider(type = UpsertProvider.class, method = "upsertList")
+ * int upsertList(&#64;Param("list") List&lt;User&gt; list);
+ * </pre>
+ * 批量时所有数据在一条 SQL 中执行，超出数据库参数个数限制时可以配合 {@link io.mybatis.provider.batch.ChunkingInterceptor} 自动拆分
+ *
+ * @author liuzh
+ */
+public class UpsertProvider {
+
+  /**
+   * 保存一条数据
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String upsert(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) -> UpsertSql.upsert(entity, util, null));
+  }
+
+  /**
+   * 批量保存数据
+   *
+   * @param providerContext 执行方法上下文
+   * @return cacheKey
+   */
+  public static String upsertList(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) -> UpsertSql.upsert(entity, util, "list"));
+  }
+
+}
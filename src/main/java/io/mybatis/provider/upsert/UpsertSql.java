@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.upsert;
+
+import io.mybatis.config.ConfigHelper;
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.SqlScript;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 根据主键列、insert 列和 update 列生成 upsert（存在时更新，不存在时插入）语句
+ * <p>
+ * 根据 {@code _databaseId}（即 {@link org.apache.ibatis.session.Configuration#getDatabaseId()}）选择写法：
+ * <ul>
+ *   <li>{@link #MYSQL_DATABASE_IDS}（默认 mysql,mariadb）：{@code INSERT ... ON DUPLICATE KEY UPDATE}</li>
+ *   <li>{@link #POSTGRESQL_DATABASE_IDS}（默认 postgresql,sqlite）：{@code INSERT ... ON CONFLICT (id) DO UPDATE}</li>
+ *   <li>{@link #ORACLE_DATABASE_IDS}（默认 oracle）：{@code MERGE ... USING (SELECT ... FROM DUAL)}</li>
+ *   <li>{@link #SQLSERVER_DATABASE_IDS}（默认 sqlserver）：以分号结尾的 {@code MERGE ... USING (VALUES ...)}</li>
+ *   <li>其他数据库（如 hsqldb, h2）：标准的 {@code MERGE ... USING (VALUES ...)}</li>
+ * </ul>
+ * 主键列需要是 insert 列，主键列不会被更新
+ *
+ * @author liuzh
+ */
+public class UpsertSql {
+  /**
+   * 使用 {@code ON DUPLICATE KEY UPDATE} 的 databaseId，逗号分隔
+   */
+  public static final String MYSQL_DATABASE_IDS      = "mybatis.provider.upsert.mysqlDatabaseIds";
+  /**
+   * 使用 {@code ON CONFLICT DO UPDATE} 的 databaseId，逗号分隔
+   */
+  public static final String POSTGRESQL_DATABASE_IDS = "mybatis.provider.upsert.postgresqlDatabaseIds";
+  /**
+   * 使用 {@code SELECT ... FROM DUAL} 作为 MERGE 数据源的 databaseId，逗号分隔
+   */
+  public static final String ORACLE_DATABASE_IDS     = "mybatis.provider.upsert.oracleDatabaseIds";
+  /**
+   * MERGE 语句需要以分号结尾的 databaseId，逗号分隔
+   */
+  public static final String SQLSERVER_DATABASE_IDS  = "mybatis.provider.upsert.sqlserverDatabaseIds";
+
+  /**
+   * 生成 upsert 语句
+   *
+   * @param entity     实体类信息
+   * @param util       sql 辅助工具
+   * @param collection 批量时的集合参数名，为 null 时参数为单个实体
+   * @return choose 标签包装的 xml 结构
+   */
+  public static String upsert(EntityTable entity, SqlScript util, String collection) {
+    String mysql = SqlScript.databaseIdTest(ConfigHelper.getStr(MYSQL_DATABASE_IDS, "mysql,mariadb"));
+    String postgresql = SqlScript.databaseIdTest(ConfigHelper.getStr(POSTGRESQL_DATABASE_IDS, "postgresql,sqlite"));
+    String oracle = SqlScript.databaseIdTest(ConfigHelper.getStr(ORACLE_DATABASE_IDS, "oracle"));
+    String sqlserver = SqlScript.databaseIdTest(ConfigHelper.getStr(SQLSERVER_DATABASE_IDS, "sqlserver"));
+    return util.choose(() ->
+        (mysql.isEmpty() ? "" : util.whenTest(mysql, () -> mysql(entity, util, collection)))
+            + (postgresql.isEmpty() ? "" : util.whenTest(postgresql, () -> postgresql(entity, util, collection)))
+            + (oracle.isEmpty() ? "" : util.whenTest(oracle, () -> oracle(entity, util, collection)))
+            + (sqlserver.isEmpty() ? "" : util.whenTest(sqlserver, () -> merge(entity, util, collection) + ";"))
+            + util.otherwise(() -> merge(entity, util, collection)));
+  }
+
+  /**
+   * {@code INSERT ... ON DUPLICATE KEY UPDATE}
+   */
+  public static String mysql(EntityTable entity, SqlScript util, String collection) {
+    List<EntityColumn> columns = updateColumns(entity);
+    return insertValues(entity, util, collection) + " ON DUPLICATE KEY UPDATE "
+        + (columns.isEmpty() ? entity.idColumns().get(0).column() + " = " + entity.idColumns().get(0).column()
+        : columns.stream().map(column -> column.column() + " = VALUES(" + column.column() + ")").collect(Collectors.joining(",")));
+  }
+
+  /**
+   * {@code INSERT ... ON CONFLICT (id) DO UPDATE}
+   */
+  public static String postgresql(EntityTable entity, SqlScript util, String collection) {
+    List<EntityColumn> columns = updateColumns(entity);
+    return insertValues(entity, util, collection)
+        + " ON CONFLICT (" + entity.idColumns().stream().map(EntityColumn::column).collect(Collectors.joining(",")) + ")"
+        + (columns.isEmpty() ? " DO NOTHING" : " DO UPDATE SET "
+        + columns.stream().map(column -> column.column() + " = EXCLUDED." + column.column()).collect(Collectors.joining(",")));
+  }
+
+  /**
+   * {@code MERGE ... USING (VALUES ...) AS S(...)}
+   */
+  public static String merge(EntityTable entity, SqlScript util, String collection) {
+    String source = "(VALUES " + rows(entity, util, collection) + ") AS S("
+        + entity.insertColumnList() + ")";
+    return merge(entity, source);
+  }
+
+  /**
+   * {@code MERGE ... USING (SELECT ... FROM DUAL UNION ALL ...) S}
+   */
+  public static String oracle(EntityTable entity, SqlScript util, String collection) {
+    String prefix = collection != null ? "entity." : "";
+    String select = "SELECT " + entity.insertColumns().stream()
+        .map(column -> column.variables(prefix) + " " + column.column()).collect(Collectors.joining(",")) + " FROM DUAL";
+    String source = "(" + (collection != null ? util.foreach(collection, "entity", " UNION ALL ", () -> select) : select) + ") S";
+    return merge(entity, source);
+  }
+
+  protected static String merge(EntityTable entity, String source) {
+    List<EntityColumn> columns = updateColumns(entity);
+    return "MERGE INTO " + entity.tableName() + " T USING " + source + " ON ("
+        + entity.idColumns().stream().map(column -> "T." + column.column() + " = S." + column.column()).collect(Collectors.joining(" AND "))
+        + ")" + (columns.isEmpty() ? "" : " WHEN MATCHED THEN UPDATE SET "
+        + columns.stream().map(column -> column.column() + " = S." + column.column()).collect(Collectors.joining(",")))
+        + " WHEN NOT MATCHED THEN INSERT (" + entity.insertColumnList() + ") VALUES ("
+        + entity.insertColumns().stream().map(column -> "S." + column.column()).collect(Collectors.joining(",")) + ")";
+  }
+
+  protected static String insertValues(EntityTable entity, SqlScript util, String collection) {
+    return "INSERT INTO " + entity.tableName() + "(" + entity.insertColumnList() + ") VALUES "
+        + rows(entity, util, collection);
+  }
+
+  /**
+   * 生成一行或者 foreach 多行的值
+   */
+  protected static String rows(EntityTable entity, SqlScript util, String collection) {
+    String prefix = collection != null ? "entity." : "";
+    String row = "(" + entity.insertColumns().stream().map(column -> column.variables(prefix)).collect(Collectors.joining(",")) + ")";
+    return collection != null ? util.foreach(collection, "entity", ",", () -> row) : row;
+  }
+
+  /**
+   * 需要更新的列，排除主键
+   */
+  protected static List<EntityColumn> updateColumns(EntityTable entity) {
+    return entity.updateColumns().stream().filter(column -> !column.id()).collect(Collectors.toList());
+  }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mybatis.provider.util;
+
+import io.mybatis.config.ConfigHelper;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * IN 列表补齐工具，把集合的长度补齐到固定的档位，重复的部分使用最后一个值填充
+ * <p>
+ * 不同长度的集合生成的 SQL 不同，会占用驱动和数据库中大量的语句缓存和执行计划缓存，补齐后同一个方法的 SQL 种类是有限的。
+ * 档位默认为 2 的幂（1,2,4,8...），可以通过 {@link #LADDER} 全局配置（如 {@code 10,50,100,500}），
+ * 超过最大档位时按最大档位的整数倍补齐。
+ * <p>
+ * 重复的值对 IN 的结果没有影响，只能用于 IN 这类集合语义的条件，不能用于批量插入等逐项处理的场景。
+ *
+ * @author liuzh
+ */
+public class Padding {
+  /**
+   * 全局的补齐档位，逗号分隔的递增整数，默认为 2 的幂
+   */
+  public static final String               LADDER         = "mybatis.provider.foreach.padding";
+  /**
+   * 解析过的档位
+   */
+  private static final Map<String, int[]>  LADDERS        = new ConcurrentHashMap<>();
+  /**
+   * 全局配置的档位，没有配置时为 null
+   */
+  private static final int[]               DEFAULT_LADDER = parse(ConfigHelper.getStr(LADDER));
+
+  /**
+   * 按全局配置的档位补齐
+   *
+   * @param collection 集合或数组
+   * @return 补齐后的集合，不是集合或数组时返回原对象
+   */
+  public static Object pad(Object collection) {
+    return pad(collection, DEFAULT_LADDER);
+  }
+
+  /**
+   * 按指定的档位补齐
+   *
+   * @param collection 集合或数组
+   * @param ladder     逗号分隔的递增整数，为空时使用 2 的幂
+   * @return 补齐后的集合，不是集合或数组时返回原对象
+   */
+  public static Object pad(Object collection, String ladder) {
+    return pad(collection, Utils.isBlank(ladder) ? null : LADDERS.computeIfAbsent(ladder, Padding::parse));
+  }
+
+  protected static Object pad(Object collection, int[] ladder) {
+    int size;
+    if (collection instanceof Collection) {
+      size = ((Collection<?>) collection).size();
+    } else if (collection != null && collection.getClass().isArray()) {
+      size = Array.getLength(collection);
+    } else {
+      return collection;
+    }
+    int padded = paddedSize(size, ladder);
+    if (padded == size) {
+      return collection;
+    }
+    List<Object> list = new ArrayList<>(padded);
+    if (collection instanceof Collection) {
+      list.addAll((Collection<?>) collection);
+    } else {
+      for (int i = 0; i < size; i++) {
+        list.add(Array.get(collection, i));
+      }
+    }
+    Object last = list.get(size - 1);
+    while (list.size() < padded) {
+      list.add(last);
+    }
+    return list;
+  }
+
+  /**
+   * 计算补齐后的长度
+   *
+   * @param size   原长度
+   * @param ladder 档位，为 null 时使用 2 的幂
+   * @return 补齐后的长度，原长度为 0 时返回 0
+   */
+  public static int paddedSize(int size, int[] ladder) {
+    if (size <= 1) {
+      return size;
+    }
+    if (ladder == null) {
+      int highest = Integer.highestOneBit(size);
+      return highest == size || highest == 1 << 30 ? size : highest << 1;
+    }
+    for (int step : ladder) {
+      if (size <= step) {
+        return step;
+      }
+    }
+    int max = ladder[ladder.length - 1];
+    return (size + max - 1) / max * max;
+  }
+
+  /**
+   * 解析档位配置
+   *
+   * @param ladder 逗号分隔的递增整数
+   * @return 档位，配置为空时返回 null
+   */
+  protected static int[] parse(String ladder) {
+    if (Utils.isBlank(ladder)) {
+      return null;
+    }
+    int[] steps = Arrays.stream(ladder.split(",")).map(String::trim).filter(Utils::isNotEmpty)
+        .mapToInt(Integer::parseInt).toArray();
+    for (int i = 0; i < steps.length; i++) {
+      if (steps[i] <= 0 || (i > 0 && steps[i] <= steps[i - 1])) {
+        throw new IllegalArgumentException(LADDER + " must be increasing positive integers: " + ladder);
+      }
+    }
+    return steps.length > 0 ? steps : null;
+  }
+
+}
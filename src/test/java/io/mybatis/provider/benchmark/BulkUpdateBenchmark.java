@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.benchmark;
+
+import io.mybatis.provider.mapper.UserMapper;
+import io.mybatis.provider.model.User;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 {@link io.mybatis.provider.batch.BulkUpdateProvider} 和 JDBC 批量执行 updateById 的速度，结果为每秒更新的行数
+ * <p>
+ * 运行方式：执行 {@code mvn test-compile} 后运行当前类的 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(BulkUpdateBenchmark.ROWS)
+public class BulkUpdateBenchmark {
+  public static final int ROWS  = 5000;
+  /**
+   * 单条 SQL 的行数，和配置 ChunkingInterceptor 拆分的效果一致
+   */
+  public static final int CHUNK = 100;
+
+  private SqlSessionFactory sqlSessionFactory;
+  private List<User>        users;
+  private int               version;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(BulkUpdateBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    Resources.setCharset(StandardCharsets.UTF_8);
+    try (Reader reader = Resources.getResourceAsReader("mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Connection conn = sqlSession.getConnection();
+      try (Reader reader = Resources.getResourceAsReader("testdb.sql")) {
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+      }
+      try (PreparedStatement ps = conn.prepareStatement("insert into user(id, name, sex, address) values (?, ?, ?, ?)")) {
+        for (int i = 6; i <= ROWS; i++) {
+          ps.setLong(1, i);
+          ps.setString(2, "name" + i);
+          ps.setString(3, i % 2 == 0 ? "男" : "女");
+          ps.setString(4, "city" + i + ",street" + i);
+          ps.addBatch();
+        }
+        ps.executeBatch();
+      }
+      sqlSession.commit();
+    }
+    users = new ArrayList<>(ROWS);
+    for (long i = 1; i <= ROWS; i++) {
+      User user = new User();
+      user.setId(i);
+      user.setSex(i % 2 == 0 ? "男" : "女");
+      user.setAddress(Arrays.asList("city" + i, "street" + i));
+      users.add(user);
+    }
+  }
+
+  /**
+   * 每次执行都修改数据，避免数据库跳过没有变化的行
+   */
+  private void change() {
+    version++;
+    for (User user : users) {
+      user.setUsername("name" + user.getId() + "-" + version);
+    }
+  }
+
+  @Benchmark
+  public int bulkUpdate() {
+    change();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      int count = 0;
+      for (int i = 0; i < ROWS; i += CHUNK) {
+        count += userMapper.updateList(users.subList(i, Math.min(i + CHUNK, ROWS)));
+      }
+      sqlSession.commit();
+      return count;
+    }
+  }
+
+  @Benchmark
+  public int jdbcBatch() {
+    change();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      for (User user : users) {
+        userMapper.updateById(user);
+      }
+      sqlSession.flushStatements();
+      sqlSession.commit();
+      return ROWS;
+    }
+  }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.benchmark;
+
+import io.mybatis.provider.Caching;
+import io.mybatis.provider.Entity;
+import io.mybatis.provider.mapper.BaseProvider;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.ibatis.annotations.InsertProvider;
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 {@link io.mybatis.provider.mapping.EntityParameterBinder} 和 MyBatis 默认的 {@link DefaultParameterHandler}
+ * 绑定 30 列实体插入参数的速度，结果为每秒绑定的行数，包含获取 BoundSql、创建 ParameterHandler 和设置参数，不执行 SQL
+ * <p>
+ * 运行方式：执行 {@code mvn test-compile} 后运行当前类的 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParameterBinderBenchmark {
+
+  private SqlSession        sqlSession;
+  private MappedStatement   ms;
+  private PreparedStatement ps;
+  private WideRow           row;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ParameterBinderBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    Resources.setCharset(StandardCharsets.UTF_8);
+    SqlSessionFactory sqlSessionFactory;
+    try (Reader reader = Resources.getResourceAsReader("mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addMapper(WideRowMapper.class);
+    sqlSession = sqlSessionFactory.openSession();
+    Connection conn = sqlSession.getConnection();
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute("drop table wide_row if exists");
+      stmt.execute("create table wide_row (c01 VARCHAR(32), c02 INTEGER, c03 BIGINT, c04 VARCHAR(32), c05 INTEGER, c06 BIGINT, c07 VARCHAR(32), c08 INTEGER, c09 BIGINT, c10 VARCHAR(32), c11 INTEGER, c12 BIGINT, c13 VARCHAR(32), c14 INTEGER, c15 BIGINT, c16 VARCHAR(32), c17 INTEGER, c18 BIGINT, c19 VARCHAR(32), c20 INTEGER, c21 BIGINT, c22 VARCHAR(32), c23 INTEGER, c24 BIGINT, c25 VARCHAR(32), c26 INTEGER, c27 BIGINT, c28 VARCHAR(32), c29 INTEGER, c30 BIGINT)");
+    }
+    row = new WideRow();
+    row.setC01("value1");
+    row.setC02(2);
+    row.setC03(3L);
+    row.setC04("value4");
+    row.setC05(5);
+    row.setC06(6L);
+    row.setC07("value7");
+    row.setC08(8);
+    row.setC09(9L);
+    row.setC10("value10");
+    row.setC11(11);
+    row.setC12(12L);
+    row.setC13("value13");
+    row.setC14(14);
+    row.setC15(15L);
+    row.setC16("value16");
+    row.setC17(17);
+    row.setC18(18L);
+    row.setC19("value19");
+    row.setC20(20);
+    row.setC21(21L);
+    row.setC22("value22");
+    row.setC23(23);
+    row.setC24(24L);
+    row.setC25("value25");
+    row.setC26(26);
+    row.setC27(27L);
+    row.setC28("value28");
+    row.setC29(29);
+    row.setC30(30L);
+    ms = sqlSession.getConfiguration().getMappedStatement(WideRowMapper.class.getName() + ".insert");
+    //第一次获取时初始化
+    ps = conn.prepareStatement(ms.getBoundSql(row).getSql());
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    ps.close();
+    sqlSession.close();
+  }
+
+  @Benchmark
+  public PreparedStatement compiled() throws SQLException {
+    BoundSql boundSql = ms.getBoundSql(row);
+    ParameterHandler handler = ms.getLang().createParameterHandler(ms, row, boundSql);
+    handler.setParameters(ps);
+    return ps;
+  }
+
+  @Benchmark
+  public PreparedStatement stock() throws SQLException {
+    BoundSql boundSql = ms.getBoundSql(row);
+    ParameterHandler handler = new DefaultParameterHandler(ms, row, boundSql);
+    handler.setParameters(ps);
+    return ps;
+  }
+
+  public interface WideRowMapper {
+
+    @Lang(Caching.class)
+    @InsertProvider(type = BaseProvider.class, method = "insert")
+    int insert(WideRow row);
+
+  }
+
+  @Getter
+  @Setter
+  @Entity.Table("wide_row")
+  public static class WideRow {
+    @Entity.Column(id = true)
+  private String  c01;
+  private Integer c02;
+  private Long    c03;
+  private String  c04;
+  private Integer c05;
+  private Long    c06;
+  private String  c07;
+  private Integer c08;
+  private Long    c09;
+  private String  c10;
+  private Integer c11;
+  private Long    c12;
+  private String  c13;
+  private Integer c14;
+  private Long    c15;
+  private String  c16;
+  private Integer c17;
+  private Long    c18;
+  private String  c19;
+  private Integer c20;
+  private Long    c21;
+  private String  c22;
+  private Integer c23;
+  private Long    c24;
+  private String  c25;
+  private Integer c26;
+  private Long    c27;
+  private String  c28;
+  private Integer c29;
+  private Long    c30;
+  }
+
+}
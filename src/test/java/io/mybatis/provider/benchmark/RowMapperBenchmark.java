@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.benchmark;
+
+import io.mybatis.provider.mapper.UserMapper;
+import io.mybatis.provider.model.User;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 {@link io.mybatis.provider.mapping.CompiledResultSetInterceptor} 和 MyBatis 默认方式映射 autoResultMap 实体的速度，结果为每秒映射的行数
+ * <p>
+ * 运行方式：执行 {@code mvn test-compile} 后运行当前类的 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(RowMapperBenchmark.ROWS)
+public class RowMapperBenchmark {
+  public static final int ROWS = 10000;
+
+  private SqlSession sqlSession;
+  private UserMapper userMapper;
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(RowMapperBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    Resources.setCharset(StandardCharsets.UTF_8);
+    SqlSessionFactory sqlSessionFactory;
+    try (Reader reader = Resources.getResourceAsReader("mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSession = sqlSessionFactory.openSession();
+    Connection conn = sqlSession.getConnection();
+    try (Reader reader = Resources.getResourceAsReader("testdb.sql")) {
+      ScriptRunner runner = new ScriptRunner(conn);
+      runner.setLogWriter(null);
+      runner.runScript(reader);
+    }
+    try (PreparedStatement ps = conn.prepareStatement("insert into user(id, name, sex, address) values (?, ?, ?, ?)")) {
+      for (int i = 6; i <= ROWS; i++) {
+        ps.setLong(1, i);
+        ps.setString(2, "name" + i);
+        ps.setString(3, i % 2 == 0 ? "男" : "女");
+        ps.setString(4, "city" + i + ",street" + i);
+        ps.addBatch();
+      }
+      ps.executeBatch();
+    }
+    sqlSession.commit();
+    userMapper = sqlSession.getMapper(UserMapper.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    sqlSession.close();
+  }
+
+  @Benchmark
+  public List<User> compiled() {
+    sqlSession.clearCache();
+    return userMapper.selectAll();
+  }
+
+  @Benchmark
+  public List<User> stock() {
+    sqlSession.clearCache();
+    //有 RowBounds 时不使用预编译的行映射
+    return sqlSession.selectList(UserMapper.class.getName() + ".selectAll", null, new RowBounds(0, Integer.MAX_VALUE - 1));
+  }
+
+}
@@ -20,6 +20,9 @@ import io.mybatis.provider.EntityColumn;
 import io.mybatis.provider.SqlScript;
 import org.apache.ibatis.builder.annotation.ProviderContext;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static io.mybatis.provider.SqlScript.LF;
@@ -32,12 +35,70 @@ public class BaseProvider {
             " WHERE " + entity.idColumns().stream().map(EntityColumn::columnEqualsProperty).collect(Collectors.joining(" AND ")));
   }
 
+  public static String selectAll(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, entity ->
+        "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName() + " ORDER BY "
+            + entity.idColumns().stream().map(EntityColumn::column).collect(Collectors.joining(",")));
+  }
+
+  public static String selectAllReversed(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, entity -> {
+      List<EntityColumn> columns = new ArrayList<>(entity.selectColumns());
+      Collections.reverse(columns);
+      return "SELECT " + columns.stream().map(EntityColumn::column).collect(Collectors.joining(","))
+          + " FROM " + entity.tableName() + " ORDER BY "
+          + entity.idColumns().stream().map(EntityColumn::column).collect(Collectors.joining(","));
+    });
+  }
+
+  public static String selectByIds(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) ->
+        "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName() + " WHERE "
+            + entity.idColumns().get(0).column() + " IN"
+            + util.foreach("ids", "id", ",", "(", ")", () -> "#{id}"));
+  }
+
+  public static String selectByIdsPadded(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) ->
+        "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName() + " WHERE "
+            + entity.idColumns().get(0).column() + " IN"
+            + util.foreachPadded("ids", "id", ",", "(", ")", () -> "#{id}"));
+  }
+
+  public static String selectByIdArray(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) ->
+        "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName() + " WHERE "
+            + util.inCollection(entity.idColumns().get(0).column(), "ids")
+            + " ORDER BY " + entity.idColumns().get(0).column());
+  }
+
+  public static String selectSelective(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) ->
+        "SELECT " + entity.baseColumnAsPropertyList() + " FROM " + entity.tableName()
+            + util.where(() -> entity.columns().stream().map(column ->
+            util.ifTest(column.notNullTest(), () -> "AND " + column.columnEqualsProperty())
+        ).collect(Collectors.joining(LF))));
+  }
+
   public static String deleteById(ProviderContext providerContext) {
     return SqlScript.caching(providerContext, entity ->
         "DELETE FROM " + entity.tableName() +
             " WHERE " + entity.idColumns().stream().map(EntityColumn::columnEqualsProperty).collect(Collectors.joining(" AND ")));
   }
 
+  public static String updateById(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, entity ->
+        "UPDATE " + entity.tableName() + " SET "
+            + entity.updateColumns().stream().filter(column -> !column.id()).map(EntityColumn::columnEqualsProperty).collect(Collectors.joining(","))
+            + " WHERE " + entity.idColumns().stream().map(EntityColumn::columnEqualsProperty).collect(Collectors.joining(" AND ")));
+  }
+
+  public static String insert(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, entity ->
+        "INSERT INTO " + entity.tableName() + "(" + entity.insertColumnList() + ") VALUES ("
+            + entity.insertColumns().stream().map(EntityColumn::variables).collect(Collectors.joining(",")) + ")");
+  }
+
   public static String insertSelective(ProviderContext providerContext) {
     return SqlScript.caching(providerContext, (entity, util) ->
         "INSERT INTO " + entity.tableName()
@@ -50,4 +111,20 @@ public class BaseProvider {
                 util.ifTest(column.notNullTest(), () -> column.variables() + ",")
             ).collect(Collectors.joining(LF))));
   }
+
+  public static String insertList(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) ->
+        "INSERT INTO " + entity.tableName() + "(" + entity.insertColumnList() + ") VALUES "
+            + util.foreach("list", "entity", ",", () ->
+            "(" + entity.insertColumns().stream().map(column -> column.variables("entity.")).collect(Collectors.joining(",")) + ")"));
+  }
+
+  public static String insertListSkipNull(ProviderContext providerContext) {
+    return SqlScript.caching(providerContext, (entity, util) ->
+        "INSERT INTO " + entity.tableName() + "(" + entity.insertColumnList() + ") VALUES "
+            + util.foreach("list", "entity", ",", () ->
+            "(" + entity.insertColumns().stream().map(column -> util.choose(() ->
+                util.whenTest(column.notNullTest("entity."), () -> column.variables("entity."))
+                    + util.otherwise(() -> "NULL"))).collect(Collectors.joining(",")) + ")"));
+  }
 }
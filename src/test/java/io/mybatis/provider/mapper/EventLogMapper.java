@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.mapper;
+
+import io.mybatis.provider.Caching;
+import io.mybatis.provider.keyset.KeysetProvider;
+import io.mybatis.provider.model.EventLog;
+import io.mybatis.provider.scan.ScanProvider;
+import org.apache.ibatis.annotations.InsertProvider;
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.SelectProvider;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.List;
+import java.util.Map;
+
+public interface EventLogMapper {
+
+  //HSQLDB 2.5.2 每次执行设置了超时的语句都会把会话重复加入超时检查列表，同一个会话批量写入大量数据时会被提前中止
+  @Lang(Caching.class)
+  @Options(timeout = 0)
+  @InsertProvider(type = BaseProvider.class, method = "insert")
+  int insert(EventLog eventLog);
+
+  @Lang(Caching.class)
+  @InsertProvider(type = BaseProvider.class, method = "insertList")
+  int insertList(@Param("list") List<EventLog> list);
+
+  @Lang(Caching.class)
+  @InsertProvider(type = BaseProvider.class, method = "insertListSkipNull")
+  int insertListSkipNull(@Param("list") List<EventLog> list);
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "getById")
+  EventLog getById(Long id);
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectAll")
+  List<EventLog> selectAll();
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectAll")
+  Cursor<EventLog> selectAllCursor();
+
+  @Lang(Caching.class)
+  @Options(fetchSize = 10, timeout = 5)
+  @SelectProvider(type = BaseProvider.class, method = "selectAll")
+  List<EventLog> selectAllWithOptions();
+
+  @Lang(Caching.class)
+  @SelectProvider(type = KeysetProvider.class, method = "selectPage")
+  List<EventLog> selectPage(@Param("cursor") EventLog cursor, @Param("size") int size);
+
+  @Lang(Caching.class)
+  @Options(fetchSize = 100, resultSetType = ResultSetType.FORWARD_ONLY)
+  @SelectProvider(type = ScanProvider.class, method = "selectRange")
+  Cursor<EventLog> selectRange(@Param("lower") Long lower, @Param("upper") Long upper, @Param("entity") EventLog entity);
+
+  @Lang(Caching.class)
+  @SelectProvider(type = ScanProvider.class, method = "selectIdRange")
+  Map<String, Object> selectIdRange(@Param("entity") EventLog entity);
+
+  @Select("SELECT id FROM event_log WHERE type = #{type} ORDER BY id")
+  List<Long> selectIdsByType(String type);
+
+  @Select("SELECT COUNT(*) FROM event_log WHERE type = #{type}")
+  long countByType(String type);
+
+}
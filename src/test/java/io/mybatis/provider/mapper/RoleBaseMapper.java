@@ -18,10 +18,19 @@ package io.mybatis.provider.mapper;
 
 import io.mybatis.provider.Caching;
 import io.mybatis.provider.Entity;
+import io.mybatis.provider.batch.BulkUpdateProvider;
 import io.mybatis.provider.model.Role;
 import io.mybatis.provider.model.User;
+import io.mybatis.provider.upsert.UpsertProvider;
 import org.apache.ibatis.annotations.DeleteProvider;
+import org.apache.ibatis.annotations.InsertProvider;
 import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.annotations.UpdateProvider;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.List;
 
 /**
  * 测试接口泛型参数识别类型
@@ -50,4 +59,24 @@ public interface RoleBaseMapper extends BaseMapper<Long, Role> {
   @DeleteProvider(type = BaseProvider.class, method = "deleteById")
   int deleteUserById(Long id);
 
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectAll")
+  List<Role> selectAll();
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectAll")
+  Cursor<Role> selectAllCursor();
+
+  @Lang(Caching.class)
+  @InsertProvider(type = UpsertProvider.class, method = "upsert")
+  int upsert(Role role);
+
+  @Lang(Caching.class)
+  @InsertProvider(type = UpsertProvider.class, method = "upsertList")
+  int upsertList(@Param("list") List<Role> roles);
+
+  @Lang(Caching.class)
+  @UpdateProvider(type = BulkUpdateProvider.class, method = "updateList")
+  int updateList(@Param("list") List<Role> roles);
+
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.mapper;
+
+import io.mybatis.provider.Caching;
+import io.mybatis.provider.model.ShardOrder;
+import org.apache.ibatis.annotations.InsertProvider;
+import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+
+import java.util.List;
+
+public interface ShardOrderMapper {
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "getById")
+  ShardOrder getById(@Param("id") Long id, @Param("userId") Long userId);
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectSelective")
+  List<ShardOrder> selectSelective(ShardOrder order);
+
+  @Lang(Caching.class)
+  @InsertProvider(type = BaseProvider.class, method = "insert")
+  int insert(ShardOrder order);
+
+  @Lang(Caching.class)
+  @InsertProvider(type = BaseProvider.class, method = "insertList")
+  int insertList(@Param("list") List<ShardOrder> orders);
+
+}
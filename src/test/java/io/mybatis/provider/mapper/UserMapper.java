@@ -16,10 +16,20 @@
 
 package io.mybatis.provider.mapper;
 
+import io.mybatis.mapper.fn.Fn;
 import io.mybatis.provider.Caching;
+import io.mybatis.provider.batch.BulkUpdateProvider;
+import io.mybatis.provider.dirty.DirtyUpdateProvider;
 import io.mybatis.provider.model.User;
+import io.mybatis.provider.projection.ProjectionProvider;
+import org.apache.ibatis.annotations.InsertProvider;
 import org.apache.ibatis.annotations.Lang;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.annotations.UpdateProvider;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.List;
 
 public interface UserMapper {
 
@@ -27,4 +37,52 @@ public interface UserMapper {
   @SelectProvider(type = BaseProvider.class, method = "getById")
   User getById(Long id);
 
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectAll")
+  List<User> selectAll();
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectAll")
+  Cursor<User> selectAllCursor();
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectAllReversed")
+  List<User> selectAllReversed();
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectByIds")
+  List<User> selectByIds(@Param("ids") List<Long> ids);
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectByIdsPadded")
+  List<User> selectByIdsPadded(@Param("ids") List<Long> ids);
+
+  @Lang(Caching.class)
+  @SelectProvider(type = BaseProvider.class, method = "selectByIdArray")
+  List<User> selectByIdArray(@Param("ids") List<Long> ids);
+
+  @Lang(Caching.class)
+  @InsertProvider(type = BaseProvider.class, method = "insert")
+  int insert(User user);
+
+  @Lang(Caching.class)
+  @UpdateProvider(type = BaseProvider.class, method = "updateById")
+  int updateById(User user);
+
+  @Lang(Caching.class)
+  @UpdateProvider(type = BulkUpdateProvider.class, method = "updateList")
+  int updateList(@Param("list") List<User> users);
+
+  @Lang(Caching.class)
+  @UpdateProvider(type = DirtyUpdateProvider.class, method = "updateDirty")
+  int updateDirty(User user);
+
+  @Lang(Caching.class)
+  @SelectProvider(type = ProjectionProvider.class, method = "selectById")
+  User selectColumnsById(@Param("id") Long id, @Param("fns") Fn.Fns<User> fns);
+
+  @Lang(Caching.class)
+  @SelectProvider(type = ProjectionProvider.class, method = "selectAll")
+  List<User> selectColumns(@Param("fns") Fn.Fns<User> fns);
+
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.model;
+
+import io.mybatis.provider.Entity;
+
+import java.io.Serializable;
+
+@Entity.Table(value = "dict", props = {
+    @Entity.Prop(name = "mybatis.provider.cache.enabled", value = "true"),
+    @Entity.Prop(name = "mybatis.provider.cache.maxEntries", value = "2")
+})
+public class Dict implements Serializable {
+  private static final long serialVersionUID = 1L;
+  @Entity.Column(id = true)
+  private Long   id;
+  @Entity.Column
+  private String code;
+  @Entity.Column
+  private String name;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.model;
+
+import io.mybatis.provider.Entity;
+
+@Entity.Table(value = "event_log", props = {
+    @Entity.Prop(name = "mybatis.provider.batch.maxParameters", value = "5"),
+    @Entity.Prop(name = "mybatis.provider.singleFlight.enabled", value = "true"),
+    @Entity.Prop(name = "mybatis.provider.singleFlight.batchWindow", value = "50"),
+    @Entity.Prop(name = "mybatis.provider.statement.fetchSize", value = "100"),
+    @Entity.Prop(name = "mybatis.provider.statement.resultSetType", value = "forward_only"),
+    @Entity.Prop(name = "mybatis.provider.statement.timeout", value = "30")
+})
+public class EventLog {
+  @Entity.Column(id = true, insertable = false)
+  private Long   id;
+  @Entity.Column(orderBy = "DESC")
+  private String type;
+  @Entity.Column
+  private String message;
+
+  public EventLog() {
+  }
+
+  public EventLog(String type, String message) {
+    this.type = type;
+    this.message = message;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+}
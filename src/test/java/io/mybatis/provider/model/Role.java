@@ -18,7 +18,10 @@ package io.mybatis.provider.model;
 
 import io.mybatis.provider.Entity;
 
-@Entity.Table("role")
+@Entity.Table(value = "role", props = {
+    @Entity.Prop(name = "mybatis.provider.guard.maxRows", value = "2"),
+    @Entity.Prop(name = "mybatis.provider.batch.maxParameters", value = "1000")
+})
 public class Role {
   @Entity.Column(id = true)
   private Long   id;
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.model;
+
+import io.mybatis.provider.Entity;
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.keysql.GenId;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Entity.Table(value = "dict")
+public class SeqDict {
+  @Entity.Column(id = true, genId = SeqDict.GenIdSeq.class)
+  private Long   id;
+  @Entity.Column
+  private String code;
+
+  public SeqDict() {
+  }
+
+  public SeqDict(String code) {
+    this.code = code;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+
+  public static class GenIdSeq implements GenId<Long> {
+    private static final AtomicLong SEQ = new AtomicLong(10000);
+
+    @Override
+    public Long genId(EntityTable table, EntityColumn column) {
+      return SEQ.getAndIncrement();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mybatis.provider.model;
+
+import io.mybatis.provider.Entity;
+
+@Entity.Table(value = "tenant_note", props = {
+    @Entity.Prop(name = "mybatis.provider.tenant.schema", value = "true"),
+    @Entity.Prop(name = "mybatis.provider.tenant.cacheSize", value = "2")
+})
+public class TenantNote {
+  @Entity.Column(id = true)
+  private Long   id;
+  @Entity.Column
+  private String content;
+
+  public TenantNote() {
+  }
+
+  public TenantNote(Long id, String content) {
+    this.id = id;
+    this.content = content;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getContent() {
+    return content;
+  }
+
+  public void setContent(String content) {
+    this.content = content;
+  }
+}
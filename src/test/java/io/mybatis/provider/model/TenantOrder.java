@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mybatis.provider.model;
+
+import io.mybatis.provider.Entity;
+
+@Entity.Table(value = "tenant_order", props = {
+    @Entity.Prop(name = "mybatis.provider.tenant.schema", value = "true"),
+    @Entity.Prop(name = "mybatis.provider.shard.key", value = "userId"),
+    @Entity.Prop(name = "mybatis.provider.shard.count", value = "2"),
+    @Entity.Prop(name = "mybatis.provider.shard.format", value = "%s_%d")
+})
+public class TenantOrder {
+  @Entity.Column(id = true)
+  private Long    id;
+  @Entity.Column
+  private Long    userId;
+  @Entity.Column
+  private Integer amount;
+
+  public TenantOrder() {
+  }
+
+  public TenantOrder(Long id, Long userId, Integer amount) {
+    this.id = id;
+    this.userId = userId;
+    this.amount = amount;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public Integer getAmount() {
+    return amount;
+  }
+
+  public void setAmount(Integer amount) {
+    this.amount = amount;
+  }
+}
@@ -20,7 +20,11 @@ import io.mybatis.provider.Entity;
 
 import java.util.List;
 
-@Entity.Table(value = "user", autoResultMap = true)
+@Entity.Table(value = "user", autoResultMap = true, props = {
+    @Entity.Prop(name = "mybatis.provider.statement.adaptiveFetchSize", value = "true"),
+    @Entity.Prop(name = "mybatis.provider.statement.adaptiveFetchSize.min", value = "2"),
+    @Entity.Prop(name = "mybatis.provider.dirty.tracking", value = "true")
+})
 public class User {
   @Entity.Column(id = true)
   private Long         id;
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.test;
+
+import io.mybatis.provider.BaseTest;
+import io.mybatis.provider.EntityColumn;
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.lazy.LazyColumns;
+import io.mybatis.provider.mapper.ArticleMapper;
+import io.mybatis.provider.model.Article;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ArticleMapperTest extends BaseTest {
+
+  @Test
+  public void testLazyColumn() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      ArticleMapper articleMapper = sqlSession.getMapper(ArticleMapper.class);
+      Article article = articleMapper.getById(1L);
+      MappedStatement ms = sqlSession.getConfiguration().getMappedStatement(ArticleMapper.class.getName() + ".getById");
+      Assert.assertEquals("SELECT ID,TITLE FROM public.article WHERE ID = ?", ms.getBoundSql(1L).getSql());
+      Assert.assertEquals("倚天屠龙记", article.getTitle());
+      //第一次访问时读取
+      Assert.assertEquals("武林至尊，宝刀屠龙", article.getContent());
+    }
+  }
+
+  @Test
+  public void testLazyFetch() throws Exception {
+    try (SqlSession sqlSession = getSqlSession()) {
+      ArticleMapper articleMapper = sqlSession.getMapper(ArticleMapper.class);
+      List<Article> articles = articleMapper.selectAll();
+      Assert.assertEquals(3, articles.size());
+      LazyColumns.fetch(sqlSession, articles, Article::getContent);
+      //批量读取后不会再执行延迟加载
+      try (Statement statement = sqlSession.getConnection().createStatement()) {
+        statement.executeUpdate("update article set content = 'changed'");
+      }
+      Assert.assertEquals("武林至尊，宝刀屠龙", articles.get(0).getContent());
+      Assert.assertEquals("郭靖和黄蓉", articles.get(1).getContent());
+      Assert.assertEquals("杨过和小龙女", articles.get(2).getContent());
+      //直接通过连接执行的修改不会标记会话，需要强制回滚
+      sqlSession.rollback(true);
+    }
+    try (SqlSession sqlSession = getSqlSession()) {
+      Assert.assertEquals("武林至尊，宝刀屠龙", sqlSession.getMapper(ArticleMapper.class).getById(1L).getContent());
+    }
+  }
+
+  @Test
+  public void testRegisteredWithStatements() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSession.getMapper(ArticleMapper.class).getById(2L);
+      //初始化方法时注册，不需要手动调用 LazyColumns.register
+      Configuration configuration = sqlSession.getConfiguration();
+      Assert.assertTrue(configuration.hasStatement(Article.class.getName() + "$lazy$content", false));
+      Assert.assertTrue(configuration.hasStatement(Article.class.getName() + "$lazyFetch", false));
+    }
+  }
+
+  @Test
+  public void testGlobalLazyIgnored() {
+    //全局配置不会让所有列延迟加载，只有列上配置的才生效
+    System.setProperty(LazyColumns.LAZY, "true");
+    try {
+      EntityTable entityTable = EntityFactory.create(Article.class);
+      Assert.assertEquals(Arrays.asList("id", "title"),
+          entityTable.selectColumns().stream().map(EntityColumn::property).collect(Collectors.toList()));
+      Assert.assertEquals(Collections.singletonList("content"),
+          entityTable.lazyColumns().stream().map(EntityColumn::property).collect(Collectors.toList()));
+    } finally {
+      System.clearProperty(LazyColumns.LAZY);
+    }
+  }
+
+}
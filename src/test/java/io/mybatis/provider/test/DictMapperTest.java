@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.test;
+
+import io.mybatis.provider.BaseTest;
+import io.mybatis.provider.cache.*;
+import io.mybatis.provider.mapper.DictAdminMapper;
+import io.mybatis.provider.mapper.DictMapper;
+import io.mybatis.provider.model.Dict;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class DictMapperTest extends BaseTest {
+
+  @Test
+  public void testEntityCache() {
+    EntityCache cache;
+    try (SqlSession sqlSession = getSqlSession()) {
+      DictMapper mapper = sqlSession.getMapper(DictMapper.class);
+      Assert.assertEquals("male", mapper.getById(1L).getCode());
+      sqlSession.commit();
+      cache = EntityCaches.get(sqlSession.getConfiguration(), "public.dict").get();
+      Assert.assertTrue(cache.getSize() > 0);
+    }
+    try (SqlSession sqlSession = getSqlSession()) {
+      DictMapper mapper = sqlSession.getMapper(DictMapper.class);
+      long hits = cache.getHits();
+      Dict dict = mapper.getById(1L);
+      Assert.assertEquals("male", dict.getCode());
+      Assert.assertEquals(hits + 1, cache.getHits());
+      //缓存的是序列化后的值，修改返回值不影响缓存
+      dict.setCode("changed");
+      Assert.assertEquals("male", mapper.getById(1L).getCode());
+      //超过 maxEntries=2 时按 LRU 淘汰
+      mapper.getById(2L);
+      mapper.getById(3L);
+      sqlSession.commit();
+      Assert.assertEquals(2, cache.getSize());
+    }
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSession.getMapper(DictMapper.class).getById(1L);
+      sqlSession.commit();
+      Assert.assertTrue(cache.getSize() > 0);
+      //不同接口中同一个表的写操作，提交后清空缓存
+      DictAdminMapper adminMapper = sqlSession.getMapper(DictAdminMapper.class);
+      Assert.assertEquals(1, adminMapper.deleteById(3L));
+      Assert.assertTrue(cache.getSize() > 0);
+      sqlSession.commit();
+      Assert.assertEquals(0, cache.getSize());
+    }
+  }
+
+  @Test
+  public void testEntityCacheClearOnCommit() {
+    EntityCache cache;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSession.getMapper(DictMapper.class).getById(1L);
+      sqlSession.commit();
+      cache = EntityCaches.get(sqlSession.getConfiguration(), "public.dict").get();
+      Assert.assertTrue(cache.getSize() > 0);
+    }
+    try (SqlSession sqlSession = getSqlSession()) {
+      //第一次执行的写方法在执行前就已经配置了缓存，回滚时不清空
+      Assert.assertEquals(1, sqlSession.getMapper(DictAdminMapper.class).deleteById(1L));
+      Assert.assertTrue(cache.getSize() > 0);
+      sqlSession.rollback();
+      Assert.assertTrue(cache.getSize() > 0);
+    }
+    Dict dict = new Dict();
+    dict.setId(200L);
+    dict.setCode("commit");
+    dict.setName("commit");
+    try (SqlSession sqlSession = getSqlSession()) {
+      DictAdminMapper adminMapper = sqlSession.getMapper(DictAdminMapper.class);
+      Assert.assertEquals(1, adminMapper.insertSelective(dict));
+      Assert.assertTrue(cache.getSize() > 0);
+      sqlSession.commit();
+      Assert.assertEquals(0, cache.getSize());
+      Assert.assertEquals("male", sqlSession.getMapper(DictMapper.class).getById(1L).getCode());
+    } finally {
+      try (SqlSession sqlSession = getSqlSession()) {
+        sqlSession.getMapper(DictAdminMapper.class).deleteById(200L);
+        sqlSession.commit();
+      }
+    }
+  }
+
+  @Test
+  public void testRemoteInvalidation() throws InterruptedException {
+    EntityCache cache;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSession.getMapper(DictMapper.class).getById(2L);
+      sqlSession.commit();
+      cache = EntityCaches.get(sqlSession.getConfiguration(), "public.dict").get();
+      Assert.assertTrue(cache.getSize() > 0);
+    }
+    //模拟另一个节点，多次通知合并成一条消息
+    InvalidationBus remote = new InvalidationBus("remote", Collections.singletonList(new LoopbackInvalidationTransport()), 50);
+    for (int i = 0; i < 100; i++) {
+      remote.invalidate("public.dict");
+    }
+    for (int i = 0; i < 100 && cache.getSize() > 0; i++) {
+      Thread.sleep(20);
+    }
+    Assert.assertEquals(0, cache.getSize());
+    Assert.assertEquals(1, remote.getPublished());
+    Assert.assertTrue(InvalidationBus.getDefault().getReceived() > 0);
+    //本地写操作提交后通知其他节点
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSession.getMapper(DictAdminMapper.class).deleteById(100L);
+      sqlSession.commit();
+    }
+    for (int i = 0; i < 100 && remote.getReceived() == 0; i++) {
+      Thread.sleep(20);
+    }
+    Assert.assertTrue(remote.getReceived() > 0);
+  }
+
+  @Test
+  public void testUdpTransport() throws InterruptedException {
+    UdpInvalidationTransport receiver = new UdpInvalidationTransport(0, Collections.emptyList());
+    UdpInvalidationTransport sender = new UdpInvalidationTransport(0,
+        Collections.singletonList(new InetSocketAddress("127.0.0.1", receiver.getLocalPort())));
+    try {
+      BlockingQueue<Invalidation> queue = new LinkedBlockingQueue<>();
+      receiver.subscribe(queue::add);
+      sender.publish(new Invalidation("node-1", Arrays.asList("public.dict", "public.user")));
+      Invalidation invalidation = queue.poll(5, TimeUnit.SECONDS);
+      Assert.assertNotNull(invalidation);
+      Assert.assertEquals("node-1", invalidation.getNodeId());
+      Assert.assertEquals(2, invalidation.getTableNames().size());
+    } finally {
+      sender.close();
+      receiver.close();
+    }
+  }
+
+  @Test
+  public void testUdpTransportIgnoresUnknownPeers() throws InterruptedException {
+    //只接收来自 127.0.0.2 的消息
+    UdpInvalidationTransport receiver = new UdpInvalidationTransport(0,
+        Collections.singletonList(new InetSocketAddress("127.0.0.2", 9)));
+    UdpInvalidationTransport sender = new UdpInvalidationTransport(0,
+        Collections.singletonList(new InetSocketAddress("127.0.0.1", receiver.getLocalPort())));
+    try {
+      BlockingQueue<Invalidation> queue = new LinkedBlockingQueue<>();
+      receiver.subscribe(queue::add);
+      sender.publish(new Invalidation("node-1", Collections.singletonList("public.dict")));
+      Assert.assertNull(queue.poll(500, TimeUnit.MILLISECONDS));
+    } finally {
+      sender.close();
+      receiver.close();
+    }
+  }
+
+}
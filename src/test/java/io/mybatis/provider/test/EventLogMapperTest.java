@@ -0,0 +1,476 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.test;
+
+import io.mybatis.provider.BaseTest;
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.batch.InsertCoalescer;
+import io.mybatis.provider.batch.StreamInserter;
+import io.mybatis.provider.keyset.KeysetIterator;
+import io.mybatis.provider.flight.SingleFlightInterceptor;
+import io.mybatis.provider.mapper.EventLogMapper;
+import io.mybatis.provider.mapping.EntityRowMapper;
+import io.mybatis.provider.mapper.SeqDictMapper;
+import io.mybatis.provider.model.EventLog;
+import io.mybatis.provider.model.SeqDict;
+import io.mybatis.provider.scan.ParallelScan;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class EventLogMapperTest extends BaseTest {
+  private static final String INSERT = EventLogMapper.class.getName() + ".insert";
+
+  @Test
+  public void testInsertListChunking() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      EventLogMapper mapper = sqlSession.getMapper(EventLogMapper.class);
+      List<EventLog> list = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        list.add(new EventLog("chunk", "message" + i));
+      }
+      //maxParameters=5，每行 2 个参数，会拆分成 3 段执行
+      Assert.assertEquals(5, mapper.insertList(list));
+      Assert.assertEquals(5, mapper.countByType("chunk"));
+      sqlSession.rollback();
+    }
+    DefaultSqlSessionFactory sqlSessionFactory;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSessionFactory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      EventLogMapper mapper = sqlSession.getMapper(EventLogMapper.class);
+      List<EventLog> list = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        list.add(new EventLog("chunk", "message" + i));
+      }
+      mapper.insertList(list);
+      //批量执行器按 SQL 合并，2 行的 SQL 执行 2 次，1 行的 SQL 执行 1 次
+      List<BatchResult> results = sqlSession.flushStatements();
+      Assert.assertEquals(2, results.size());
+      Assert.assertArrayEquals(new int[]{2, 2}, results.get(0).getUpdateCounts());
+      Assert.assertArrayEquals(new int[]{1}, results.get(1).getUpdateCounts());
+      sqlSession.rollback(true);
+    }
+  }
+
+  @Test
+  public void testInsertListChunkingDynamicRows() {
+    DefaultSqlSessionFactory sqlSessionFactory;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSessionFactory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      EventLogMapper mapper = sqlSession.getMapper(EventLogMapper.class);
+      //前两行 message 为 null 只有 1 个参数，估算每段 5 行，后面的行有 2 个参数，需要按实际参数个数减少行数
+      List<EventLog> list = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        list.add(new EventLog("dynamic", i < 2 ? null : "message" + i));
+      }
+      mapper.insertListSkipNull(list);
+      List<BatchResult> results = sqlSession.flushStatements();
+      Assert.assertEquals(3, results.size());
+      Assert.assertArrayEquals(new int[]{3}, results.get(0).getUpdateCounts());
+      Assert.assertArrayEquals(new int[]{2}, results.get(1).getUpdateCounts());
+      Assert.assertArrayEquals(new int[]{1}, results.get(2).getUpdateCounts());
+      for (BatchResult result : results) {
+        Assert.assertTrue(result.getMappedStatement().getBoundSql(result.getParameterObject())
+            .getParameterMappings().size() <= 5);
+      }
+      sqlSession.rollback(true);
+    }
+  }
+
+  @Test
+  public void testStreamInsert() {
+    DefaultSqlSessionFactory sqlSessionFactory;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSessionFactory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      EventLogMapper mapper = sqlSession.getMapper(EventLogMapper.class);
+      StreamInserter<EventLog> inserter = new StreamInserter<>(sqlSession.getConfiguration(), INSERT, 100);
+      long count = inserter.insert(sqlSession, IntStream.range(0, 1050)
+          .mapToObj(i -> new EventLog("stream", "message" + i)).iterator());
+      Assert.assertEquals(1050, count);
+      Assert.assertEquals(1050, mapper.countByType("stream"));
+      Assert.assertEquals(0, StreamInserter.insert(sqlSession, INSERT, new ArrayList<EventLog>().stream()));
+      sqlSession.rollback();
+    }
+    //插入在会话的事务中执行，回滚后不会保留
+    try (SqlSession sqlSession = getSqlSession()) {
+      EventLogMapper mapper = sqlSession.getMapper(EventLogMapper.class);
+      Assert.assertEquals(0, mapper.countByType("stream"));
+      //非批处理会话逐行执行
+      Assert.assertEquals(3, StreamInserter.insert(sqlSession, INSERT, IntStream.range(0, 3)
+          .mapToObj(i -> new EventLog("stream", "message" + i))));
+      Assert.assertEquals(3, mapper.countByType("stream"));
+      sqlSession.rollback();
+      Assert.assertEquals(0, mapper.countByType("stream"));
+    }
+  }
+
+  @Test
+  public void testStreamInsertGenId() {
+    DefaultSqlSessionFactory sqlSessionFactory;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSessionFactory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      List<SeqDict> dicts = IntStream.range(0, 5).mapToObj(i -> new SeqDict("stream" + i)).collect(Collectors.toList());
+      //genId 在插入方法执行前生成主键
+      Assert.assertEquals(5, StreamInserter.insert(sqlSession, SeqDictMapper.class.getName() + ".insert", dicts.iterator()));
+      Assert.assertTrue(dicts.stream().allMatch(dict -> dict.getId() != null));
+      Assert.assertEquals(5, dicts.stream().map(SeqDict::getId).distinct().count());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  public void testInsertCoalescer() {
+    DefaultSqlSessionFactory sqlSessionFactory;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSessionFactory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+    }
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    try (InsertCoalescer<EventLog> coalescer = new InsertCoalescer<>(sqlSessionFactory, EventLog.class,
+        EventLogMapper.class.getName() + ".insertList")) {
+      IntStream.range(0, 20).parallel().forEach(i -> {
+        CompletableFuture<Void> future = coalescer.submit(new EventLog("coalesce", "message" + i));
+        synchronized (futures) {
+          futures.add(future);
+        }
+      });
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+      Assert.assertEquals(20, coalescer.flushedRows());
+      Assert.assertEquals(0, coalescer.failedBatches());
+    }
+    try (SqlSession sqlSession = getSqlSession()) {
+      Assert.assertEquals(20, sqlSession.getMapper(EventLogMapper.class).countByType("coalesce"));
+    }
+  }
+
+  @Test
+  public void testInsertCoalescerSingleRowStatement() {
+    DefaultSqlSessionFactory sqlSessionFactory;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSessionFactory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+    }
+    try (InsertCoalescer<EventLog> coalescer = new InsertCoalescer<>(sqlSessionFactory, EventLog.class, INSERT)) {
+      List<CompletableFuture<Void>> futures = IntStream.range(0, 30)
+          .mapToObj(i -> coalescer.submit(new EventLog("coalesce-single", "message" + i))).collect(Collectors.toList());
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+      //完成时已经提交，其他会话可以读到
+      try (SqlSession sqlSession = getSqlSession()) {
+        Assert.assertEquals(30, sqlSession.getMapper(EventLogMapper.class).countByType("coalesce-single"));
+      }
+    }
+  }
+
+  @Test
+  public void testInsertCoalescerClose() throws Exception {
+    DefaultSqlSessionFactory sqlSessionFactory;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSessionFactory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+    }
+    InsertCoalescer<EventLog> coalescer = new InsertCoalescer<>(sqlSessionFactory, EventLog.class, INSERT);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < 4; i++) {
+      pool.execute(() -> {
+        for (int j = 0; j < 200; j++) {
+          futures.add(coalescer.submit(new EventLog("coalesce-close", "message" + j)));
+        }
+      });
+    }
+    coalescer.close();
+    pool.shutdown();
+    Assert.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    //关闭前入队的数据会写入，关闭后提交的数据立即失败，不会有一直不完成的 future
+    long completed = 0;
+    for (CompletableFuture<Void> future : futures) {
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        completed++;
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+      }
+    }
+    Assert.assertEquals(coalescer.flushedRows(), completed);
+    try (SqlSession sqlSession = getSqlSession()) {
+      Assert.assertEquals(completed, sqlSession.getMapper(EventLogMapper.class).countByType("coalesce-close"));
+    }
+  }
+
+  @Test
+  public void testEntityRowMapperJdbcType() throws SQLException {
+    //自动映射时和 MyBatis 一样按属性类型和列的 JdbcType 获取 TypeHandler
+    Configuration configuration = new Configuration();
+    configuration.getTypeHandlerRegistry().register(String.class, JdbcType.VARCHAR, new UpperCaseTypeHandler());
+    EntityTable entity = EntityFactory.create(EventLog.class);
+    ResultMap resultMap = new ResultMap.Builder(configuration, "eventLog", EventLog.class, new ArrayList<>(), null).build();
+    EntityRowMapper mapper = EntityRowMapper.of(configuration, entity, resultMap).get();
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSession.getMapper(EventLogMapper.class).insert(new EventLog("rowMapper", "message"));
+      String sql = "SELECT " + entity.baseColumnAsPropertyList() + " FROM event_log WHERE type = 'rowMapper'";
+      String reversed = "SELECT message, type, id FROM event_log WHERE type = 'rowMapper'";
+      //不同 SQL 交替执行时分别使用各自缓存的列位置
+      for (int i = 0; i < 2; i++) {
+        for (String query : Arrays.asList(sql, reversed)) {
+          try (Statement stmt = sqlSession.getConnection().createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+            EntityRowMapper.Layout layout = mapper.layout(query, rs.getMetaData(), true);
+            Assert.assertNotNull(layout);
+            List<Object> rows = mapper.map(rs, layout);
+            Assert.assertEquals(1, rows.size());
+            Assert.assertEquals("ROWMAPPER", ((EventLog) rows.get(0)).getType());
+            Assert.assertEquals("MESSAGE", ((EventLog) rows.get(0)).getMessage());
+          }
+        }
+      }
+      sqlSession.rollback();
+    }
+  }
+
+  public static class UpperCaseTypeHandler extends StringTypeHandler {
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+      String value = super.getNullableResult(rs, columnIndex);
+      return value != null ? value.toUpperCase(Locale.ENGLISH) : null;
+    }
+  }
+
+  @Test
+  public void testSingleFlight() throws Exception {
+    List<Long> ids;
+    SingleFlightInterceptor interceptor;
+    try (SqlSession sqlSession = getSqlSession()) {
+      EventLogMapper mapper = sqlSession.getMapper(EventLogMapper.class);
+      mapper.insertList(Arrays.asList(new EventLog("flight", "a"), new EventLog("flight", "b"), new EventLog("flight", "c")));
+      sqlSession.commit();
+      ids = mapper.selectIdsByType("flight");
+      interceptor = (SingleFlightInterceptor) sqlSession.getConfiguration().getInterceptors().stream()
+          .filter(i -> i instanceof SingleFlightInterceptor).findFirst().get();
+    }
+    int threads = 12;
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    List<CompletableFuture<EventLog>> futures = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      Long id = ids.get(i % ids.size());
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        try (SqlSession sqlSession = getSqlSession()) {
+          barrier.await();
+          return sqlSession.getMapper(EventLogMapper.class).getById(id);
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }, pool));
+    }
+    Set<EventLog> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (int i = 0; i < threads; i++) {
+      EventLog eventLog = futures.get(i).get();
+      Assert.assertEquals(ids.get(i % ids.size()), eventLog.getId());
+      Assert.assertEquals("flight", eventLog.getType());
+      instances.add(eventLog);
+    }
+    pool.shutdown();
+    //每个线程得到各自的实体对象
+    Assert.assertEquals(threads, instances.size());
+    SingleFlightInterceptor.Stats stats = interceptor.stats().get(EventLogMapper.class.getName() + ".getById");
+    Assert.assertEquals(threads, stats.getRequests());
+    Assert.assertTrue(stats.getExecutions() < threads);
+    try (SqlSession sqlSession = getSqlSession()) {
+      Assert.assertTrue(sqlSession.getConfiguration().hasStatement(EventLogMapper.class.getName() + ".getById$singleFlight"));
+    }
+  }
+
+  @Test
+  public void testParallelScan() throws Exception {
+    DefaultSqlSessionFactory sqlSessionFactory;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSessionFactory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+      StreamInserter.insert(sqlSession, INSERT, IntStream.range(0, 1000).mapToObj(i -> new EventLog("scan", "message" + i)));
+      StreamInserter.insert(sqlSession, INSERT, IntStream.range(0, 10).mapToObj(i -> new EventLog("scan-other", "message" + i)));
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = getSqlSession()) {
+      Set<Long> expected = sqlSession.getMapper(EventLogMapper.class).selectAll().stream()
+          .map(EventLog::getId).collect(Collectors.toSet());
+      String statementId = EventLogMapper.class.getName() + ".selectRange";
+      String rangeStatementId = EventLogMapper.class.getName() + ".selectIdRange";
+
+      ParallelScan<EventLog> scan = new ParallelScan<EventLog>(sqlSessionFactory, statementId)
+          .rangeStatement(rangeStatementId).partitions(4);
+      Set<Long> ids = ConcurrentHashMap.newKeySet();
+      Set<String> threads = ConcurrentHashMap.newKeySet();
+      long total = scan.scan(eventLog -> {
+        Assert.assertTrue(ids.add(eventLog.getId()));
+        threads.add(Thread.currentThread().getName());
+      });
+      Assert.assertEquals(expected.size(), total);
+      Assert.assertEquals(expected, ids);
+      Assert.assertEquals(4, scan.getPartitions().size());
+      Assert.assertTrue(scan.getPartitions().stream().allMatch(ParallelScan.Partition::isDone));
+      Assert.assertTrue(scan.getPartitions().stream().allMatch(partition -> partition.getRows() > 0));
+      Assert.assertTrue(threads.size() > 1);
+
+      //指定拆分点
+      ids.clear();
+      total = new ParallelScan<EventLog>(sqlSessionFactory, statementId)
+          .splitPoints(Arrays.asList(100, 500)).scan(eventLog -> ids.add(eventLog.getId()));
+      Assert.assertEquals(expected.size(), total);
+      Assert.assertEquals(expected, ids);
+
+      //其他参数作为过滤条件传给每个分区，主键范围也按相同的条件查询
+      ids.clear();
+      scan = new ParallelScan<EventLog>(sqlSessionFactory, statementId).rangeStatement(rangeStatementId).partitions(3)
+          .param("entity", new EventLog("scan", null));
+      total = scan.scan(eventLog -> ids.add(eventLog.getId()));
+      Assert.assertEquals(1000, total);
+      Assert.assertTrue(expected.size() >= 1010);
+      List<Long> scanIds = sqlSession.getMapper(EventLogMapper.class).selectIdsByType("scan");
+      Assert.assertEquals(new HashSet<>(scanIds), ids);
+      Assert.assertTrue(scan.getPartitions().stream().allMatch(partition -> partition.getRows() > 0));
+
+      //主键范围超过 long 的范围时不会溢出
+      List<ParallelScan.Partition> partitions = new WideParallelScan(sqlSessionFactory, statementId).partitions(4).split();
+      Assert.assertEquals(4, partitions.size());
+      Assert.assertEquals(Long.valueOf(Long.MIN_VALUE / 2), partitions.get(1).getLower());
+      Assert.assertEquals(Long.valueOf(0L), partitions.get(2).getLower());
+      Assert.assertEquals(Long.valueOf(Long.MAX_VALUE / 2 + 1), partitions.get(3).getLower());
+
+      //没有指定主键范围的查询方法时不能按分区数拆分
+      try {
+        new ParallelScan<EventLog>(sqlSessionFactory, statementId).partitions(2).scan(eventLog -> {
+        });
+        Assert.fail();
+      } catch (IllegalStateException e) {
+        Assert.assertTrue(e.getMessage().contains("rangeStatement"));
+      }
+    } finally {
+      try (SqlSession sqlSession = getSqlSession()) {
+        try (Statement stmt = sqlSession.getConnection().createStatement()) {
+          stmt.execute("DELETE FROM event_log WHERE type IN ('scan', 'scan-other')");
+        }
+        sqlSession.commit();
+      }
+    }
+  }
+
+  /**
+   * 主键范围覆盖整个 long 范围的扫描
+   */
+  static class WideParallelScan extends ParallelScan<EventLog> {
+    WideParallelScan(DefaultSqlSessionFactory sqlSessionFactory, String statementId) {
+      super(sqlSessionFactory, statementId);
+    }
+
+    @Override
+    protected long[] idRange() {
+      return new long[]{Long.MIN_VALUE, Long.MAX_VALUE};
+    }
+
+    @Override
+    public WideParallelScan partitions(int partitions) {
+      super.partitions(partitions);
+      return this;
+    }
+
+    List<Partition> split() {
+      return partitions();
+    }
+  }
+
+  @Test
+  public void testKeysetPagination() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      EventLogMapper mapper = sqlSession.getMapper(EventLogMapper.class);
+      StreamInserter.insert(sqlSession, INSERT, IntStream.range(0, 50)
+          .mapToObj(i -> new EventLog("keyset-" + (i % 3), "message" + i)));
+      //type DESC, id ASC，排序方向不同时展开为 OR 条件
+      List<EventLog> expected = new ArrayList<>(mapper.selectAll());
+      expected.sort(Comparator.comparing(EventLog::getType, Comparator.reverseOrder()).thenComparing(EventLog::getId));
+      String sql = sqlSession.getConfiguration().getMappedStatement(EventLogMapper.class.getName() + ".selectPage")
+          .getBoundSql(new HashMap<String, Object>() {{
+            put("cursor", expected.get(0));
+            put("size", 10);
+          }}).getSql().replaceAll("\\s+", " ");
+      Assert.assertTrue(sql, sql.contains("((TYPE < ?) OR (TYPE = ? AND ID > ?))"));
+      Assert.assertTrue(sql, sql.contains("ORDER BY TYPE DESC, ID ASC LIMIT ?"));
+
+      KeysetIterator<EventLog> iterator = new KeysetIterator<>(mapper::selectPage, 7);
+      List<Long> ids = new ArrayList<>();
+      iterator.forEachRemaining(eventLog -> ids.add(eventLog.getId()));
+      Assert.assertEquals(expected.stream().map(EventLog::getId).collect(Collectors.toList()), ids);
+      Assert.assertEquals(expected.size() / 7 + 1, iterator.getPages());
+      Assert.assertEquals(expected.size(), KeysetIterator.stream(mapper::selectPage, 100).count());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  public void testStatementOptions() throws Exception {
+    try (SqlSession sqlSession = getSqlSession()) {
+      EventLogMapper mapper = sqlSession.getMapper(EventLogMapper.class);
+      StreamInserter.insert(sqlSession, INSERT, IntStream.range(0, 300)
+          .mapToObj(i -> new EventLog("cursor", "message" + i)));
+      int count = 0;
+      try (Cursor<EventLog> cursor = mapper.selectAllCursor()) {
+        for (EventLog ignored : cursor) {
+          count++;
+        }
+      }
+      Assert.assertEquals(mapper.selectAll().size(), count);
+      MappedStatement ms = sqlSession.getConfiguration().getMappedStatement(EventLogMapper.class.getName() + ".selectAllCursor");
+      Assert.assertEquals(Integer.valueOf(100), ms.getFetchSize());
+      Assert.assertEquals(ResultSetType.FORWARD_ONLY, ms.getResultSetType());
+      Assert.assertEquals(Integer.valueOf(30), ms.getTimeout());
+      //方法上的 @Options 优先
+      mapper.selectAllWithOptions();
+      ms = sqlSession.getConfiguration().getMappedStatement(EventLogMapper.class.getName() + ".selectAllWithOptions");
+      Assert.assertEquals(Integer.valueOf(10), ms.getFetchSize());
+      Assert.assertEquals(Integer.valueOf(5), ms.getTimeout());
+      Assert.assertEquals(ResultSetType.FORWARD_ONLY, ms.getResultSetType());
+      sqlSession.rollback();
+    }
+  }
+
+}
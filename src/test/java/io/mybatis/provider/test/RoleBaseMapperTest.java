@@ -17,13 +17,27 @@
 package io.mybatis.provider.test;
 
 import io.mybatis.provider.BaseTest;
+import io.mybatis.provider.batch.InsertCoalescer;
 import io.mybatis.provider.mapper.RoleBaseMapper;
 import io.mybatis.provider.mapper.UserMapper;
 import io.mybatis.provider.model.Role;
+import io.mybatis.provider.statement.ResultSizeGuard;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 public class RoleBaseMapperTest extends BaseTest {
 
   @Test
@@ -53,4 +67,189 @@ public class RoleBaseMapperTest extends BaseTest {
     }
   }
 
+  @Test
+  public void testResultSizeGuard() throws Exception {
+    try (SqlSession sqlSession = getSqlSession()) {
+      RoleBaseMapper roleMapper = sqlSession.getMapper(RoleBaseMapper.class);
+      String selectAll = RoleBaseMapper.class.getName() + ".selectAll";
+      long violations = ResultSizeGuard.violations().getOrDefault(selectAll, 0L);
+      //3 行超过了 maxRows=2
+      try {
+        roleMapper.selectAll();
+        Assert.fail();
+      } catch (PersistenceException e) {
+        Assert.assertTrue(e.getCause() instanceof ResultSizeGuard.ResultSizeExceededException);
+      }
+      Assert.assertEquals(violations + 1, (long) ResultSizeGuard.violations().get(selectAll));
+      //流式查询不受限制
+      int count = 0;
+      try (Cursor<Role> cursor = roleMapper.selectAllCursor()) {
+        for (Role ignored : cursor) {
+          count++;
+        }
+      }
+      Assert.assertEquals(3, count);
+      //通过 selectCursor 调用开启了限制的方法时，也不会在上限处提前结束
+      MappedStatement ms = sqlSession.getConfiguration().getMappedStatement(selectAll);
+      ResultSizeGuard.register(ms, new ResultSizeGuard.Guard(1, ResultSizeGuard.Mode.FAIL));
+      try (Cursor<Role> cursor = sqlSession.selectCursor(selectAll)) {
+        count = 0;
+        for (Role ignored : cursor) {
+          count++;
+        }
+        Assert.assertEquals(3, count);
+      } finally {
+        ResultSizeGuard.register(ms, new ResultSizeGuard.Guard(2, ResultSizeGuard.Mode.FAIL));
+      }
+      Assert.assertEquals(violations + 1, (long) ResultSizeGuard.violations().get(selectAll));
+      //截断模式
+      ResultSizeGuard.register(ms, new ResultSizeGuard.Guard(2, ResultSizeGuard.Mode.TRUNCATE));
+      try {
+        List<Role> roles = roleMapper.selectAll();
+        Assert.assertEquals(2, roles.size());
+        Assert.assertEquals(violations + 2, (long) ResultSizeGuard.violations().get(selectAll));
+      } finally {
+        ResultSizeGuard.register(ms, new ResultSizeGuard.Guard(2, ResultSizeGuard.Mode.FAIL));
+      }
+    }
+  }
+
+  @Test
+  public void testUpsert() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      RoleBaseMapper roleMapper = sqlSession.getMapper(RoleBaseMapper.class);
+      Role role = new Role();
+      role.setId(1L);
+      role.setName("主角");
+      roleMapper.upsert(role);
+      Assert.assertEquals("主角", roleMapper.getById(1L).getName());
+      //一条 SQL 同时更新和插入
+      List<Role> roles = new ArrayList<>();
+      for (long i = 2; i <= 1000; i++) {
+        Role r = new Role();
+        r.setId(i);
+        r.setName("role" + i);
+        roles.add(r);
+      }
+      Assert.assertEquals(999, roleMapper.upsertList(roles));
+      Assert.assertEquals("role2", roleMapper.getById(2L).getName());
+      Assert.assertEquals("role1000", roleMapper.getById(1000L).getName());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  public void testUpsertDialect() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      //触发初始化
+      sqlSession.getMapper(RoleBaseMapper.class).upsert(new Role() {{
+        setId(1L);
+        setName("主角");
+      }});
+      sqlSession.rollback();
+      Configuration configuration = sqlSession.getConfiguration();
+      MappedStatement ms = configuration.getMappedStatement(RoleBaseMapper.class.getName() + ".upsertList");
+      Role role = new Role();
+      role.setId(1L);
+      role.setName("主角");
+      Map<String, Object> params = new HashMap<>();
+      params.put("list", Arrays.asList(role, role));
+      String databaseId = configuration.getDatabaseId();
+      try {
+        configuration.setDatabaseId("mysql");
+        Assert.assertEquals("INSERT INTO public.role(ID,NAME) VALUES (?,?) , (?,?) ON DUPLICATE KEY UPDATE NAME = VALUES(NAME)",
+            ms.getBoundSql(params).getSql().replaceAll("\\s+", " ").trim());
+        configuration.setDatabaseId("postgresql");
+        Assert.assertEquals("INSERT INTO public.role(ID,NAME) VALUES (?,?) , (?,?) ON CONFLICT (ID) DO UPDATE SET NAME = EXCLUDED.NAME",
+            ms.getBoundSql(params).getSql().replaceAll("\\s+", " ").trim());
+        configuration.setDatabaseId("oracle");
+        Assert.assertEquals("MERGE INTO public.role T USING ( SELECT ? ID,? NAME FROM DUAL UNION ALL SELECT ? ID,? NAME FROM DUAL ) S"
+                + " ON (T.ID = S.ID) WHEN MATCHED THEN UPDATE SET NAME = S.NAME WHEN NOT MATCHED THEN INSERT (ID,NAME) VALUES (S.ID,S.NAME)",
+            ms.getBoundSql(params).getSql().replaceAll("\\s+", " ").trim());
+      } finally {
+        configuration.setDatabaseId(databaseId);
+      }
+    }
+  }
+
+  @Test
+  public void testBulkUpdate() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      RoleBaseMapper roleMapper = sqlSession.getMapper(RoleBaseMapper.class);
+      List<Role> roles = new ArrayList<>();
+      for (long i = 1; i <= 1000; i++) {
+        Role role = new Role();
+        role.setId(i);
+        role.setName("role" + i);
+        roles.add(role);
+      }
+      roleMapper.upsertList(roles);
+      roles.forEach(role -> role.setName("new" + role.getId()));
+      //每行 3 个参数，按 1000 个参数拆分为 4 段执行
+      Assert.assertEquals(1000, roleMapper.updateList(roles));
+      Assert.assertEquals("new1", roleMapper.getById(1L).getName());
+      Assert.assertEquals("new500", roleMapper.getById(500L).getName());
+      Assert.assertEquals("new1000", roleMapper.getById(1000L).getName());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  public void testBulkUpdateDialect() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      Role role = new Role();
+      role.setId(1L);
+      role.setName("主角");
+      RoleBaseMapper roleMapper = sqlSession.getMapper(RoleBaseMapper.class);
+      Assert.assertEquals(1, roleMapper.updateList(Arrays.asList(role, role)));
+      sqlSession.rollback();
+      Configuration configuration = sqlSession.getConfiguration();
+      MappedStatement ms = configuration.getMappedStatement(RoleBaseMapper.class.getName() + ".updateList");
+      Map<String, Object> params = new HashMap<>();
+      params.put("list", Arrays.asList(role, role));
+      Assert.assertEquals("UPDATE public.role SET NAME = CASE ID WHEN ? THEN ? WHEN ? THEN ? ELSE NAME END WHERE ID IN ( ? , ? )",
+          ms.getBoundSql(params).getSql().replaceAll("\\s+", " ").trim());
+      String databaseId = configuration.getDatabaseId();
+      try {
+        configuration.setDatabaseId("postgresql");
+        Assert.assertEquals("UPDATE public.role T SET NAME = S.NAME FROM (VALUES (?,?) , (?,?) ) AS S(ID,NAME) WHERE T.ID = S.ID",
+            ms.getBoundSql(params).getSql().replaceAll("\\s+", " ").trim());
+      } finally {
+        configuration.setDatabaseId(databaseId);
+      }
+    }
+  }
+
+  @Test
+  public void testInsertCoalescerGenericMethod() {
+    DefaultSqlSessionFactory sqlSessionFactory;
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSessionFactory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+    }
+    //insertSelective(T) 擦除后的参数类型为 Object，需要按接口泛型识别为实体参数
+    try (InsertCoalescer<Role> coalescer = new InsertCoalescer<>(sqlSessionFactory, Role.class,
+        RoleBaseMapper.class.getName() + ".insertSelective")) {
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (long id = 100; id < 105; id++) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName("coalesce" + id);
+        futures.add(coalescer.submit(role));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+      Assert.assertEquals(0, coalescer.failedBatches());
+      try (SqlSession sqlSession = getSqlSession()) {
+        Assert.assertEquals("coalesce104", sqlSession.getMapper(RoleBaseMapper.class).getById(104L).getName());
+      }
+    } finally {
+      try (SqlSession sqlSession = getSqlSession()) {
+        RoleBaseMapper roleMapper = sqlSession.getMapper(RoleBaseMapper.class);
+        for (long id = 100; id < 105; id++) {
+          roleMapper.deleteById(id);
+        }
+        sqlSession.commit();
+      }
+    }
+  }
+
 }
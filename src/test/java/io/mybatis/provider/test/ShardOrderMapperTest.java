@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mybatis.provider.test;
+
+import io.mybatis.provider.BaseTest;
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.mapper.ShardOrderMapper;
+import io.mybatis.provider.model.ShardOrder;
+import io.mybatis.provider.shard.Sharding;
+import io.mybatis.provider.table.TableVariantSqlSource;
+import io.mybatis.provider.util.AssertException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+public class ShardOrderMapperTest extends BaseTest {
+
+  private static int count(SqlSession sqlSession, String table) throws SQLException {
+    try (Statement stmt = sqlSession.getConnection().createStatement();
+         ResultSet rs = stmt.executeQuery("select count(*) from " + table)) {
+      rs.next();
+      return rs.getInt(1);
+    }
+  }
+
+  @Test
+  public void testTableName() {
+    Sharding sharding = Sharding.of(EntityFactory.create(ShardOrder.class)).get();
+    String tableName = EntityFactory.create(ShardOrder.class).tableName();
+    Assert.assertEquals(tableName + "_1", sharding.tableName(new ShardOrder(1L, 3L, 10)));
+    Assert.assertEquals(tableName + "_0", sharding.tableName(new ShardOrder(1L, 4L, 10)));
+  }
+
+  @Test
+  public void testTableVariantReplace() {
+    Configuration configuration = new Configuration();
+    TableVariantSqlSource source = new TableVariantSqlSource(null, configuration,
+        "shard_order", parameter -> "shard_order_1", new HashMap<>());
+    Assert.assertEquals("SELECT shard_order FROM shard_order_1 o JOIN shard_order_1 ON 1 = 1 WHERE note = 'shard_order'",
+        source.replace("SELECT shard_order FROM shard_order o JOIN shard_order ON 1 = 1 WHERE note = 'shard_order'", "shard_order_1"));
+    Assert.assertEquals("UPDATE shard_order_1 SET shard_order_id = ?",
+        source.replace("UPDATE shard_order SET shard_order_id = ?", "shard_order_1"));
+    Assert.assertEquals("INSERT INTO shard_order_1(id) VALUES (?)",
+        source.replace("INSERT INTO shard_order(id) VALUES (?)", "shard_order_1"));
+  }
+
+  @Test
+  public void testTableVariantCachesDynamicShapes() {
+    Configuration configuration = new Configuration();
+    //每次生成内容相同但不是同一个字符串的 SQL，模拟动态 SQL
+    TableVariantSqlSource source = new TableVariantSqlSource(
+        parameter -> new BoundSql(configuration, new String("SELECT id FROM shard_order WHERE " + parameter),
+            Collections.emptyList(), parameter),
+        configuration, "shard_order", parameter -> "shard_order_1", new HashMap<>());
+    String first = source.getBoundSql("id = 1").getSql();
+    Assert.assertEquals("SELECT id FROM shard_order_1 WHERE id = 1", first);
+    Assert.assertSame(first, source.getBoundSql("id = 1").getSql());
+    String other = source.getBoundSql("id = 2").getSql();
+    Assert.assertEquals("SELECT id FROM shard_order_1 WHERE id = 2", other);
+    Assert.assertSame(other, source.getBoundSql("id = 2").getSql());
+  }
+
+  @Test
+  public void testInsertAndSelect() throws SQLException {
+    try (SqlSession sqlSession = getSqlSession()) {
+      ShardOrderMapper mapper = sqlSession.getMapper(ShardOrderMapper.class);
+      Assert.assertEquals(1, mapper.insert(new ShardOrder(1L, 1L, 100)));
+      Assert.assertEquals(1, mapper.insert(new ShardOrder(2L, 2L, 200)));
+      Assert.assertEquals(1, count(sqlSession, "shard_order_0"));
+      Assert.assertEquals(1, count(sqlSession, "shard_order_1"));
+
+      ShardOrder order = mapper.getById(1L, 1L);
+      Assert.assertEquals(Integer.valueOf(100), order.getAmount());
+      //分片键不同时查询的是另一张表
+      Assert.assertNull(mapper.getById(1L, 2L));
+
+      ShardOrder query = new ShardOrder();
+      query.setUserId(2L);
+      List<ShardOrder> list = mapper.selectSelective(query);
+      Assert.assertEquals(1, list.size());
+      Assert.assertEquals(Long.valueOf(2L), list.get(0).getId());
+    }
+  }
+
+  @Test
+  public void testInsertListGroupedByShard() throws SQLException {
+    try (SqlSession sqlSession = getSqlSession()) {
+      ShardOrderMapper mapper = sqlSession.getMapper(ShardOrderMapper.class);
+      int count = mapper.insertList(Arrays.asList(
+          new ShardOrder(1L, 1L, 100),
+          new ShardOrder(2L, 2L, 200),
+          new ShardOrder(3L, 3L, 300),
+          new ShardOrder(4L, 4L, 400),
+          new ShardOrder(5L, 5L, 500)));
+      Assert.assertEquals(5, count);
+      Assert.assertEquals(2, count(sqlSession, "shard_order_0"));
+      Assert.assertEquals(3, count(sqlSession, "shard_order_1"));
+    }
+  }
+
+  @Test(expected = AssertException.class)
+  public void testShardKeyRequired() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      ShardOrderMapper mapper = sqlSession.getMapper(ShardOrderMapper.class);
+      try {
+        mapper.getById(1L, null);
+      } catch (RuntimeException e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && !(cause instanceof AssertException)) {
+          cause = cause.getCause();
+        }
+        throw (RuntimeException) cause;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.mybatis.provider.test;
+
+import io.mybatis.provider.BaseTest;
+import io.mybatis.provider.EntityFactory;
+import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.mapper.TenantNoteMapper;
+import io.mybatis.provider.mapper.TenantOrderMapper;
+import io.mybatis.provider.model.TenantNote;
+import io.mybatis.provider.model.TenantOrder;
+import io.mybatis.provider.tenant.TenantContext;
+import io.mybatis.provider.tenant.TenantSchema;
+import io.mybatis.provider.util.AssertException;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class TenantNoteMapperTest extends BaseTest {
+
+  private static int count(SqlSession sqlSession, String table) throws SQLException {
+    try (Statement stmt = sqlSession.getConnection().createStatement();
+         ResultSet rs = stmt.executeQuery("select count(*) from " + table)) {
+      rs.next();
+      return rs.getInt(1);
+    }
+  }
+
+  @Test
+  public void testTenantSchema() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      TenantNoteMapper mapper = sqlSession.getMapper(TenantNoteMapper.class);
+      Assert.assertEquals("public", mapper.getById(1L).getContent());
+      Assert.assertEquals("a", TenantContext.call("tenant_a", () -> mapper.getById(1L).getContent()));
+      Assert.assertEquals("b", TenantContext.call("tenant_b", () -> mapper.getById(1L).getContent()));
+      Assert.assertNull(TenantContext.getSchema());
+
+      TenantContext.setSchema("tenant_b");
+      try {
+        Assert.assertEquals(1, mapper.insert(new TenantNote(2L, "b2")));
+        TenantNote query = new TenantNote();
+        query.setContent("b2");
+        Assert.assertEquals(1, mapper.selectSelective(query).size());
+      } finally {
+        TenantContext.clear();
+      }
+      Assert.assertNull(mapper.getById(2L));
+      Assert.assertNull(TenantContext.call("tenant_a", () -> mapper.getById(2L)));
+    }
+  }
+
+  @Test
+  public void testVariantsLru() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      TenantNoteMapper mapper = sqlSession.getMapper(TenantNoteMapper.class);
+      for (String schema : new String[]{"tenant_a", "tenant_a", "tenant_b", "tenant_c", "tenant_a"}) {
+        sqlSession.clearCache();
+        Assert.assertEquals(schema.substring(7), TenantContext.call(schema, () -> mapper.getById(1L).getContent()));
+      }
+      TenantSchema.Variants variants = TenantSchema.stats().get(TenantNoteMapper.class.getName() + ".getById");
+      Assert.assertNotNull(variants);
+      Assert.assertTrue(variants.size() <= variants.getMaxSize());
+      Assert.assertTrue(variants.getHits() >= 1);
+      Assert.assertTrue(variants.getEvictions() >= 1);
+    }
+  }
+
+  @Test
+  public void testSupplier() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      TenantNoteMapper mapper = sqlSession.getMapper(TenantNoteMapper.class);
+      TenantContext.setSupplier(() -> "tenant_c");
+      try {
+        Assert.assertEquals("c", mapper.getById(1L).getContent());
+      } finally {
+        TenantContext.setSupplier(null);
+      }
+      sqlSession.clearCache();
+      Assert.assertEquals("public", mapper.getById(1L).getContent());
+    }
+  }
+
+  @Test
+  public void testShardedTenant() throws SQLException {
+    try (SqlSession sqlSession = getSqlSession()) {
+      TenantOrderMapper mapper = sqlSession.getMapper(TenantOrderMapper.class);
+      Assert.assertEquals(1, mapper.insert(new TenantOrder(1L, 1L, 100)));
+      Assert.assertEquals(1, (int) TenantContext.call("tenant_a", () -> mapper.insert(new TenantOrder(2L, 2L, 200))));
+      Assert.assertEquals(1, (int) TenantContext.call("tenant_a", () -> mapper.insert(new TenantOrder(3L, 3L, 300))));
+      Assert.assertEquals(1, count(sqlSession, "tenant_order_1"));
+      Assert.assertEquals(0, count(sqlSession, "tenant_order_0"));
+      Assert.assertEquals(1, count(sqlSession, "tenant_a.tenant_order_0"));
+      Assert.assertEquals(1, count(sqlSession, "tenant_a.tenant_order_1"));
+
+      Assert.assertEquals(100, (int) mapper.getById(1L, 1L).getAmount());
+      Assert.assertNull(TenantContext.call("tenant_a", () -> mapper.getById(1L, 1L)));
+      Assert.assertEquals(200, (int) TenantContext.call("tenant_a", () -> mapper.getById(2L, 2L)).getAmount());
+      Assert.assertEquals(300, (int) TenantContext.call("tenant_a", () -> mapper.getById(3L, 3L)).getAmount());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test(expected = AssertException.class)
+  public void testInvalidSchema() {
+    EntityTable entity = EntityFactory.create(TenantNote.class);
+    Assert.assertEquals("tenant_a.tenant_note", TenantContext.call("tenant_a", () -> TenantSchema.tableName(entity)));
+    TenantContext.call("tenant_a; drop table user", () -> TenantSchema.tableName(entity));
+  }
+
+}
@@ -16,16 +16,40 @@
 
 package io.mybatis.provider.test;
 
+import io.mybatis.mapper.fn.Fn;
 import io.mybatis.provider.BaseTest;
+import io.mybatis.provider.EntityColumn;
 import io.mybatis.provider.EntityFactory;
 import io.mybatis.provider.EntityTable;
+import io.mybatis.provider.dirty.DirtyTracker;
 import io.mybatis.provider.mapper.UserMapper;
+import io.mybatis.provider.mapping.EntityParameterBinder;
+import io.mybatis.provider.model.StringListTypeHandler;
 import io.mybatis.provider.model.User;
+import io.mybatis.provider.statement.AdaptiveFetchSize;
+import io.mybatis.provider.util.Padding;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
 public class UserMapperTest extends BaseTest {
 
   private static EntityTable entityTable;
@@ -65,4 +89,336 @@ public class UserMapperTest extends BaseTest {
     }
   }
 
+  @Test
+  public void testSelectAll() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      //使用 CompiledResultSetInterceptor 映射
+      List<User> users = userMapper.selectAll();
+      //有 RowBounds 时使用 MyBatis 默认的映射方式
+      List<User> expected = sqlSession.selectList(UserMapper.class.getName() + ".selectAll", null, new RowBounds(0, 100));
+      Assert.assertEquals(5, users.size());
+      Assert.assertEquals(expected.size(), users.size());
+      for (int i = 0; i < users.size(); i++) {
+        Assert.assertEquals(expected.get(i).getId(), users.get(i).getId());
+        Assert.assertEquals(expected.get(i).getUsername(), users.get(i).getUsername());
+        Assert.assertEquals(expected.get(i).getSex(), users.get(i).getSex());
+        Assert.assertEquals(expected.get(i).getAddress(), users.get(i).getAddress());
+      }
+    }
+  }
+
+  @Test
+  public void testSelectAllReversed() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      //列的顺序和 resultMap 不一致，不能按位置读取，按列名读取
+      List<User> users = userMapper.selectAllReversed();
+      List<User> expected = userMapper.selectAll();
+      Assert.assertEquals(expected.size(), users.size());
+      for (int i = 0; i < users.size(); i++) {
+        Assert.assertEquals(expected.get(i).getId(), users.get(i).getId());
+        Assert.assertEquals(expected.get(i).getUsername(), users.get(i).getUsername());
+        Assert.assertEquals(expected.get(i).getAddress(), users.get(i).getAddress());
+      }
+    }
+  }
+
+  @Test
+  public void testSharedTypeHandler() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      Assert.assertNotNull(userMapper.getById(1L));
+      Configuration configuration = sqlSession.getConfiguration();
+      EntityColumn address = entityTable.columns().stream()
+          .filter(column -> column.property().equals("address")).findFirst().get();
+      //结果映射使用列上保存的实例，执行时不会注册到 TypeHandlerRegistry
+      Object handler = address.typeHandlerInstance(configuration);
+      Assert.assertNotNull(handler);
+      Assert.assertSame(handler, address.typeHandlerInstance(configuration));
+      Assert.assertNull(configuration.getTypeHandlerRegistry().getMappingTypeHandler(StringListTypeHandler.class));
+      ResultMapping resultMapping = configuration.getMappedStatement(UserMapper.class.getName() + ".getById")
+          .getResultMaps().get(0).getResultMappings().stream()
+          .filter(mapping -> mapping.getProperty().equals("address")).findFirst().get();
+      Assert.assertSame(handler, resultMapping.getTypeHandler());
+    }
+  }
+
+  @Test
+  public void testCompiledParameter() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      User user = new User();
+      user.setId(100L);
+      user.setUsername("杨过");
+      user.setAddress(Arrays.asList("古墓", "襄阳"));
+      Assert.assertEquals(1, userMapper.insert(user));
+      //参数是实体时使用预编译的参数绑定
+      Assert.assertTrue(sqlSession.getConfiguration().getMappedStatement(UserMapper.class.getName() + ".insert")
+          .getBoundSql(user) instanceof EntityParameterBinder.CompiledBoundSql);
+      User saved = userMapper.getById(100L);
+      Assert.assertEquals("杨过", saved.getUsername());
+      Assert.assertNull(saved.getSex());
+      Assert.assertEquals(user.getAddress(), saved.getAddress());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  public void testCompiledParameterFallback() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      MappedStatement ms = sqlSession.getConfiguration().getMappedStatement(UserMapper.class.getName() + ".insert");
+      User user = new User();
+      user.setId(100L);
+      user.setUsername("杨过");
+      BoundSql boundSql = ms.getBoundSql(user);
+      Assert.assertTrue(ms.getLang().createParameterHandler(ms, user, boundSql) instanceof EntityParameterBinder.Handler);
+      //其他插件追加了参数映射时回退到默认的参数处理
+      List<ParameterMapping> mappings = new ArrayList<>(boundSql.getParameterMappings());
+      mappings.add(new ParameterMapping.Builder(ms.getConfiguration(), "limit", Integer.class).build());
+      BoundSql appended = new EntityParameterBinder.CompiledBoundSql(ms.getConfiguration(), boundSql.getSql() + " LIMIT ?",
+          mappings, user, ((EntityParameterBinder.CompiledBoundSql) boundSql).getBinder());
+      Assert.assertTrue(ms.getLang().createParameterHandler(ms, user, appended) instanceof DefaultParameterHandler);
+      //设置了附加参数时同样回退
+      BoundSql additional = ms.getBoundSql(user);
+      additional.setAdditionalParameter("username", "小龙女");
+      Assert.assertTrue(ms.getLang().createParameterHandler(ms, user, additional) instanceof DefaultParameterHandler);
+    }
+  }
+
+  @Test
+  public void testForeachPadded() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      List<User> users = userMapper.selectByIdsPadded(Arrays.asList(1L, 2L, 3L));
+      Assert.assertEquals(userMapper.selectByIds(Arrays.asList(1L, 2L, 3L)).size(), users.size());
+      Assert.assertEquals(3, users.size());
+
+      Configuration configuration = sqlSession.getConfiguration();
+      MappedStatement selectByIds = configuration.getMappedStatement(UserMapper.class.getName() + ".selectByIds");
+      MappedStatement selectByIdsPadded = configuration.getMappedStatement(UserMapper.class.getName() + ".selectByIdsPadded");
+      Set<String> shapes = new HashSet<>();
+      Set<String> paddedShapes = new HashSet<>();
+      for (int size = 1; size <= 100; size++) {
+        List<Long> ids = LongStream.rangeClosed(1, size).boxed().collect(Collectors.toList());
+        Map<String, Object> params = Collections.singletonMap("ids", ids);
+        shapes.add(selectByIds.getBoundSql(params).getSql());
+        paddedShapes.add(selectByIdsPadded.getBoundSql(params).getSql());
+      }
+      Assert.assertEquals(100, shapes.size());
+      //1,2,4,8,16,32,64,128
+      Assert.assertEquals(8, paddedShapes.size());
+    }
+  }
+
+  @Test
+  public void testPaddingLadder() {
+    Assert.assertEquals(10, Padding.paddedSize(3, new int[]{10, 50}));
+    Assert.assertEquals(50, Padding.paddedSize(11, new int[]{10, 50}));
+    Assert.assertEquals(100, Padding.paddedSize(51, new int[]{10, 50}));
+    Assert.assertEquals(Arrays.asList(1, 2, 3, 3, 3), Padding.pad(Arrays.asList(1, 2, 3), "5"));
+    Assert.assertEquals(Arrays.asList(1, 2, 2, 2), Padding.pad(new int[]{1, 2}, "4"));
+  }
+
+  @Test
+  public void testInCollection() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      Configuration configuration = sqlSession.getConfiguration();
+      Assert.assertEquals("hsqldb", configuration.getDatabaseId());
+      List<Long> ids = Arrays.asList(3L, 1L, 5L);
+      //HSQLDB 使用 IN (UNNEST(?)) 绑定一个数组参数
+      MappedStatement ms = configuration.getMappedStatement(UserMapper.class.getName() + ".selectByIdArray");
+      BoundSql boundSql = ms.getBoundSql(Collections.singletonMap("ids", ids));
+      Assert.assertTrue(boundSql.getSql().contains("UNNEST"));
+      Assert.assertEquals(1, boundSql.getParameterMappings().size());
+      List<User> users = userMapper.selectByIdArray(ids);
+      Assert.assertEquals(Arrays.asList(1L, 3L, 5L), users.stream().map(User::getId).collect(Collectors.toList()));
+      Assert.assertEquals("张无忌", users.get(0).getUsername());
+      //不支持数组参数时展开为 foreach
+      configuration.setDatabaseId(null);
+      try {
+        boundSql = ms.getBoundSql(Collections.singletonMap("ids", ids));
+        Assert.assertFalse(boundSql.getSql().contains("UNNEST"));
+        Assert.assertEquals(3, boundSql.getParameterMappings().size());
+        sqlSession.clearCache();
+        Assert.assertEquals(3, userMapper.selectByIdArray(ids).size());
+      } finally {
+        configuration.setDatabaseId("hsqldb");
+      }
+    }
+  }
+
+  @Test
+  public void testAdaptiveFetchSize() throws Exception {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      for (int i = 0; i < 3; i++) {
+        sqlSession.clearCache();
+        userMapper.selectAll();
+        userMapper.getById(1L);
+      }
+      Configuration configuration = sqlSession.getConfiguration();
+      MappedStatement selectAll = configuration.getMappedStatement(UserMapper.class.getName() + ".selectAll");
+      MappedStatement getById = configuration.getMappedStatement(UserMapper.class.getName() + ".getById");
+      Map<String, Integer> snapshot = AdaptiveFetchSize.snapshot();
+      //5 行在 [4, 8) 桶中
+      Assert.assertEquals(Integer.valueOf(8), snapshot.get(selectAll.getId()));
+      //1 行在 [1, 2) 桶中
+      Assert.assertEquals(Integer.valueOf(2), snapshot.get(getById.getId()));
+      //fetchSize 按每次执行设置，不修改共享的 MappedStatement
+      Assert.assertNull(selectAll.getFetchSize());
+      //命中一级缓存的查询不读取数据库，不记录
+      long observations = AdaptiveFetchSize.stats().get(selectAll.getId()).getObservations();
+      Assert.assertTrue(observations >= 3);
+      userMapper.selectAll();
+      Assert.assertEquals(observations, AdaptiveFetchSize.stats().get(selectAll.getId()).getObservations());
+
+      //游标查询同样设置 fetchSize，关闭时记录读取的行数
+      String cursorId = UserMapper.class.getName() + ".selectAllCursor";
+      for (int i = 0; i < 3; i++) {
+        try (Cursor<User> cursor = userMapper.selectAllCursor()) {
+          Assert.assertEquals(5, StreamSupport.stream(cursor.spliterator(), false).count());
+        }
+      }
+      Assert.assertEquals(3, AdaptiveFetchSize.stats().get(cursorId).getObservations());
+      Assert.assertEquals(Integer.valueOf(8), AdaptiveFetchSize.snapshot().get(cursorId));
+      try (Cursor<User> cursor = userMapper.selectAllCursor()) {
+        Assert.assertEquals(8, SystemMetaObject.forObject(cursor).getValue("cursor.rsw.resultSet.statement.fetchSize"));
+      }
+    }
+  }
+
+  @Test
+  public void testAdaptiveFetchSizeStats() {
+    AdaptiveFetchSize.Stats stats = new AdaptiveFetchSize.Stats(10, 1000, 90, 100, 10);
+    for (int i = 0; i < 20; i++) {
+      stats.record(1);
+    }
+    Assert.assertEquals(10, stats.getFetchSize());
+    //大查询占多数时调大，受上限限制
+    for (int i = 0; i < 300; i++) {
+      stats.record(100000);
+    }
+    Assert.assertEquals(1000, stats.getFetchSize());
+    //窗口衰减后重新回到小查询
+    for (int i = 0; i < 1000; i++) {
+      stats.record(300);
+    }
+    Assert.assertEquals(512, stats.getFetchSize());
+  }
+
+  @Test
+  public void testUpdateDirty() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      MappedStatement ms = sqlSession.getConfiguration().getMappedStatement(UserMapper.class.getName() + ".updateDirty");
+      User user = userMapper.getById(1L);
+      Assert.assertTrue(DirtyTracker.isTracked(user));
+      //没有修改时不执行
+      Assert.assertEquals(0, userMapper.updateDirty(user));
+      user.setSex("女");
+      BoundSql boundSql = ms.getBoundSql(user);
+      Assert.assertEquals("UPDATE public.user SET SEX = ? WHERE ID = ?", boundSql.getSql());
+      Assert.assertEquals(1, userMapper.updateDirty(user));
+      //更新后刷新快照
+      Assert.assertEquals(0, userMapper.updateDirty(user));
+      //修改列相同的实体使用同一个 SQL
+      User other = userMapper.getById(2L);
+      other.setSex("男");
+      Assert.assertSame(boundSql.getSql(), ms.getBoundSql(other).getSql());
+      //没有快照时更新所有列
+      User created = new User();
+      created.setId(3L);
+      created.setUsername("周芷若");
+      created.setSex("女");
+      Assert.assertFalse(DirtyTracker.isTracked(created));
+      Assert.assertEquals("UPDATE public.user SET name = ?,SEX = ?,ADDRESS = ? WHERE ID = ?",
+          ms.getBoundSql(created).getSql().replaceAll("\\s+", " ").trim());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  public void testUpdateDirtyRevert() {
+    String sex;
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      User user = userMapper.getById(1L);
+      sex = user.getSex();
+      user.setSex("X");
+      Assert.assertEquals(1, userMapper.updateDirty(user));
+      //同一个事务中改回原来的值，需要按会话中上一次更新的值生成 SQL
+      user.setSex(sex);
+      Assert.assertEquals(1, userMapper.updateDirty(user));
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = getSqlSession()) {
+      Assert.assertEquals(sex, sqlSession.getMapper(UserMapper.class).getById(1L).getSex());
+    }
+  }
+
+  @Test
+  public void testUpdateDirtyRollback() {
+    User user;
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      user = userMapper.getById(4L);
+      user.setSex("男");
+      Assert.assertEquals(1, userMapper.updateDirty(user));
+      //会话中和本次更新后的值比较
+      Assert.assertEquals(0, userMapper.updateDirty(user));
+      sqlSession.rollback();
+    }
+    //回滚后快照不变，重试时仍然会更新
+    Assert.assertFalse(DirtyTracker.dirtyColumns(entityTable, user).isEmpty());
+    try (SqlSession sqlSession = getSqlSession(); SqlSession batchSession = new DefaultSqlSessionFactory(
+        sqlSession.getConfiguration()).openSession(ExecutorType.BATCH)) {
+      UserMapper userMapper = batchSession.getMapper(UserMapper.class);
+      Assert.assertEquals(BatchExecutor.BATCH_UPDATE_RETURN_VALUE, userMapper.updateDirty(user));
+      //没有更新任何行时不刷新快照
+      User missing = new User();
+      missing.setId(404L);
+      DirtyTracker.track(entityTable, missing);
+      missing.setSex("男");
+      Assert.assertEquals(BatchExecutor.BATCH_UPDATE_RETURN_VALUE, userMapper.updateDirty(missing));
+      batchSession.commit();
+      Assert.assertTrue(DirtyTracker.dirtyColumns(entityTable, user).isEmpty());
+      Assert.assertFalse(DirtyTracker.dirtyColumns(entityTable, missing).isEmpty());
+      Assert.assertEquals("男", sqlSession.getMapper(UserMapper.class).getById(4L).getSex());
+      //恢复数据
+      user.setSex("女");
+      Assert.assertEquals(BatchExecutor.BATCH_UPDATE_RETURN_VALUE, userMapper.updateDirty(user));
+      batchSession.commit();
+    }
+  }
+
+  @Test
+  public void testProjection() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserMapper userMapper = sqlSession.getMapper(UserMapper.class);
+      User user = userMapper.selectColumnsById(1L, Fn.of(User::getUsername));
+      Assert.assertEquals("张无忌", user.getUsername());
+      Assert.assertNull(user.getSex());
+      Assert.assertNull(user.getAddress());
+      //没有指定时查询所有列
+      user = userMapper.selectColumnsById(1L, null);
+      Assert.assertEquals("男", user.getSex());
+      Assert.assertEquals(2, user.getAddress().size());
+
+      List<User> users = userMapper.selectColumns(Fn.of(User::getId, User::getSex));
+      Assert.assertEquals(5, users.size());
+      Assert.assertEquals("女", users.get(1).getSex());
+      Assert.assertNull(users.get(1).getUsername());
+      //列的顺序不同时使用相同的 SQL
+      MappedStatement ms = sqlSession.getConfiguration().getMappedStatement(UserMapper.class.getName() + ".selectColumns");
+      Map<String, Object> params = new HashMap<>();
+      params.put("fns", Fn.of(User::getSex, User::getId));
+      String sql = ms.getBoundSql(params).getSql();
+      Assert.assertEquals("SELECT ID,SEX FROM public.user ORDER BY ID", sql);
+      params.put("fns", Fn.of(User::getId, User::getSex));
+      Assert.assertSame(sql, ms.getBoundSql(params).getSql());
+    }
+  }
+
 }
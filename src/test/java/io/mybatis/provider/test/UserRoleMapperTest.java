@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mybatis.provider.test;
+
+import io.mybatis.provider.BaseTest;
+import io.mybatis.provider.key.CompositeKey;
+import io.mybatis.provider.key.CompositeKeys;
+import io.mybatis.provider.mapper.UserRoleMapper;
+import io.mybatis.provider.model.UserRole;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class UserRoleMapperTest extends BaseTest {
+
+  @Test
+  public void testSelectByIds() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      UserRoleMapper mapper = sqlSession.getMapper(UserRoleMapper.class);
+      List<UserRole> list = mapper.selectByIds(Arrays.asList(new UserRole(1L, 1L), new UserRole(3L, 2L), new UserRole(3L, 3L)));
+      Assert.assertEquals(2, list.size());
+    }
+  }
+
+  @Test
+  public void testSelectMap() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      //每段 2 个主键，重复的主键只查询一次
+      Map<CompositeKey, UserRole> map = CompositeKeys.selectMap(sqlSession, UserRoleMapper.class.getName() + ".selectByIds",
+          Arrays.asList(new UserRole(1L, 1L), new UserRole(2L, 2L), new UserRole(1L, 1L), new UserRole(4L, 3L), new UserRole(9L, 9L)));
+      Assert.assertEquals(3, map.size());
+      Assert.assertEquals("赵敏-女主角", map.get(CompositeKey.of(2L, 2L)).getRemark());
+      Assert.assertEquals("小昭-配角", map.get(CompositeKey.of(4L, 3L)).getRemark());
+      Assert.assertNull(map.get(CompositeKey.of(9L, 9L)));
+    }
+  }
+
+  @Test
+  public void testRowValueDialect() {
+    try (SqlSession sqlSession = getSqlSession()) {
+      sqlSession.getMapper(UserRoleMapper.class).selectByIds(Collections.singletonList(new UserRole(1L, 1L)));
+      Configuration configuration = sqlSession.getConfiguration();
+      MappedStatement ms = configuration.getMappedStatement(UserRoleMapper.class.getName() + ".selectByIds");
+      Map<String, Object> params = new HashMap<>();
+      params.put("ids", Arrays.asList(new UserRole(1L, 1L), new UserRole(2L, 2L)));
+      Assert.assertEquals("SELECT USER_ID AS userId,ROLE_ID AS roleId,REMARK AS remark FROM public.user_role"
+              + " WHERE (USER_ID,ROLE_ID) IN ( (?,?) , (?,?) )",
+          ms.getBoundSql(params).getSql().replaceAll("\\s+", " ").trim());
+      String databaseId = configuration.getDatabaseId();
+      try {
+        configuration.setDatabaseId("sqlserver");
+        Assert.assertEquals("SELECT USER_ID AS userId,ROLE_ID AS roleId,REMARK AS remark FROM public.user_role"
+                + " WHERE ( (USER_ID = ? AND ROLE_ID = ?) OR (USER_ID = ? AND ROLE_ID = ?) )",
+            ms.getBoundSql(params).getSql().replaceAll("\\s+", " ").trim());
+      } finally {
+        configuration.setDatabaseId(databaseId);
+      }
+    }
+  }
+
+}
@@ -1,5 +1,17 @@
 drop table user if exists;
 drop table role if exists;
+drop table event_log if exists;
+drop table dict if exists;
+drop table article if exists;
+drop table user_role if exists;
+drop table shard_order_0 if exists;
+drop table shard_order_1 if exists;
+drop table tenant_note if exists;
+drop table tenant_order_0 if exists;
+drop table tenant_order_1 if exists;
+drop schema tenant_a if exists cascade;
+drop schema tenant_b if exists cascade;
+drop schema tenant_c if exists cascade;
 
 create table user
 (
@@ -15,6 +27,104 @@ create table role
   name VARCHAR(32) NOT NULL
 );
 
+create table event_log
+(
+  id      INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  type    VARCHAR(32),
+  message VARCHAR(200)
+);
+
+create table dict
+(
+  id   INTEGER PRIMARY KEY,
+  code VARCHAR(32),
+  name VARCHAR(32)
+);
+
+create table article
+(
+  id      INTEGER PRIMARY KEY,
+  title   VARCHAR(64),
+  content CLOB
+);
+
+create table user_role
+(
+  user_id INTEGER,
+  role_id INTEGER,
+  remark  VARCHAR(64),
+  PRIMARY KEY (user_id, role_id)
+);
+
+create table shard_order_0
+(
+  id      INTEGER PRIMARY KEY,
+  user_id INTEGER,
+  amount  INTEGER
+);
+
+create table shard_order_1
+(
+  id      INTEGER PRIMARY KEY,
+  user_id INTEGER,
+  amount  INTEGER
+);
+
+create table tenant_note
+(
+  id      INTEGER PRIMARY KEY,
+  content VARCHAR(64)
+);
+
+create table tenant_order_0
+(
+  id      INTEGER PRIMARY KEY,
+  user_id INTEGER,
+  amount  INTEGER
+);
+
+create table tenant_order_1
+(
+  id      INTEGER PRIMARY KEY,
+  user_id INTEGER,
+  amount  INTEGER
+);
+
+create schema tenant_a authorization dba;
+create table tenant_a.tenant_note
+(
+  id      INTEGER PRIMARY KEY,
+  content VARCHAR(64)
+);
+
+create table tenant_a.tenant_order_0
+(
+  id      INTEGER PRIMARY KEY,
+  user_id INTEGER,
+  amount  INTEGER
+);
+
+create table tenant_a.tenant_order_1
+(
+  id      INTEGER PRIMARY KEY,
+  user_id INTEGER,
+  amount  INTEGER
+);
+
+create schema tenant_b authorization dba;
+create table tenant_b.tenant_note
+(
+  id      INTEGER PRIMARY KEY,
+  content VARCHAR(64)
+);
+
+create schema tenant_c authorization dba;
+create table tenant_c.tenant_note
+(
+  id      INTEGER PRIMARY KEY,
+  content VARCHAR(64)
+);
+
 insert into user(id, name, sex, address)
 values (1, '张无忌', '男', '明教,教主'),
        (2, '赵敏', '女', '蒙古,君主'),
@@ -26,3 +136,32 @@ insert into role(id, name)
 values (1, '男主角'),
        (2, '女主角'),
        (3, '配角');
+
+insert into dict(id, code, name)
+values (1, 'male', '男'),
+       (2, 'female', '女'),
+       (3, 'unknown', '未知');
+
+insert into article(id, title, content)
+values (1, '倚天屠龙记', '武林至尊，宝刀屠龙'),
+       (2, '射雕英雄传', '郭靖和黄蓉'),
+       (3, '神雕侠侣', '杨过和小龙女');
+
+insert into user_role(user_id, role_id, remark)
+values (1, 1, '张无忌-男主角'),
+       (2, 2, '赵敏-女主角'),
+       (3, 2, '周芷若-女主角'),
+       (4, 3, '小昭-配角'),
+       (5, 3, '殷离-配角');
+
+insert into tenant_note(id, content)
+values (1, 'public');
+
+insert into tenant_a.tenant_note(id, content)
+values (1, 'a');
+
+insert into tenant_b.tenant_note(id, content)
+values (1, 'b');
+
+insert into tenant_c.tenant_note(id, content)
+values (1, 'c');